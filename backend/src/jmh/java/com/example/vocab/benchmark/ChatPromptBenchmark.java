@@ -0,0 +1,66 @@
+package com.example.vocab.benchmark;
+
+import com.example.vocab.chat.ChatService;
+import com.example.vocab.chat.ConversationStore;
+import com.example.vocab.chat.CorrectionEngine;
+import com.example.vocab.chat.GeminiService;
+import com.example.vocab.common.resilience.Bulkhead;
+import com.example.vocab.word.domain.Word;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt assembly in {@link ChatService#processMessage} with the LLM call stubbed out, and the local
+ * correction fast path that skips it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatPromptBenchmark {
+
+    private ChatService chatService;
+
+    @Setup
+    public void setUp() {
+        InMemoryWordRepository wordRepository = new InMemoryWordRepository() {
+            @Override
+            public List<Word> findRandomWords(int limit) {
+                return List.of(Word.builder().english("apple").vietnamese("qua tao").build());
+            }
+        };
+        GeminiService geminiService = new GeminiService(null, new ObjectMapper(),
+                new Bulkhead("bench", 1024, 0, Duration.ZERO), null, null, null, null, null, new SimpleMeterRegistry()) {
+            @Override
+            public String generateContent(String systemInstruction, String prompt) {
+                return "ok";
+            }
+        };
+        chatService = new ChatService(wordRepository, geminiService,
+                new ConversationStore(6, 500, 5_000_000, Duration.ofHours(2)),
+                new CorrectionEngine("classpath:training_data/*.json",
+                        "classpath:training_data/phrase_allowlist.txt", 12), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public String plainMessage() {
+        return chatService.processMessage("I think the weather is really nice today", "bench-user");
+    }
+
+    @Benchmark
+    public String correctionFastPath() {
+        return chatService.processMessage("I am agree with you about the weather today", "bench-user");
+    }
+
+    @Benchmark
+    public String practiceMessage() {
+        return chatService.processMessage("let's practice", "bench-user");
+    }
+}
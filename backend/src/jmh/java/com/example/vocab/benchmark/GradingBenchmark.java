@@ -0,0 +1,77 @@
+package com.example.vocab.benchmark;
+
+import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.common.scoring.ScoringEngine;
+import com.example.vocab.learning.service.DueQueue;
+import com.example.vocab.learning.service.LearningService;
+import com.example.vocab.learning.service.ReviewService;
+import com.example.vocab.learning.service.SpacedRepetition;
+import com.example.vocab.session.domain.Session;
+import com.example.vocab.session.service.SessionService;
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.service.SessionWordCache;
+import com.example.vocab.word.service.WordService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LearningService#submitLearning} over sessions of different sizes, with in-memory repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GradingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int sessionSize;
+
+    private LearningService learningService;
+    private String sessionId;
+    private Map<String, String> answers;
+
+    @Setup
+    public void setUp() {
+        InMemoryWordRepository wordRepository = new InMemoryWordRepository();
+        InMemorySessionRepository sessionRepository = new InMemorySessionRepository();
+        WordService wordService = new WordService(wordRepository, new SessionWordCache(100_000, Duration.ofMinutes(10)));
+        SessionService sessionService = new SessionService(sessionRepository, null, null);
+        ScoringEngine scoringEngine = new ScoringEngine(ScoringEngine.GradingMode.TOLERANT);
+        ReviewService reviewService = new ReviewService(wordRepository, wordService, scoringEngine,
+                new SpacedRepetition(365), new DueQueue(10_000), 500);
+        learningService = new LearningService(sessionService, wordService, scoringEngine, reviewService);
+
+        sessionId = sessionRepository.save(Session.builder().status(SessionStatus.NEW).topic("bench").wordCount(0).build()).getId();
+        List<Word> words = new ArrayList<>();
+        for (int i = 0; i < sessionSize; i++) {
+            words.add(Word.builder().english("word" + i).vietnamese("tu " + i).build());
+        }
+        List<Word> saved = wordService.saveWords(sessionId, words);
+
+        answers = new HashMap<>();
+        for (int i = 0; i < saved.size(); i++) {
+            Word word = saved.get(i);
+            // Mix of correct, typo, wrong and skipped answers
+            String answer = switch (i % 4) {
+                case 0 -> word.getEnglish();
+                case 1 -> word.getEnglish().substring(1);
+                case 2 -> "something else";
+                default -> "skip";
+            };
+            answers.put(word.getId(), answer);
+        }
+    }
+
+    @Benchmark
+    public List<LearningService.EvaluationResult> submitLearning() {
+        return learningService.submitLearning(sessionId, answers);
+    }
+}
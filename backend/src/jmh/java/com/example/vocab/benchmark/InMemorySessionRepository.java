@@ -0,0 +1,33 @@
+package com.example.vocab.benchmark;
+
+import com.example.vocab.session.domain.Session;
+import com.example.vocab.session.repository.SessionRepository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Heap-backed stand-in for {@link SessionRepository}.
+ */
+class InMemorySessionRepository extends SessionRepository {
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    InMemorySessionRepository() {
+        super(null);
+    }
+
+    @Override
+    public Optional<Session> findById(String id) {
+        return Optional.ofNullable(sessions.get(id));
+    }
+
+    @Override
+    public Session save(Session session) {
+        if (session.getId() == null) {
+            session.setId("s" + sessions.size());
+        }
+        sessions.put(session.getId(), session);
+        return session;
+    }
+}
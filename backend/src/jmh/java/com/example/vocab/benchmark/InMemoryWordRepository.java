@@ -0,0 +1,64 @@
+package com.example.vocab.benchmark;
+
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Heap-backed stand-in for {@link WordRepository} so benchmarks measure our code, not Firestore.
+ */
+class InMemoryWordRepository extends WordRepository {
+    private final Map<String, Word> words = new ConcurrentHashMap<>();
+
+    InMemoryWordRepository() {
+        super(null, null);
+    }
+
+    @Override
+    public List<Word> findAllBySessionIdOrderByOrderIndexAsc(String sessionId) {
+        List<Word> result = new ArrayList<>();
+        for (Word word : words.values()) {
+            if (sessionId.equals(word.getSessionId())) {
+                result.add(word.toBuilder().build());
+            }
+        }
+        result.sort((a, b) -> Integer.compare(a.getOrderIndex(), b.getOrderIndex()));
+        return result;
+    }
+
+    @Override
+    public Optional<Word> findById(String id) {
+        return Optional.ofNullable(words.get(id)).map(word -> word.toBuilder().build());
+    }
+
+    @Override
+    public List<Word> saveAll(List<Word> toSave) {
+        applyChanges(toSave, List.of());
+        return toSave;
+    }
+
+    @Override
+    public void applyChanges(List<Word> upserts, Collection<String> deletedIds) {
+        applyChanges(upserts, deletedIds, batch -> { });
+    }
+
+    // Các ghi kèm theo (vd. cập nhật session) cần một Firestore batch thật nên bị bỏ qua ở đây
+    @Override
+    public void applyChanges(List<Word> upserts, Collection<String> deletedIds, Consumer<ChunkedWriteBatch> alsoWrite) {
+        for (Word word : upserts) {
+            if (word.getId() == null) {
+                word.setId("w" + words.size());
+            }
+            words.put(word.getId(), word.toBuilder().build());
+        }
+        deletedIds.forEach(words::remove);
+    }
+}
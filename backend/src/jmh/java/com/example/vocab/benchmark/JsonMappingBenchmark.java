@@ -0,0 +1,76 @@
+package com.example.vocab.benchmark;
+
+import com.example.vocab.learning.service.LearningService;
+import com.example.vocab.word.domain.Word;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson mapping of the payloads on the hottest endpoints: word lists in both directions and
+ * evaluation results (which the API only ever writes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMappingBenchmark {
+    private static final TypeReference<List<Word>> WORD_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10", "100"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Word> words;
+    private List<LearningService.EvaluationResult> results;
+    private byte[] wordsJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        words = new ArrayList<>();
+        results = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Word word = Word.builder()
+                    .id("id-" + i)
+                    .sessionId("session")
+                    .english("word" + i)
+                    .vietnamese("từ số " + i)
+                    .orderIndex(i)
+                    .imageUrl("https://example.com/" + i + ".png")
+                    .randomKey(Math.random())
+                    .build();
+            words.add(word);
+            results.add(LearningService.EvaluationResult.builder()
+                    .id(word.getId())
+                    .english(word.getEnglish())
+                    .vietnamese(word.getVietnamese())
+                    .userAnswer(word.getEnglish())
+                    .correct(true)
+                    .imageUrl(word.getImageUrl())
+                    .build());
+        }
+        wordsJson = objectMapper.writeValueAsBytes(words);
+    }
+
+    @Benchmark
+    public byte[] serializeWords() throws Exception {
+        return objectMapper.writeValueAsBytes(words);
+    }
+
+    @Benchmark
+    public List<Word> deserializeWords() throws Exception {
+        return objectMapper.readValue(wordsJson, WORD_LIST);
+    }
+
+    @Benchmark
+    public byte[] serializeEvaluationResults() throws Exception {
+        return objectMapper.writeValueAsBytes(results);
+    }
+}
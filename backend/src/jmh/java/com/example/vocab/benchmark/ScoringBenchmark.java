@@ -0,0 +1,49 @@
+package com.example.vocab.benchmark;
+
+import com.example.vocab.common.scoring.ScoringEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pronunciation score calculation (what {@code PronunciationService.calculateScore} runs per check)
+ * and answer grading, across word lengths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+
+    @Param({"4", "8", "16", "32"})
+    private int length;
+
+    private final ScoringEngine exactEngine = new ScoringEngine(ScoringEngine.GradingMode.EXACT);
+    private final ScoringEngine tolerantEngine = new ScoringEngine(ScoringEngine.GradingMode.TOLERANT);
+    private String target;
+    private String spoken;
+
+    @Setup
+    public void setUp() {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + (i * 7) % 26));
+        }
+        target = word.toString();
+        // Một lỗi thay thế và một lỗi hoa/thường, giống kết quả nhận dạng thường gặp
+        word.setCharAt(length / 2, 'z');
+        spoken = " " + Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    @Benchmark
+    public int pronunciationScore() {
+        return exactEngine.similarityScore(spoken, target);
+    }
+
+    @Benchmark
+    public ScoringEngine.Grade gradeTolerant() {
+        return tolerantEngine.grade(spoken, target);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.vocab.benchmark;
+
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordsChangedEvent;
+import com.example.vocab.word.search.WordSearchHit;
+import com.example.vocab.word.search.WordSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autocomplete queries against {@link WordSearchIndex}: a prefix, a Vietnamese prefix typed without
+ * diacritics, and a query with a typo that needs the trigram path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    private static final String[] SYLLABLES = {"quả", "táo", "đường", "cam", "nhà", "sách", "học", "bàn", "ghế", "xe"};
+
+    @Param({"10000", "100000"})
+    private int words;
+
+    private WordSearchIndex index;
+    private String prefix;
+    private String typo;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Word> batch = new ArrayList<>(words);
+        for (int i = 0; i < words; i++) {
+            StringBuilder english = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int c = 0; c < length; c++) {
+                english.append((char) ('a' + random.nextInt(26)));
+            }
+            String vietnamese = SYLLABLES[random.nextInt(SYLLABLES.length)] + " " + SYLLABLES[random.nextInt(SYLLABLES.length)];
+            batch.add(Word.builder().id("w" + i).sessionId("s" + i / 50).english(english.toString()).vietnamese(vietnamese).build());
+        }
+        index = new WordSearchIndex(null, 1000);
+        index.onWordsChanged(new WordsChangedEvent(batch, List.of()));
+
+        String sample = batch.get(words / 2).getEnglish();
+        prefix = sample.substring(0, 3);
+        // Đổi chỗ hai ký tự: không có match theo tiền tố, phải đi qua trigram
+        typo = sample.charAt(1) + "" + sample.charAt(0) + sample.substring(2);
+    }
+
+    @Benchmark
+    public List<WordSearchHit> englishPrefix() {
+        return index.search(prefix, 10);
+    }
+
+    @Benchmark
+    public List<WordSearchHit> vietnameseWithoutDiacritics() {
+        return index.search("qua ta", 10);
+    }
+
+    @Benchmark
+    public List<WordSearchHit> typoTolerant() {
+        return index.search(typo, 10);
+    }
+}
@@ -1,21 +1,38 @@
 package com.example.vocab.chat;
 
+import com.example.vocab.common.resilience.BulkheadFullException;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/chat")
 @CrossOrigin(origins = "*") // Cho phép gọi từ Frontend
+@Slf4j
 public class ChatController {
 
     private final ChatService chatService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Duration streamTimeout;
 
     @Autowired
-    public ChatController(ChatService chatService) {
+    public ChatController(ChatService chatService,
+                          @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+                          @Value("${app.chat.stream-timeout:60s}") Duration streamTimeout) {
         this.chatService = chatService;
+        this.taskExecutor = taskExecutor;
+        this.streamTimeout = streamTimeout;
     }
 
     @PostMapping("/message")
@@ -28,4 +45,42 @@ public class ChatController {
         response.put("response", aiResponse);
         return response;
     }
+
+    /**
+     * Server-Sent Events: one "token" event per chunk ({"text": ...}), then "done" with the full reply,
+     * or "error" if the request could not be started.
+     */
+    @PostMapping(value = "/message/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(@RequestBody Map<String, String> payload) {
+        String userMessage = payload.get("message");
+        String sessionId = payload.get("sessionId");
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+
+        taskExecutor.execute(() -> {
+            try {
+                String aiResponse = chatService.streamMessage(userMessage, sessionId,
+                        token -> send(emitter, "token", Map.of("text", token)));
+                send(emitter, "done", Map.of("response", aiResponse));
+                emitter.complete();
+            } catch (BulkheadFullException e) {
+                send(emitter, "error", Map.of("message", e.getMessage()));
+                emitter.complete();
+            } catch (UncheckedIOException e) {
+                // Client đã đóng kết nối
+                log.debug("Chat stream closed by client: {}", e.getMessage());
+                emitter.completeWithError(e);
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
@@ -2,26 +2,62 @@ package com.example.vocab.chat;
 
 import com.example.vocab.word.domain.Word;
 import com.example.vocab.word.repository.WordRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class ChatService {
 
+    // System prompt cố định: Thẳng thắn, ngắn gọn, như một người bạn. Gửi qua systemInstruction, không lặp lại trong từng lượt
+    static final String SYSTEM_INSTRUCTION = """
+            You are a cool, direct friend helping the user learn English.
+            Rules:
+            1. Be concise. No fluff, no 'Good job', no encouragement.
+            2. If the user makes a mistake, correct it immediately and give a 1-sentence explanation.
+            3. Always provide a natural example sentence for any correction or definition.
+            4. Level Up: If the user's sentence is too simple, suggest a more advanced or natural way to say it.
+            5. Chat naturally like a friend, but stay focused on helping them improve.
+            """;
+
     private final WordRepository wordRepository;
     private final GeminiService geminiService;
+    // Quản lý trạng thái hội thoại (có giới hạn bộ nhớ và tự hết hạn)
+    private final ConversationStore conversationStore;
+    private final CorrectionEngine correctionEngine;
+    // Thời gian tới token đầu tiên và tổng thời gian trả lời, theo stream=true|false.
+    // Với câu trả lời không stream, token đầu tới cùng cả câu nên hai số bằng nhau
+    private final Timer timeToFirstToken;
+    private final Timer streamedTimeToFirstToken;
+    private final Timer duration;
+    private final Timer streamedDuration;
 
-    // Quản lý trạng thái hội thoại
-    private final Map<String, String> sessionStates = new ConcurrentHashMap<>();
-
-    public ChatService(WordRepository wordRepository, GeminiService geminiService) {
+    public ChatService(WordRepository wordRepository, GeminiService geminiService,
+                       ConversationStore conversationStore, CorrectionEngine correctionEngine,
+                       MeterRegistry meterRegistry) {
         this.wordRepository = wordRepository;
         this.geminiService = geminiService;
+        this.conversationStore = conversationStore;
+        this.correctionEngine = correctionEngine;
+        this.timeToFirstToken = timer(meterRegistry, "chat.ttft", "Time until the first chunk of a chat reply", false);
+        this.streamedTimeToFirstToken = timer(meterRegistry, "chat.ttft", "Time until the first chunk of a chat reply", true);
+        this.duration = timer(meterRegistry, "chat.duration", "Total time of a chat reply", false);
+        this.streamedDuration = timer(meterRegistry, "chat.duration", "Total time of a chat reply", true);
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description, boolean stream) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("stream", String.valueOf(stream))
+                .publishPercentileHistogram()
+                .register(registry);
     }
 
     public String processMessage(String message) {
@@ -29,39 +65,102 @@ public class ChatService {
     }
 
     public String processMessage(String message, String sessionId) {
+        long start = System.nanoTime();
+        String effectiveSessionId = sessionId != null ? sessionId : "default-user";
+
+        // Lỗi phổ biến được trả lời ngay bằng luật có sẵn, còn lại mới gọi Gemini
+        String aiResponse = localReply(message, effectiveSessionId).orElseGet(() ->
+                geminiService.generateContent(SYSTEM_INSTRUCTION, buildPrompt(message, effectiveSessionId)));
+        long elapsed = System.nanoTime() - start;
+        timeToFirstToken.record(elapsed, TimeUnit.NANOSECONDS);
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        rememberTurn(effectiveSessionId, message, aiResponse);
+
+        return aiResponse + practiceSuffix(message, effectiveSessionId);
+    }
+
+    /**
+     * Same reply as {@link #processMessage(String, String)}, but pushed to {@code onToken} chunk by chunk;
+     * the practice suggestion is sent as the last chunk. Returns the full reply.
+     */
+    public String streamMessage(String message, String sessionId, Consumer<String> onToken) {
+        long start = System.nanoTime();
+        long[] firstToken = {-1};
         String effectiveSessionId = sessionId != null ? sessionId : "default-user";
-        String targetWord = sessionStates.get(effectiveSessionId);
-
-        // Tạo system prompt mới: Thẳng thắn, ngắn gọn, như một người bạn
-        StringBuilder systemPrompt = new StringBuilder();
-        systemPrompt.append("You are a cool, direct friend helping the user learn English. \n");
-        systemPrompt.append("Rules:\n");
-        systemPrompt.append("1. Be concise. No fluff, no 'Good job', no encouragement.\n");
-        systemPrompt.append("2. If the user makes a mistake, correct it immediately and give a 1-sentence explanation.\n");
-        systemPrompt.append("3. Always provide a natural example sentence for any correction or definition.\n");
-        systemPrompt.append("4. Level Up: If the user's sentence is too simple, suggest a more advanced or natural way to say it.\n");
-        systemPrompt.append("5. Chat naturally like a friend, but stay focused on helping them improve.\n");
-        
+
+        Consumer<String> timedOnToken = token -> {
+            if (firstToken[0] < 0) {
+                firstToken[0] = System.nanoTime() - start;
+            }
+            onToken.accept(token);
+        };
+
+        String aiResponse = localReply(message, effectiveSessionId)
+                .map(reply -> {
+                    timedOnToken.accept(reply);
+                    return reply;
+                })
+                .orElseGet(() -> geminiService.streamContent(SYSTEM_INSTRUCTION,
+                        buildPrompt(message, effectiveSessionId), timedOnToken));
+
+        rememberTurn(effectiveSessionId, message, aiResponse);
+        String suffix = practiceSuffix(message, effectiveSessionId);
+        if (!suffix.isEmpty()) {
+            onToken.accept(suffix);
+        }
+        long elapsed = System.nanoTime() - start;
+        streamedTimeToFirstToken.record(firstToken[0] >= 0 ? firstToken[0] : elapsed, TimeUnit.NANOSECONDS);
+        streamedDuration.record(elapsed, TimeUnit.NANOSECONDS);
+        return aiResponse + suffix;
+    }
+
+    private Optional<String> localReply(String message, String sessionId) {
+        // Đang luyện một từ thì để Gemini kiểm tra cách dùng từ đó
+        if (conversationStore.hasPendingWord(sessionId)) {
+            return Optional.empty();
+        }
+        return correctionEngine.correct(message);
+    }
+
+    private String buildPrompt(String message, String sessionId) {
+        List<ConversationStore.Turn> history = conversationStore.history(sessionId);
+        String targetWord = conversationStore.takePendingWord(sessionId);
+
+        // Phần thay đổi theo từng lượt: từ đang luyện, lịch sử gần nhất và tin nhắn mới
+        StringBuilder turnPrompt = new StringBuilder();
         if (targetWord != null) {
-            systemPrompt.append("The user is practicing: '").append(targetWord).append("'. Check its usage.\n");
-            sessionStates.remove(effectiveSessionId); 
+            turnPrompt.append("The user is practicing: '").append(targetWord).append("'. Check its usage.\n");
         }
 
-        systemPrompt.append("User message: ").append(message);
+        if (!history.isEmpty()) {
+            turnPrompt.append("Recent conversation:\n");
+            for (ConversationStore.Turn turn : history) {
+                turnPrompt.append("User: ").append(turn.user()).append('\n');
+                turnPrompt.append("You: ").append(turn.reply()).append('\n');
+            }
+        }
+
+        turnPrompt.append("User message: ").append(message);
+        return turnPrompt.toString();
+    }
 
-        // Gọi Gemini
-        String aiResponse = geminiService.generateContent(systemPrompt.toString());
+    private void rememberTurn(String sessionId, String message, String aiResponse) {
+        // Câu trả lời dự phòng khi lỗi không phải là một lượt hội thoại thật
+        if (!GeminiService.FALLBACK_RESPONSE.equals(aiResponse)) {
+            conversationStore.appendTurn(sessionId, message, aiResponse);
+        }
+    }
 
+    private String practiceSuffix(String message, String sessionId) {
         // Gợi ý từ mới nhưng không dùng lời động viên
         if (message.toLowerCase().contains("luyện tập") || message.toLowerCase().contains("practice")) {
             List<Word> words = wordRepository.findRandomWords(1);
             if (!words.isEmpty()) {
                 Word w = words.get(0);
-                sessionStates.put(effectiveSessionId, w.getEnglish());
-                aiResponse += "\n\nPractice this word: '**" + w.getEnglish() + "**'. Use it in a sentence.";
+                conversationStore.setPendingWord(sessionId, w.getEnglish());
+                return "\n\nPractice this word: '**" + w.getEnglish() + "**'. Use it in a sentence.";
             }
         }
-
-        return aiResponse;
+        return "";
     }
 }
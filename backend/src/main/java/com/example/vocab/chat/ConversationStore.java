@@ -0,0 +1,140 @@
+package com.example.vocab.chat;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-session chat state: the word the user was asked to practise and a rolling history of the last turns.
+ * Bounded by total characters (the memory budget) and evicted after a period of inactivity, so abandoned
+ * sessions do not accumulate. Entries are immutable and replaced on every update, which keeps the weight
+ * Caffeine computed on insert accurate.
+ */
+@Component
+public class ConversationStore implements MeterBinder {
+    private static final Conversation EMPTY = new Conversation(null, List.of());
+
+    private final Cache<String, Conversation> conversations;
+    private final int maxTurns;
+    private final int maxTurnChars;
+
+    public ConversationStore(@Value("${app.chat.history.max-turns:6}") int maxTurns,
+                             @Value("${app.chat.history.max-turn-chars:500}") int maxTurnChars,
+                             @Value("${app.chat.store.max-weight:5000000}") long maxWeight,
+                             @Value("${app.chat.store.ttl:2h}") Duration ttl) {
+        this.maxTurns = Math.max(0, maxTurns);
+        this.maxTurnChars = Math.max(1, maxTurnChars);
+        this.conversations = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String sessionId, Conversation conversation) -> conversation.weight())
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public List<Turn> history(String sessionId) {
+        Conversation conversation = conversations.getIfPresent(sessionId);
+        return conversation != null ? conversation.turns() : List.of();
+    }
+
+    public boolean hasPendingWord(String sessionId) {
+        Conversation conversation = conversations.getIfPresent(sessionId);
+        return conversation != null && conversation.pendingWord() != null;
+    }
+
+    /**
+     * Returns and clears the pending practice word, if any.
+     */
+    public String takePendingWord(String sessionId) {
+        String[] taken = new String[1];
+        conversations.asMap().computeIfPresent(sessionId, (id, conversation) -> {
+            taken[0] = conversation.pendingWord();
+            // Không còn gì để giữ thì xoá hẳn entry
+            return conversation.turns().isEmpty() ? null : conversation.withPendingWord(null);
+        });
+        return taken[0];
+    }
+
+    public void setPendingWord(String sessionId, String word) {
+        conversations.asMap().compute(sessionId,
+                (id, conversation) -> (conversation != null ? conversation : EMPTY).withPendingWord(word));
+    }
+
+    public void appendTurn(String sessionId, String userMessage, String reply) {
+        if (maxTurns == 0) {
+            return;
+        }
+        Turn turn = new Turn(truncate(userMessage), truncate(reply));
+        conversations.asMap().compute(sessionId,
+                (id, conversation) -> (conversation != null ? conversation : EMPTY).withTurn(turn, maxTurns));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, conversations, "conversations");
+        // CaffeineCacheMetrics chỉ có số phần tử; giới hạn bộ nhớ tính theo trọng số (ký tự) nên xuất thêm
+        Gauge.builder("cache.weighted.size", this, ConversationStore::weightedSize)
+                .tag("cache", "conversations")
+                .baseUnit("characters")
+                .description("Characters of history held, bounded by the store's maximum weight")
+                .register(registry);
+    }
+
+    public void clear(String sessionId) {
+        conversations.invalidate(sessionId);
+    }
+
+    public CacheStats stats() {
+        return conversations.stats();
+    }
+
+    public long estimatedSize() {
+        return conversations.estimatedSize();
+    }
+
+    public long weightedSize() {
+        return conversations.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private String truncate(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() <= maxTurnChars ? text : text.substring(0, maxTurnChars) + "…";
+    }
+
+    public record Turn(String user, String reply) {
+    }
+
+    record Conversation(String pendingWord, List<Turn> turns) {
+        Conversation withPendingWord(String word) {
+            return new Conversation(word, turns);
+        }
+
+        Conversation withTurn(Turn turn, int maxTurns) {
+            List<Turn> next = new ArrayList<>(Math.min(turns.size() + 1, maxTurns));
+            next.addAll(turns.subList(Math.max(0, turns.size() + 1 - maxTurns), turns.size()));
+            next.add(turn);
+            return new Conversation(pendingWord, List.copyOf(next));
+        }
+
+        // Trọng số xấp xỉ theo số ký tự, cộng thêm chi phí cố định của mỗi entry
+        int weight() {
+            int chars = 64 + (pendingWord != null ? pendingWord.length() : 0);
+            for (Turn turn : turns) {
+                chars += turn.user().length() + turn.reply().length();
+            }
+            return chars;
+        }
+    }
+}
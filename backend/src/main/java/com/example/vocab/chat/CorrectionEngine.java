@@ -0,0 +1,312 @@
+package com.example.vocab.chat;
+
+import com.example.vocab.chat.dto.CorrectionRule;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Answers common learner mistakes locally from the {@link CorrectionRule} training data.
+ * A message is handled when it is one of the rule inputs (ignoring case and punctuation), or when it is short
+ * and contains a known wrong phrase such as "I am agree"; everything else goes to the LLM.
+ * A phrase rule is only used if its wrong form is on the curated allow-list and applying its fix to the rule's own
+ * input reproduces the corrected sentence, which filters out entries whose "wrong"/"fix" fields do not line up.
+ * Real words such as "its" or "quite" are never on the allow-list: they are only wrong in the sentence they came
+ * from, so they are handled by the sentence rule alone.
+ * Misses are counted per normalised message (for the most recent {@value #MAX_TRACKED_MISSES} distinct ones) and
+ * logged at INFO the 1st, 10th, 100th... time, so recurring sentences worth a rule stand out without logging every
+ * message.
+ */
+@Component
+@Slf4j
+public class CorrectionEngine implements MeterBinder {
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}' ]+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    static final int MAX_TRACKED_MISSES = 1_000;
+    private static final int MAX_LOGGED_MISS_LENGTH = 200;
+
+    private final Map<String, CorrectionRule> sentenceRules;
+    private final List<CorrectionRule.Mistake> phraseRules;
+    private final PhraseMatcher phraseMatcher;
+    private final int maxPhraseMessageWords;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder sentenceHits = new LongAdder();
+    private final LongAdder phraseHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Cache<String, AtomicLong> missCounts = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_MISSES)
+            .build();
+
+    public CorrectionEngine(@Value("${app.chat.corrections.location:classpath:training_data/*.json}") String location,
+                            @Value("${app.chat.corrections.phrase-allowlist:classpath:training_data/phrase_allowlist.txt}")
+                            String phraseAllowList,
+                            @Value("${app.chat.corrections.max-words:12}") int maxPhraseMessageWords) {
+        this(loadRules(location), loadAllowList(phraseAllowList), maxPhraseMessageWords);
+    }
+
+    CorrectionEngine(List<CorrectionRule> rules, Set<String> phraseAllowList, int maxPhraseMessageWords) {
+        this.maxPhraseMessageWords = maxPhraseMessageWords;
+        Map<String, CorrectionRule> sentences = new LinkedHashMap<>();
+        Map<String, CorrectionRule.Mistake> phrases = new LinkedHashMap<>();
+        for (CorrectionRule rule : rules) {
+            if (rule.getInput() == null || rule.getOutput() == null) continue;
+            sentences.putIfAbsent(normalize(rule.getInput()), rule);
+            List<CorrectionRule.Mistake> mistakes = rule.getOutput().getMistakes();
+            if (mistakes == null) continue;
+            for (CorrectionRule.Mistake mistake : mistakes) {
+                if (isConsistent(rule, mistake)
+                        && phraseAllowList.contains(mistake.getWrong().toLowerCase(Locale.ROOT))) {
+                    phrases.putIfAbsent(mistake.getWrong().toLowerCase(Locale.ROOT), mistake);
+                }
+            }
+        }
+        this.sentenceRules = sentences;
+        this.phraseRules = List.copyOf(phrases.values());
+        this.phraseMatcher = new PhraseMatcher(List.copyOf(phrases.keySet()));
+        log.info("Loaded {} sentence rules and {} phrase rules for the correction fast path",
+                sentenceRules.size(), phraseRules.size());
+    }
+
+    /**
+     * Local tutor reply for {@code message}, or empty if it should go to the LLM.
+     */
+    public Optional<String> correct(String message) {
+        lookups.increment();
+        if (message == null || message.isBlank()) {
+            return Optional.empty();
+        }
+
+        CorrectionRule rule = sentenceRules.get(normalize(message));
+        if (rule != null) {
+            sentenceHits.increment();
+            CorrectionRule.Output output = rule.getOutput();
+            return Optional.of(formatReply(output.getCorrected_sentence(), output.getMistakes(),
+                    output.getNatural_reply(), output.getFollow_up_question()));
+        }
+
+        String trimmed = message.trim();
+        if (SPACES.split(trimmed).length <= maxPhraseMessageWords) {
+            List<PhraseMatcher.Match> matches = phraseMatcher.findAll(trimmed);
+            if (!matches.isEmpty()) {
+                phraseHits.increment();
+                return Optional.of(applyPhraseRules(trimmed, matches));
+            }
+        }
+
+        recordMiss(message);
+        return Optional.empty();
+    }
+
+    // Ghi lại câu chưa có luật để bổ sung bộ luật từ lưu lượng thực tế; chỉ log khi số lần chạm 1, 10, 100...
+    private void recordMiss(String message) {
+        misses.increment();
+        String key = normalize(message);
+        if (key.length() > MAX_LOGGED_MISS_LENGTH) {
+            key = key.substring(0, MAX_LOGGED_MISS_LENGTH);
+        }
+        long count = missCounts.get(key, ignored -> new AtomicLong()).incrementAndGet();
+        if (isPowerOfTen(count)) {
+            log.info("Correction fast path miss x{}: {}", count, key);
+        }
+    }
+
+    private static boolean isPowerOfTen(long value) {
+        while (value >= 10 && value % 10 == 0) {
+            value /= 10;
+        }
+        return value == 1;
+    }
+
+    /**
+     * The most frequent recent misses (normalised), most frequent first: candidates for new rules.
+     */
+    public Map<String, Long> getTopMisses(int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        missCounts.asMap().entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().get(), a.getValue().get()))
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue().get()));
+        return top;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("chat.corrections.lookups", lookups, LongAdder::sum)
+                .description("Messages checked against the correction rules")
+                .register(registry);
+        FunctionCounter.builder("chat.corrections.hits", sentenceHits, LongAdder::sum)
+                .tag("rule", "sentence")
+                .description("Messages answered locally")
+                .register(registry);
+        FunctionCounter.builder("chat.corrections.hits", phraseHits, LongAdder::sum)
+                .tag("rule", "phrase")
+                .description("Messages answered locally")
+                .register(registry);
+        FunctionCounter.builder("chat.corrections.misses", misses, LongAdder::sum)
+                .description("Messages sent on to the LLM")
+                .register(registry);
+        Gauge.builder("chat.corrections.hit.ratio", this, CorrectionEngine::getHitRate)
+                .register(registry);
+        Gauge.builder("chat.corrections.rules", this, CorrectionEngine::getSentenceRuleCount)
+                .tag("rule", "sentence")
+                .register(registry);
+        Gauge.builder("chat.corrections.rules", this, CorrectionEngine::getPhraseRuleCount)
+                .tag("rule", "phrase")
+                .register(registry);
+    }
+
+    private String applyPhraseRules(String message, List<PhraseMatcher.Match> matches) {
+        StringBuilder corrected = new StringBuilder();
+        List<CorrectionRule.Mistake> mistakes = new ArrayList<>();
+        int position = 0;
+        for (PhraseMatcher.Match match : matches) {
+            CorrectionRule.Mistake mistake = phraseRules.get(match.phrase());
+            corrected.append(message, position, match.start());
+            corrected.append(matchCase(message.charAt(match.start()), mistake.getFix()));
+            position = match.end();
+            mistakes.add(mistake);
+        }
+        corrected.append(message.substring(position));
+        return formatReply(corrected.toString(), mistakes, null, null);
+    }
+
+    private static String formatReply(String corrected, List<CorrectionRule.Mistake> mistakes,
+                                      String naturalReply, String followUp) {
+        StringBuilder reply = new StringBuilder();
+        if (mistakes != null && !mistakes.isEmpty()) {
+            reply.append("Correction: **").append(corrected).append("**\n");
+            for (CorrectionRule.Mistake mistake : mistakes) {
+                reply.append("- '").append(mistake.getWrong()).append("' → '").append(mistake.getFix()).append("'");
+                if (mistake.getReason() != null && !mistake.getReason().isBlank()) {
+                    reply.append(": ").append(mistake.getReason());
+                }
+                reply.append('\n');
+            }
+        }
+        if (naturalReply != null && !naturalReply.isBlank()) {
+            reply.append(reply.isEmpty() ? "" : "\n").append(naturalReply);
+        }
+        if (followUp != null && !followUp.isBlank()) {
+            reply.append(reply.isEmpty() ? "" : " ").append(followUp);
+        }
+        return reply.toString().trim();
+    }
+
+    // Giữ chữ hoa/thường của chữ cái đầu như người dùng đã gõ (trừ đại từ "I")
+    private static String matchCase(char original, String fix) {
+        if (fix.isEmpty() || fix.equals("I") || fix.startsWith("I ") || fix.startsWith("I'")) {
+            return fix;
+        }
+        char first = Character.isUpperCase(original) ? Character.toUpperCase(fix.charAt(0))
+                : Character.toLowerCase(fix.charAt(0));
+        return first + fix.substring(1);
+    }
+
+    private static boolean isConsistent(CorrectionRule rule, CorrectionRule.Mistake mistake) {
+        if (mistake.getWrong() == null || mistake.getWrong().isBlank() || mistake.getFix() == null) {
+            return false;
+        }
+        String input = rule.getInput();
+        List<PhraseMatcher.Match> matches = new PhraseMatcher(List.of(mistake.getWrong())).findAll(input);
+        if (matches.isEmpty()) {
+            return false;
+        }
+        PhraseMatcher.Match match = matches.get(0);
+        String applied = input.substring(0, match.start()) + mistake.getFix() + input.substring(match.end());
+        return normalize(applied).equals(normalize(rule.getOutput().getCorrected_sentence()));
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('’', '\'');
+        return SPACES.matcher(NON_WORD.matcher(lower).replaceAll(" ")).replaceAll(" ").trim();
+    }
+
+    private static List<CorrectionRule> loadRules(String location) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<CorrectionRule> rules = new ArrayList<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(location)) {
+                try (InputStream is = resource.getInputStream()) {
+                    rules.addAll(objectMapper.readValue(is, new TypeReference<List<CorrectionRule>>() {
+                    }));
+                } catch (IOException e) {
+                    log.warn("Skipping correction rules in {}: {}", resource.getFilename(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot load correction rules from {}: {}", location, e.getMessage());
+        }
+        return rules;
+    }
+
+    private static Set<String> loadAllowList(String location) {
+        Set<String> allowed = new HashSet<>();
+        Resource resource = new PathMatchingResourcePatternResolver().getResource(location);
+        try (InputStream is = resource.getInputStream()) {
+            for (String line : new String(is.readAllBytes(), StandardCharsets.UTF_8).split("\\R")) {
+                String phrase = line.trim().toLowerCase(Locale.ROOT);
+                if (!phrase.isEmpty() && !phrase.startsWith("#")) {
+                    allowed.add(phrase);
+                }
+            }
+        } catch (IOException e) {
+            // Không có allow-list thì chỉ dùng sentence rules
+            log.warn("Cannot load phrase allow-list from {}: {}", location, e.getMessage());
+        }
+        return allowed;
+    }
+
+    public int getSentenceRuleCount() {
+        return sentenceRules.size();
+    }
+
+    public int getPhraseRuleCount() {
+        return phraseRules.size();
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public long getSentenceHitCount() {
+        return sentenceHits.sum();
+    }
+
+    public long getPhraseHitCount() {
+        return phraseHits.sum();
+    }
+
+    public double getHitRate() {
+        long total = lookups.sum();
+        return total > 0 ? (double) (sentenceHits.sum() + phraseHits.sum()) / total : 0.0;
+    }
+}
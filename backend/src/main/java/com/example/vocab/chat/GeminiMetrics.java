@@ -0,0 +1,77 @@
+package com.example.vocab.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters for calls to the Gemini API. Each HTTP attempt (retries and hedges included) is timed
+ * as {@code gemini.request} tagged with the operation and the HTTP status, or IO_ERROR when no response arrived.
+ */
+class GeminiMetrics {
+    private final MeterRegistry registry;
+    private final DistributionSummary generateRequestSize;
+    private final DistributionSummary streamRequestSize;
+    private final DistributionSummary generateResponseSize;
+    private final DistributionSummary streamResponseSize;
+    private final Counter fallbacks;
+
+    GeminiMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.generateRequestSize = size("gemini.request.size", "generate", "Request body sent to Gemini");
+        this.streamRequestSize = size("gemini.request.size", "stream", "Request body sent to Gemini");
+        this.generateResponseSize = size("gemini.response.size", "generate", "Reply text received from Gemini");
+        this.streamResponseSize = size("gemini.response.size", "stream", "Reply text received from Gemini");
+        this.fallbacks = Counter.builder("gemini.fallback")
+                .description("Replies answered with the fallback text because Gemini failed")
+                .register(registry);
+    }
+
+    <T> T time(boolean stream, String body, Supplier<T> call) {
+        (stream ? streamRequestSize : generateRequestSize).record(body.length());
+        long start = System.nanoTime();
+        String status = "200";
+        try {
+            return call.get();
+        } catch (HttpStatusCodeException e) {
+            status = String.valueOf(e.getStatusCode().value());
+            throw e;
+        } catch (ResourceAccessException e) {
+            status = "IO_ERROR";
+            throw e;
+        } catch (RuntimeException e) {
+            status = "ERROR";
+            throw e;
+        } finally {
+            Timer.builder("gemini.request")
+                    .description("Latency of Gemini API calls")
+                    .tag("operation", stream ? "stream" : "generate")
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    void recordResponse(boolean stream, int characters) {
+        (stream ? streamResponseSize : generateResponseSize).record(characters);
+    }
+
+    void recordFallback() {
+        fallbacks.increment();
+    }
+
+    private DistributionSummary size(String name, String operation, String description) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("characters")
+                .tag("operation", operation)
+                .register(registry);
+    }
+}
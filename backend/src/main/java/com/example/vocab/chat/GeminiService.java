@@ -1,23 +1,58 @@
 package com.example.vocab.chat;
 
+import com.example.vocab.common.resilience.Bulkhead;
+import com.example.vocab.common.resilience.BulkheadFullException;
+import com.example.vocab.common.resilience.CircuitBreaker;
+import com.example.vocab.common.resilience.HedgePolicy;
+import com.example.vocab.common.resilience.RetryPolicy;
+import com.example.vocab.common.resilience.TimeLimitExceededException;
+import com.example.vocab.common.resilience.TimeLimiter;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
 @Service
 @Slf4j
 public class GeminiService {
+    static final String FALLBACK_RESPONSE =
+            "I'm sorry, I'm having trouble connecting to my AI brain right now. Please try again later.";
+    private static final String SSE_DATA_PREFIX = "data:";
 
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final Bulkhead geminiBulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final HedgePolicy hedgePolicy;
+    private final TimeLimiter timeLimiter;
+    private final LlmResponseCache responseCache;
+    private final GeminiMetrics metrics;
 
     @Value("${gemini.api.key}")
     private String apiKey;
@@ -25,32 +60,124 @@ public class GeminiService {
     @Value("${gemini.api.url}")
     private String apiUrl;
 
-    public GeminiService(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    // Để trống thì suy ra từ gemini.api.url (":generateContent" -> ":streamGenerateContent")
+    @Value("${gemini.api.stream-url:}")
+    private String streamUrl;
+
+    // Tên context cache phía Gemini (vd. "cachedContents/abc123") đã chứa sẵn system instruction; để trống = không dùng
+    @Value("${gemini.api.cached-content:}")
+    private String cachedContent;
+
+    // Hạn chót cho cả một lần stream (dài hơn lần gọi thường vì câu trả lời được sinh dần)
+    @Value("${app.gemini.http.stream-timeout:60s}")
+    private Duration streamTimeout = Duration.ofSeconds(60);
+
+    // Sau khi cache bị từ chối (404/400) thì gửi systemInstruction trong khoảng này rồi thử lại cache
+    @Value("${gemini.api.cached-content-retry:10m}")
+    private Duration cachedContentRetry = Duration.ofMinutes(10);
+
+    private volatile long cachedContentRejectedUntil;
+
+    public GeminiService(@Qualifier("geminiRestTemplate") RestTemplate restTemplate, ObjectMapper objectMapper,
+                         @Qualifier("geminiBulkhead") Bulkhead geminiBulkhead,
+                         @Qualifier("geminiCircuitBreaker") CircuitBreaker circuitBreaker,
+                         @Qualifier("geminiRetryPolicy") RetryPolicy retryPolicy,
+                         @Qualifier("geminiHedgePolicy") HedgePolicy hedgePolicy,
+                         @Qualifier("geminiTimeLimiter") TimeLimiter timeLimiter,
+                         LlmResponseCache responseCache, MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.geminiBulkhead = geminiBulkhead;
+        this.circuitBreaker = circuitBreaker;
+        this.retryPolicy = retryPolicy;
+        this.hedgePolicy = hedgePolicy;
+        this.timeLimiter = timeLimiter;
+        this.responseCache = responseCache;
+        this.metrics = new GeminiMetrics(meterRegistry);
     }
 
     public String generateContent(String prompt) {
+        return generateContent(null, prompt);
+    }
+
+    /**
+     * Sends {@code systemInstruction} through Gemini's systemInstruction field (or the configured cached
+     * content) instead of as user text, so the per-turn {@code prompt} stays small.
+     */
+    public String generateContent(String systemInstruction, String prompt) {
+        try {
+            // Mạch mở thì lỗi ngay (CircuitBreakerOpenException) và trả về câu dự phòng
+            return responseCache.get(cacheKey(systemInstruction, prompt), () -> geminiBulkhead.execute(() ->
+                    circuitBreaker.execute(() -> retryPolicy.execute(() ->
+                            hedgePolicy.execute(() -> timeLimiter.execute(() -> callGemini(systemInstruction, prompt))),
+                            GeminiService::isRetryable, GeminiService::retryAfter), GeminiService::isUpstreamFailure)));
+        } catch (BulkheadFullException e) {
+            throw e;
+        } catch (Exception e) {
+            // Câu trả lời dự phòng không đi qua cache, lần gọi sau sẽ thử lại API
+            log.error("Error calling Gemini API: {}", e.getMessage());
+            metrics.recordFallback();
+            return FALLBACK_RESPONSE;
+        }
+    }
+
+    /**
+     * Streams the reply through {@code onToken} as chunks arrive and returns the full text.
+     * A cached reply is emitted as a single chunk; a completed stream is put into the cache.
+     */
+    public String streamContent(String prompt, Consumer<String> onToken) {
+        return streamContent(null, prompt, onToken);
+    }
+
+    public String streamContent(String systemInstruction, String prompt, Consumer<String> onToken) {
+        String key = cacheKey(systemInstruction, prompt);
+        String cached = responseCache.getIfPresent(key);
+        if (cached != null) {
+            onToken.accept(cached);
+            return cached;
+        }
+
+        // Luồng gọi API (trong timeLimiter) ghi vào, luồng này đọc: cần StringBuffer
+        StringBuffer text = new StringBuffer();
+        long start = System.nanoTime();
         try {
-            String url = apiUrl + "?key=" + apiKey;
+            Consumer<String> forward = chunk -> {
+                text.append(chunk);
+                onToken.accept(chunk);
+            };
+            // Chỉ thử lại khi chưa gửi token nào cho người dùng
+            geminiBulkhead.execute(() -> circuitBreaker.execute(() -> retryPolicy.execute(
+                    () -> timeLimiter.execute(() -> streamGemini(systemInstruction, prompt, forward), streamTimeout),
+                    e -> text.isEmpty() && isRetryable(e), GeminiService::retryAfter), GeminiService::isUpstreamFailure));
+        } catch (BulkheadFullException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error streaming from Gemini API: {}", e.getMessage());
+            if (text.isEmpty()) {
+                metrics.recordFallback();
+                onToken.accept(FALLBACK_RESPONSE);
+                return FALLBACK_RESPONSE;
+            }
+            // Đã gửi một phần cho người dùng: giữ nguyên, chỉ không lưu cache
+            return text.toString();
+        }
+        responseCache.put(key, text.toString(), System.nanoTime() - start);
+        return text.toString();
+    }
 
-            // Build request body using Jackson
-            ObjectNode rootNode = objectMapper.createObjectNode();
-            ArrayNode contentsArray = rootNode.putArray("contents");
-            ObjectNode contentObject = contentsArray.addObject();
-            ArrayNode partsArray = contentObject.putArray("parts");
-            partsArray.addObject().put("text", prompt);
+    private String callGemini(String systemInstruction, String prompt) {
+        String url = apiUrl + "?key=" + apiKey;
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
 
-            HttpEntity<String> entity = new HttpEntity<>(rootNode.toString(), headers);
+        String response = withCachedContentFallback(systemInstruction, prompt, body -> metrics.time(false, body,
+                () -> restTemplate.postForObject(url, new HttpEntity<>(body, headers), String.class)));
 
-            String response = restTemplate.postForObject(url, entity, String.class);
-            
+        try {
             // Parse response to extract text
             JsonNode responseJson = objectMapper.readTree(response);
-            return responseJson
+            String text = responseJson
                     .path("candidates")
                     .get(0)
                     .path("content")
@@ -58,10 +185,132 @@ public class GeminiService {
                     .get(0)
                     .path("text")
                     .asText();
+            metrics.recordResponse(false, text.length());
+            return text;
 
-        } catch (Exception e) {
-            log.error("Error calling Gemini API: {}", e.getMessage());
-            return "I'm sorry, I'm having trouble connecting to my AI brain right now. Please try again later.";
+        } catch (JsonProcessingException | NullPointerException e) {
+            throw new RuntimeException("Unexpected Gemini response: " + e.getMessage(), e);
+        }
+    }
+
+    // 429 và lỗi 5xx là tạm thời; ResourceAccessException gồm cả timeout và mất kết nối
+    private static boolean isRetryable(RuntimeException e) {
+        if (e instanceof HttpStatusCodeException http) {
+            return http.getStatusCode().value() == 429 || http.getStatusCode().is5xxServerError();
+        }
+        return e instanceof ResourceAccessException || e instanceof TimeLimitExceededException;
+    }
+
+    // Chỉ lỗi phía Gemini (5xx, timeout, mất kết nối) mới làm mạch mở; 4xx (kể cả 429) và lỗi parse thì không
+    private static boolean isUpstreamFailure(RuntimeException e) {
+        if (e instanceof HttpStatusCodeException http) {
+            return http.getStatusCode().is5xxServerError();
+        }
+        return e instanceof ResourceAccessException || e instanceof TimeLimitExceededException;
+    }
+
+    // Retry-After là số giây hoặc một HTTP-date
+    static Duration retryAfter(RuntimeException e) {
+        if (!(e instanceof HttpStatusCodeException http) || http.getResponseHeaders() == null) {
+            return null;
+        }
+        String value = http.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration delay = Duration.between(ZonedDateTime.now(at.getZone()), at);
+                return delay.isNegative() ? Duration.ZERO : delay;
+            } catch (DateTimeParseException notDate) {
+                return null;
+            }
+        }
+    }
+
+    private Void streamGemini(String systemInstruction, String prompt, Consumer<String> onChunk) {
+        String url = resolveStreamUrl() + "?alt=sse&key=" + apiKey;
+
+        return withCachedContentFallback(systemInstruction, prompt, body -> metrics.time(true, body, () ->
+                restTemplate.execute(url, HttpMethod.POST, request -> {
+                    request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    request.getHeaders().setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+                    request.getBody().write(body.getBytes(StandardCharsets.UTF_8));
+                }, response -> {
+                    // Mỗi sự kiện SSE là một dòng "data: {GenerateContentResponse}"
+                    int[] received = {0};
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            if (!line.startsWith(SSE_DATA_PREFIX)) continue;
+                            String chunk = extractText(objectMapper.readTree(line.substring(SSE_DATA_PREFIX.length())));
+                            if (!chunk.isEmpty()) {
+                                received[0] += chunk.length();
+                                onChunk.accept(chunk);
+                            }
+                        }
+                    }
+                    metrics.recordResponse(true, received[0]);
+                    return null;
+                })));
+    }
+
+    private <T> T withCachedContentFallback(String systemInstruction, String prompt, Function<String, T> send) {
+        boolean useCachedContent = usesCachedContent(systemInstruction);
+        try {
+            return send.apply(buildRequestBody(systemInstruction, prompt, useCachedContent));
+        } catch (HttpClientErrorException e) {
+            // Chỉ 400/404 nghĩa là context cache hết hạn hoặc bị xoá; 429/401/403 không liên quan tới cache
+            if (!useCachedContent || !(e.getStatusCode().value() == 400 || e.getStatusCode().value() == 404)) {
+                throw e;
+            }
+            log.warn("Gemini rejected cached content {} ({}), sending systemInstruction for {}",
+                    cachedContent, e.getStatusCode(), cachedContentRetry);
+            cachedContentRejectedUntil = System.nanoTime() + cachedContentRetry.toNanos();
+            return send.apply(buildRequestBody(systemInstruction, prompt, false));
+        }
+    }
+
+    private boolean usesCachedContent(String systemInstruction) {
+        return systemInstruction != null && cachedContent != null && !cachedContent.isBlank()
+                && (cachedContentRejectedUntil == 0 || System.nanoTime() - cachedContentRejectedUntil >= 0);
+    }
+
+    private String buildRequestBody(String systemInstruction, String prompt, boolean useCachedContent) {
+        // Build request body using Jackson
+        ObjectNode rootNode = objectMapper.createObjectNode();
+        if (useCachedContent) {
+            rootNode.put("cachedContent", cachedContent);
+        } else if (systemInstruction != null) {
+            rootNode.putObject("systemInstruction").putArray("parts").addObject().put("text", systemInstruction);
+        }
+        ArrayNode contentsArray = rootNode.putArray("contents");
+        ObjectNode contentObject = contentsArray.addObject();
+        ArrayNode partsArray = contentObject.putArray("parts");
+        partsArray.addObject().put("text", prompt);
+        return rootNode.toString();
+    }
+
+    private static String extractText(JsonNode chunk) {
+        StringBuilder text = new StringBuilder();
+        for (JsonNode part : chunk.path("candidates").path(0).path("content").path("parts")) {
+            text.append(part.path("text").asText(""));
+        }
+        return text.toString();
+    }
+
+    private static String cacheKey(String systemInstruction, String prompt) {
+        return systemInstruction != null ? systemInstruction + '\u0000' + prompt : prompt;
+    }
+
+    private String resolveStreamUrl() {
+        if (streamUrl != null && !streamUrl.isBlank()) {
+            return streamUrl;
         }
+        return apiUrl.replace(":generateContent", ":streamGenerateContent");
     }
 }
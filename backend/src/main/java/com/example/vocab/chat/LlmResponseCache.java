@@ -0,0 +1,193 @@
+package com.example.vocab.chat;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Caches LLM responses by a hash of the whitespace-normalised prompt.
+ * Concurrent callers with the same prompt share one in-flight request (single flight).
+ * Only successful, non-blank responses are kept: when the loader throws, every waiter
+ * sees the failure and the entry is dropped so the next caller retries.
+ * Results are published as {@code cache.gets} with {@code cache=llmResponses} and
+ * {@code result=hit|coalesced|miss}, next to the Caffeine-backed caches.
+ */
+@Component
+public class LlmResponseCache implements MeterBinder {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final AsyncCache<String, CachedResponse> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+
+    public LlmResponseCache(@Value("${app.cache.llm.max-size:1000}") long maxSize,
+                            @Value("${app.cache.llm.ttl:1h}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    public String get(String prompt, Supplier<String> loader) {
+        String key = keyOf(prompt);
+        CompletableFuture<CachedResponse> created = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = cache.asMap().putIfAbsent(key, created);
+        if (existing == null) {
+            misses.increment();
+            return load(key, created, loader);
+        }
+
+        boolean ready = existing.isDone();
+        long start = System.nanoTime();
+        CachedResponse response = await(existing);
+        if (ready) {
+            hits.increment();
+            savedNanos.add(response.loadNanos());
+        } else {
+            // Đợi chung một request đang chạy: vẫn tiết kiệm một lần gọi API
+            coalesced.increment();
+            savedNanos.add(Math.max(0, response.loadNanos() - (System.nanoTime() - start)));
+        }
+        return response.text();
+    }
+
+    /**
+     * Completed response for {@code prompt}, or null (counted as a miss) without waiting on an in-flight load.
+     */
+    public String getIfPresent(String prompt) {
+        CompletableFuture<CachedResponse> future = cache.getIfPresent(keyOf(prompt));
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            misses.increment();
+            return null;
+        }
+        CachedResponse response = future.join();
+        hits.increment();
+        savedNanos.add(response.loadNanos());
+        return response.text();
+    }
+
+    public void put(String prompt, String text, long loadNanos) {
+        if (text != null && !text.isBlank()) {
+            cache.put(keyOf(prompt), CompletableFuture.completedFuture(new CachedResponse(text, loadNanos)));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindGets(registry, "hit", hits);
+        bindGets(registry, "coalesced", coalesced);
+        bindGets(registry, "miss", misses);
+        Gauge.builder("cache.size", this, LlmResponseCache::estimatedSize)
+                .tag("cache", "llmResponses")
+                .description("Cached Gemini replies, in-flight requests included")
+                .register(registry);
+        FunctionCounter.builder("cache.llm.saved", savedNanos, adder -> adder.sum() / 1e9)
+                .tag("cache", "llmResponses")
+                .baseUnit("seconds")
+                .description("Gemini latency avoided by cache hits and coalesced waiters")
+                .register(registry);
+    }
+
+    private void bindGets(MeterRegistry registry, String result, LongAdder counter) {
+        FunctionCounter.builder("cache.gets", counter, LongAdder::sum)
+                .tags("cache", "llmResponses", "result", result)
+                .description("Lookups of the LLM response cache; coalesced callers waited on an in-flight request")
+                .register(registry);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Share of requests answered without their own API call (cache hits plus coalesced waiters).
+     */
+    public double getHitRatio() {
+        long served = hits.sum() + coalesced.sum();
+        long total = served + misses.sum();
+        return total > 0 ? (double) served / total : 0.0;
+    }
+
+    public double getSavedSeconds() {
+        return savedNanos.sum() / 1e9;
+    }
+
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    static String keyOf(String prompt) {
+        String normalized = WHITESPACE.matcher(prompt.strip()).replaceAll(" ");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String load(String key, CompletableFuture<CachedResponse> future, Supplier<String> loader) {
+        long start = System.nanoTime();
+        String text;
+        try {
+            text = loader.get();
+        } catch (RuntimeException e) {
+            // Future lỗi sẽ bị Caffeine tự xoá khỏi cache
+            future.completeExceptionally(e);
+            throw e;
+        }
+        future.complete(new CachedResponse(text, System.nanoTime() - start));
+        if (text == null || text.isBlank()) {
+            cache.asMap().remove(key, future);
+        }
+        return text;
+    }
+
+    private static CachedResponse await(CompletableFuture<CachedResponse> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for LLM response", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private record CachedResponse(String text, long loadNanos) {
+    }
+}
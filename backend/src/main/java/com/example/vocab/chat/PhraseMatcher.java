@@ -0,0 +1,113 @@
+package com.example.vocab.chat;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Aho-Corasick automaton over lower-cased phrases. One pass over the text finds every occurrence of every
+ * phrase; {@link #findAll} then keeps the leftmost-longest, non-overlapping ones that start and end on
+ * word boundaries.
+ */
+class PhraseMatcher {
+
+    record Match(int phrase, int start, int end) {
+    }
+
+    private static final class Node {
+        final Map<Character, Node> next = new HashMap<>();
+        Node fail;
+        // Chỉ số các cụm từ kết thúc tại node này (kể cả qua liên kết fail)
+        final List<Integer> outputs = new ArrayList<>();
+    }
+
+    private final Node root = new Node();
+    private final List<String> phrases;
+
+    PhraseMatcher(List<String> phrases) {
+        this.phrases = phrases.stream().map(phrase -> phrase.toLowerCase(Locale.ROOT)).toList();
+        for (int i = 0; i < this.phrases.size(); i++) {
+            Node node = root;
+            for (char c : this.phrases.get(i).toCharArray()) {
+                node = node.next.computeIfAbsent(c, k -> new Node());
+            }
+            node.outputs.add(i);
+        }
+        buildFailureLinks();
+    }
+
+    private void buildFailureLinks() {
+        Queue<Node> queue = new ArrayDeque<>();
+        for (Node child : root.next.values()) {
+            child.fail = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (Map.Entry<Character, Node> edge : node.next.entrySet()) {
+                Node child = edge.getValue();
+                Node fail = node.fail;
+                while (fail != null && !fail.next.containsKey(edge.getKey())) {
+                    fail = fail.fail;
+                }
+                child.fail = fail != null ? fail.next.get(edge.getKey()) : root;
+                child.outputs.addAll(child.fail.outputs);
+                queue.add(child);
+            }
+        }
+    }
+
+    int size() {
+        return phrases.size();
+    }
+
+    /**
+     * Non-overlapping whole-word matches in {@code text}, in order of position.
+     */
+    List<Match> findAll(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (lower.length() != text.length()) {
+            // Chữ hoa/thường làm đổi độ dài chuỗi: chỉ số không còn khớp với văn bản gốc
+            return List.of();
+        }
+        // best[start] = match dài nhất bắt đầu tại start
+        Match[] best = new Match[lower.length()];
+        Node node = root;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            while (node != root && !node.next.containsKey(c)) {
+                node = node.fail;
+            }
+            node = node.next.getOrDefault(c, root);
+            for (int phrase : node.outputs) {
+                int end = i + 1;
+                int start = end - phrases.get(phrase).length();
+                if (isBoundary(lower, start - 1) && isBoundary(lower, end)
+                        && (best[start] == null || best[start].end() < end)) {
+                    best[start] = new Match(phrase, start, end);
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        int position = 0;
+        while (position < best.length) {
+            Match match = best[position];
+            if (match != null) {
+                matches.add(match);
+                position = match.end();
+            } else {
+                position++;
+            }
+        }
+        return matches;
+    }
+
+    private static boolean isBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+}
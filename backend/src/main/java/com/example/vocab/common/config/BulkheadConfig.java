@@ -0,0 +1,31 @@
+package com.example.vocab.common.config;
+
+import com.example.vocab.common.resilience.Bulkhead;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class BulkheadConfig {
+
+    // Giải mã Vosk tốn CPU: mặc định mỗi lõi một yêu cầu
+    @Bean
+    public Bulkhead voskBulkhead(
+            @Value("${app.bulkhead.vosk.max-concurrent:0}") int maxConcurrent,
+            @Value("${app.bulkhead.vosk.max-queue:16}") int maxQueue,
+            @Value("${app.bulkhead.vosk.max-wait:2s}") Duration maxWait) {
+        int limit = maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+        return new Bulkhead("vosk", limit, maxQueue, maxWait);
+    }
+
+    // Gemini chủ yếu chờ mạng nên cho phép nhiều lời gọi đồng thời hơn
+    @Bean
+    public Bulkhead geminiBulkhead(
+            @Value("${app.bulkhead.gemini.max-concurrent:32}") int maxConcurrent,
+            @Value("${app.bulkhead.gemini.max-queue:64}") int maxQueue,
+            @Value("${app.bulkhead.gemini.max-wait:5s}") Duration maxWait) {
+        return new Bulkhead("gemini", maxConcurrent, maxQueue, maxWait);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.vocab.common.config;
+
+import com.example.vocab.common.resilience.CircuitBreaker;
+import com.example.vocab.common.resilience.HedgePolicy;
+import com.example.vocab.common.resilience.RetryPolicy;
+import com.example.vocab.common.resilience.TimeLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outbound client and resilience policies for the Gemini API.
+ * The JDK HttpClient keeps connections alive and multiplexes requests over HTTP/2 when the server supports it.
+ * Its read timeout only covers the wait for response headers; {@link TimeLimiter} bounds each whole attempt.
+ */
+@Configuration
+public class GeminiClientConfig {
+
+    @Bean
+    public RestTemplate geminiRestTemplate(
+            @Value("${app.gemini.http.connect-timeout:3s}") Duration connectTimeout,
+            @Value("${app.gemini.http.read-timeout:20s}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        // Chỉ tính đến khi nhận được response header; hạn chót cho cả lần gọi do geminiTimeLimiter đảm nhận
+        requestFactory.setReadTimeout(readTimeout);
+        return new RestTemplate(requestFactory);
+    }
+
+    @Bean
+    public TimeLimiter geminiTimeLimiter(@Value("${app.gemini.http.attempt-timeout:20s}") Duration attemptTimeout) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "gemini-call-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new TimeLimiter("gemini", attemptTimeout, executor);
+    }
+
+    @Bean
+    public CircuitBreaker geminiCircuitBreaker(
+            @Value("${app.gemini.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${app.gemini.circuit-breaker.minimum-calls:10}") int minimumCalls,
+            @Value("${app.gemini.circuit-breaker.failure-rate:0.5}") double failureRate,
+            @Value("${app.gemini.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        return new CircuitBreaker("gemini", windowSize, minimumCalls, failureRate, openDuration);
+    }
+
+    @Bean
+    public RetryPolicy geminiRetryPolicy(
+            @Value("${app.gemini.retry.max-attempts:3}") int maxAttempts,
+            @Value("${app.gemini.retry.base-delay:200ms}") Duration baseDelay,
+            @Value("${app.gemini.retry.max-delay:2s}") Duration maxDelay,
+            @Value("${app.gemini.retry.max-retry-after:5s}") Duration maxRetryAfter) {
+        return new RetryPolicy("gemini", maxAttempts, baseDelay, maxDelay, maxRetryAfter);
+    }
+
+    // Mặc định tắt; đặt bằng p95 độ trễ của Gemini để bật
+    @Bean
+    public HedgePolicy geminiHedgePolicy(@Value("${app.gemini.hedge-delay:0s}") Duration hedgeDelay) {
+        if (hedgeDelay.isZero() || hedgeDelay.isNegative()) {
+            return new HedgePolicy("gemini", Duration.ZERO, null);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "gemini-hedge-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new HedgePolicy("gemini", hedgeDelay, executor);
+    }
+}
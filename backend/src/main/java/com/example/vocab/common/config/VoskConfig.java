@@ -1,5 +1,6 @@
 package com.example.vocab.common.config;
 
+import com.example.vocab.pronunciation.service.ModelLexicon;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.vosk.LibVosk;
@@ -7,17 +8,14 @@ import org.vosk.LogLevel;
 import org.vosk.Model;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 @Configuration
 public class VoskConfig {
 
     @Bean
     public Model voskModel() {
-        String modelPath = System.getenv("VOSK_MODEL_PATH");
-        if (modelPath == null || modelPath.isEmpty()) {
-            modelPath = "src/main/resources/model";
-        }
-        
+        String modelPath = modelPath();
         try {
             LibVosk.setLogLevel(LogLevel.WARNINGS);
             return new Model(modelPath);
@@ -25,4 +23,17 @@ public class VoskConfig {
             throw new RuntimeException("Lỗi: Không thể tìm thấy Model âm thanh tại '" + modelPath + "'", e);
         }
     }
+
+    @Bean
+    public ModelLexicon modelLexicon() {
+        return ModelLexicon.load(Path.of(modelPath()));
+    }
+
+    private static String modelPath() {
+        String modelPath = System.getenv("VOSK_MODEL_PATH");
+        if (modelPath == null || modelPath.isEmpty()) {
+            modelPath = "src/main/resources/model";
+        }
+        return modelPath;
+    }
 }
@@ -0,0 +1,33 @@
+package com.example.vocab.common.config;
+
+import com.example.vocab.pronunciation.controller.PronunciationStreamHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+    private final PronunciationStreamHandler pronunciationStreamHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(pronunciationStreamHandler, "/api/v1/pronunciation/stream")
+                .setAllowedOrigins("*");
+    }
+
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        // Mỗi frame chỉ là một đoạn PCM ngắn, không cần bộ đệm lớn
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxBinaryMessageBufferSize(64 * 1024);
+        container.setMaxTextMessageBufferSize(8 * 1024);
+        container.setMaxSessionIdleTimeout(30_000L);
+        return container;
+    }
+}
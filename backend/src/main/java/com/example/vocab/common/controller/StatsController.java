@@ -0,0 +1,129 @@
+package com.example.vocab.common.controller;
+
+import com.example.vocab.chat.CorrectionEngine;
+import com.example.vocab.common.resilience.Bulkhead;
+import com.example.vocab.common.resilience.CircuitBreaker;
+import com.example.vocab.common.resilience.HedgePolicy;
+import com.example.vocab.common.resilience.RetryPolicy;
+import com.example.vocab.pronunciation.service.DecodeStats;
+import com.example.vocab.pronunciation.service.PronunciationService;
+import com.example.vocab.pronunciation.service.RecognitionMode;
+import com.example.vocab.session.service.DeletionProgress;
+import com.example.vocab.session.service.SessionDeletionJob;
+import com.example.vocab.word.service.SessionWordCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class StatsController {
+    private final SessionWordCache sessionWordCache;
+    private final List<Bulkhead> bulkheads;
+    private final List<CircuitBreaker> circuitBreakers;
+    private final List<RetryPolicy> retryPolicies;
+    private final List<HedgePolicy> hedgePolicies;
+    private final PronunciationService pronunciationService;
+    private final CorrectionEngine correctionEngine;
+    private final SessionDeletionJob sessionDeletionJob;
+
+    @GetMapping("/word-cache")
+    public Map<String, Object> getWordCacheStats() {
+        CacheStats stats = sessionWordCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", sessionWordCache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        return result;
+    }
+
+    // Số lần khớp/trượt nằm ở /actuator/prometheus (chat.corrections.*); ở đây chỉ còn các câu trượt hay gặp
+    @GetMapping("/corrections/misses")
+    public Map<String, Long> getCorrectionMisses(@RequestParam(defaultValue = "50") int limit) {
+        return correctionEngine.getTopMisses(Math.min(Math.max(limit, 1), 500));
+    }
+
+    // Tổng hợp nằm ở session.deletion.*; ở đây liệt kê từng job để tìm job lỗi cần chạy lại
+    @GetMapping("/deletions")
+    public Collection<DeletionProgress> getDeletionJobs() {
+        return sessionDeletionJob.getJobs();
+    }
+
+    @GetMapping("/bulkheads")
+    public List<Map<String, Object>> getBulkheadStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Bulkhead bulkhead : bulkheads) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", bulkhead.getName());
+            stats.put("maxConcurrent", bulkhead.getMaxConcurrent());
+            stats.put("active", bulkhead.getActiveCount());
+            stats.put("queueDepth", bulkhead.getQueueDepth());
+            stats.put("rejected", bulkhead.getRejectedCount());
+            result.add(stats);
+        }
+        return result;
+    }
+
+    @GetMapping("/circuit-breakers")
+    public List<Map<String, Object>> getCircuitBreakerStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (CircuitBreaker circuitBreaker : circuitBreakers) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", circuitBreaker.getName());
+            stats.put("state", circuitBreaker.getState());
+            stats.put("failureRate", circuitBreaker.getFailureRate());
+            stats.put("rejected", circuitBreaker.getRejectedCount());
+            result.add(stats);
+        }
+        return result;
+    }
+
+    @GetMapping("/retries")
+    public List<Map<String, Object>> getRetryStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (RetryPolicy retryPolicy : retryPolicies) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", retryPolicy.getName());
+            stats.put("maxAttempts", retryPolicy.getMaxAttempts());
+            stats.put("retries", retryPolicy.getRetryCount());
+            result.add(stats);
+        }
+        for (HedgePolicy hedgePolicy : hedgePolicies) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", hedgePolicy.getName() + "-hedge");
+            stats.put("enabled", hedgePolicy.isEnabled());
+            stats.put("delayMillis", hedgePolicy.getDelay().toMillis());
+            stats.put("hedges", hedgePolicy.getHedgeCount());
+            stats.put("hedgeWins", hedgePolicy.getHedgeWinCount());
+            result.add(stats);
+        }
+        return result;
+    }
+
+    @GetMapping("/pronunciation")
+    public Map<String, Object> getPronunciationStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (RecognitionMode mode : RecognitionMode.values()) {
+            DecodeStats stats = pronunciationService.getDecodeStats(mode);
+            Map<String, Object> modeStats = new LinkedHashMap<>();
+            modeStats.put("requests", stats.getRequests());
+            modeStats.put("audioSeconds", stats.getAudioSeconds());
+            modeStats.put("decodeSeconds", stats.getDecodeSeconds());
+            modeStats.put("realTimeFactor", stats.getRealTimeFactor());
+            result.put(mode.name().toLowerCase(), modeStats);
+        }
+        return result;
+    }
+}
@@ -3,5 +3,6 @@ package com.example.vocab.common.enums;
 public enum SessionStatus {
     NEW,
     LEARNING,
-    DONE
+    DONE,
+    DELETING
 }
@@ -0,0 +1,142 @@
+package com.example.vocab.common.firestore;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Precondition;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Write batch that transparently splits its operations into Firestore-sized batches.
+ * Full batches are committed as soon as they fill up, so they run in parallel
+ * while the caller keeps adding operations; {@link #commit()} waits for all of them.
+ * Each chunk is atomic on its own, but the whole is not: with more than one chunk a failure can leave
+ * some chunks applied. Callers that need all-or-nothing must stay within {@link #MAX_OPERATIONS_PER_BATCH}.
+ * A {@link #guarded} batch instead holds every chunk until {@link #commitAsync()} and sends the later chunks only
+ * once the first one has committed: writes staged first (such as an update of the parent session, which fails
+ * if it does not exist) then act as a precondition for the rest.
+ */
+public class ChunkedWriteBatch {
+    public static final int MAX_OPERATIONS_PER_BATCH = 500;
+
+    private final Firestore firestore;
+    private final int maxOperations;
+    private final boolean guarded;
+    private final List<ApiFuture<List<WriteResult>>> commits = new ArrayList<>();
+    // Chỉ dùng ở chế độ guarded: các chunk đầy chờ tới commitAsync
+    private final List<WriteBatch> held = new ArrayList<>();
+    private WriteBatch batch;
+    private int operations;
+    private int totalOperations;
+
+    public ChunkedWriteBatch(Firestore firestore) {
+        this(firestore, MAX_OPERATIONS_PER_BATCH);
+    }
+
+    public ChunkedWriteBatch(Firestore firestore, int maxOperations) {
+        this(firestore, maxOperations, false);
+    }
+
+    private ChunkedWriteBatch(Firestore firestore, int maxOperations, boolean guarded) {
+        if (maxOperations <= 0 || maxOperations > MAX_OPERATIONS_PER_BATCH) {
+            throw new IllegalArgumentException("maxOperations must be between 1 and " + MAX_OPERATIONS_PER_BATCH);
+        }
+        this.firestore = firestore;
+        this.maxOperations = maxOperations;
+        this.guarded = guarded;
+        this.batch = firestore.batch();
+    }
+
+    /**
+     * Batch whose first chunk must commit before the others are sent; stage the precondition writes first.
+     */
+    public static ChunkedWriteBatch guarded(Firestore firestore) {
+        return new ChunkedWriteBatch(firestore, MAX_OPERATIONS_PER_BATCH, true);
+    }
+
+    static ChunkedWriteBatch guarded(Firestore firestore, int maxOperations) {
+        return new ChunkedWriteBatch(firestore, maxOperations, true);
+    }
+
+    public ChunkedWriteBatch set(DocumentReference ref, Object data) {
+        batch.set(ref, data);
+        return added();
+    }
+
+    /**
+     * Field-masked update; fails the batch containing it if the document does not exist.
+     */
+    public ChunkedWriteBatch update(DocumentReference ref, Map<String, Object> fields) {
+        batch.update(ref, fields);
+        return added();
+    }
+
+    /**
+     * Field-masked update that also fails the batch containing it if {@code precondition} does not hold.
+     */
+    public ChunkedWriteBatch update(DocumentReference ref, Map<String, Object> fields, Precondition precondition) {
+        batch.update(ref, fields, precondition);
+        return added();
+    }
+
+    public ChunkedWriteBatch delete(DocumentReference ref) {
+        batch.delete(ref);
+        return added();
+    }
+
+    public int size() {
+        return totalOperations;
+    }
+
+    public int batchCount() {
+        return commits.size() + held.size() + (operations > 0 ? 1 : 0);
+    }
+
+    /**
+     * Commits the pending batch and waits until every batch has been written.
+     */
+    public void commit() throws InterruptedException, ExecutionException {
+        ApiFutures.allAsList(commitAsync()).get();
+    }
+
+    public List<ApiFuture<List<WriteResult>>> commitAsync() {
+        if (operations > 0) {
+            flush();
+        }
+        if (guarded && !held.isEmpty()) {
+            ApiFuture<List<WriteResult>> first = held.get(0).commit();
+            commits.add(first);
+            for (WriteBatch rest : held.subList(1, held.size())) {
+                commits.add(ApiFutures.transformAsync(first, ignored -> rest.commit(), MoreExecutors.directExecutor()));
+            }
+            held.clear();
+        }
+        return List.copyOf(commits);
+    }
+
+    private ChunkedWriteBatch added() {
+        totalOperations++;
+        if (++operations >= maxOperations) {
+            flush();
+        }
+        return this;
+    }
+
+    private void flush() {
+        if (guarded) {
+            held.add(batch);
+        } else {
+            commits.add(batch.commit());
+        }
+        batch = firestore.batch();
+        operations = 0;
+    }
+}
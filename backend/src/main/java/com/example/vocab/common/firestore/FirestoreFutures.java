@@ -0,0 +1,61 @@
+package com.example.vocab.common.firestore;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bridges Firestore {@link ApiFuture}s to {@link CompletableFuture} so repository calls
+ * can be composed without parking a request thread on {@code get()}.
+ * The returned futures complete on a dedicated callback pool rather than on the gRPC transport thread that
+ * finished the call, so dependent stages (mapping, event listeners that take locks, follow-up blocking reads)
+ * never stall Firestore's network threads. The pool grows on demand: a stage that blocks on another Firestore
+ * call cannot starve the callback that would release it.
+ */
+public final class FirestoreFutures {
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final Executor CALLBACK_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "firestore-callback-" + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FirestoreFutures() {
+    }
+
+    public static <T> CompletableFuture<T> toCompletable(ApiFuture<T> apiFuture) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<>() {
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(T result) {
+                future.complete(result);
+            }
+        }, CALLBACK_EXECUTOR);
+        return future;
+    }
+
+    /**
+     * Blocks on {@code future} and rethrows failures the same way the blocking repositories always have.
+     */
+    public static <T> T await(CompletableFuture<T> future, String errorMessage) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(errorMessage, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(errorMessage, e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.vocab.common.metrics;
+
+import com.example.vocab.session.dto.SessionPage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every public Firestore repository method ({@code firestore.repository}, tagged with repository,
+ * method and outcome) and records how many documents each successful call read or wrote
+ * ({@code firestore.documents}). Async methods are timed until their future completes.
+ * Calls a repository makes to its own methods are not intercepted, so each call is counted once.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+    private final MeterRegistry registry;
+
+    public RepositoryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@within(org.springframework.stereotype.Repository) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(repository, method, start, e);
+            throw e;
+        }
+        if (result instanceof CompletableFuture<?> future) {
+            future.whenComplete((value, error) -> {
+                record(repository, method, start, error);
+                if (error == null) {
+                    recordDocuments(repository, method, value, joinPoint.getArgs());
+                }
+            });
+            return result;
+        }
+        record(repository, method, start, null);
+        recordDocuments(repository, method, result, joinPoint.getArgs());
+        return result;
+    }
+
+    private void record(String repository, String method, long start, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        Timer.builder("firestore.repository")
+                .description("Latency of Firestore repository calls")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("outcome", cause == null ? "success" : cause.getClass().getSimpleName())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordDocuments(String repository, String method, Object result, Object[] args) {
+        if (method.startsWith("find")) {
+            documents(repository, method, "read").record(countResult(result));
+        } else if (isWrite(method)) {
+            documents(repository, method, "write").record(countArgs(args));
+        }
+    }
+
+    private DistributionSummary documents(String repository, String method, String operation) {
+        return DistributionSummary.builder("firestore.documents")
+                .description("Documents read or written per repository call")
+                .baseUnit("documents")
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static boolean isWrite(String method) {
+        return method.startsWith("save") || method.startsWith("update") || method.startsWith("delete")
+                || method.startsWith("apply") || method.startsWith("create") || method.startsWith("stage");
+    }
+
+    private static long countResult(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof SessionPage page) {
+            return page.getItems() != null ? page.getItems().size() : 0;
+        }
+        return result != null ? 1 : 0;
+    }
+
+    // Tổng kích thước các tham số kiểu collection (upserts, ids bị xoá...); không có thì là ghi một document
+    private static long countArgs(Object[] args) {
+        long count = 0;
+        boolean hasCollection = false;
+        for (Object arg : args) {
+            if (arg instanceof Collection<?> collection) {
+                count += collection.size();
+                hasCollection = true;
+            }
+        }
+        return hasCollection ? count : 1;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.vocab.common.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Semaphore bulkhead limiting how many callers may run an expensive section at once.
+ * Callers beyond the limit wait up to {@code maxWait}; once {@code maxQueueDepth} callers
+ * are already waiting, new ones are rejected immediately with {@link BulkheadFullException}.
+ * Declared as a bean, it publishes the {@code bulkhead.*} meters tagged with its name.
+ */
+public class Bulkhead implements MeterBinder {
+    private final String name;
+    private final int maxConcurrent;
+    private final int maxQueueDepth;
+    private final Duration maxWait;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueueDepth, Duration maxWait) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive for bulkhead " + name);
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueueDepth = Math.max(0, maxQueueDepth);
+        this.maxWait = maxWait;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        acquire();
+        try {
+            return task.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueueDepth) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new BulkheadFullException(name);
+        }
+        try {
+            if (!permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new BulkheadFullException(name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new BulkheadFullException(name);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("bulkhead.active", this, Bulkhead::getActiveCount)
+                .tag("name", name)
+                .description("Callers currently holding a permit")
+                .register(registry);
+        Gauge.builder("bulkhead.queue.depth", this, Bulkhead::getQueueDepth)
+                .tag("name", name)
+                .description("Callers waiting for a permit")
+                .register(registry);
+        Gauge.builder("bulkhead.max.concurrent", this, Bulkhead::getMaxConcurrent)
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("bulkhead.rejected", rejected, LongAdder::sum)
+                .tag("name", name)
+                .description("Callers turned away with BulkheadFullException")
+                .register(registry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.vocab.common.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class BulkheadFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public BulkheadFullException(String bulkheadName) {
+        super("Server is busy (" + bulkheadName + "), please try again shortly");
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.vocab.common.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Count-based circuit breaker. While CLOSED it records the outcome of the last {@code windowSize} calls;
+ * once at least {@code minimumCalls} are recorded and the failure rate reaches the threshold it OPENs
+ * and rejects calls with {@link CircuitBreakerOpenException} for {@code openDuration}. After that a single
+ * trial call is let through (HALF_OPEN): success closes the breaker, failure opens it again.
+ * Only exceptions accepted by the {@code isFailure} predicate count as failures; others (a bad request,
+ * an unparseable reply) show that the upstream answered and are recorded as successes.
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+    private final boolean[] window;
+    private final LongAdder rejected = new LongAdder();
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                   Duration openDuration, LongSupplier clock) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive for circuit breaker " + name);
+        }
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        return execute(task, e -> true);
+    }
+
+    public <T> T execute(Supplier<T> task, Predicate<RuntimeException> isFailure) {
+        boolean trial = acquire();
+        T result;
+        try {
+            result = task.get();
+        } catch (RuntimeException e) {
+            onResult(trial, !isFailure.test(e));
+            throw e;
+        } catch (Error e) {
+            onResult(trial, false);
+            throw e;
+        }
+        onResult(trial, true);
+        return result;
+    }
+
+    private synchronized boolean acquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejected.increment();
+        throw new CircuitBreakerOpenException(name);
+    }
+
+    private synchronized void onResult(boolean trial, boolean success) {
+        if (trial) {
+            trialInFlight = false;
+            if (success) {
+                reset();
+            } else {
+                open();
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            // Kết quả của lời gọi bắt đầu trước khi mạch mở: bỏ qua
+            return;
+        }
+        if (recorded == window.length && !window[next]) {
+            failures--;
+        } else if (recorded < window.length) {
+            recorded++;
+        }
+        window[next] = success;
+        if (!success) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+        if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recorded > 0 ? (double) failures / recorded : 0.0;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.vocab.common.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class CircuitBreakerOpenException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public CircuitBreakerOpenException(String circuitName) {
+        super("Upstream service is unavailable (" + circuitName + "), please try again later");
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.vocab.common.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests: if the first attempt has not finished after {@code delay} (typically the p95 latency),
+ * a second identical attempt is started and whichever succeeds first wins; the other one is interrupted.
+ * Only use for idempotent calls.
+ * A zero delay disables hedging and runs the task on the caller thread.
+ */
+public class HedgePolicy {
+    private final String name;
+    private final long delayNanos;
+    private final Executor executor;
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    public HedgePolicy(String name, Duration delay, Executor executor) {
+        this.name = name;
+        this.delayNanos = delay.toNanos();
+        this.executor = executor;
+    }
+
+    public boolean isEnabled() {
+        return delayNanos > 0 && executor != null;
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        if (!isEnabled()) {
+            return task.get();
+        }
+        Attempt<T> primary = start(task);
+        try {
+            return primary.result().get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Lần gọi đầu chậm hơn ngưỡng: gửi thêm một request song song
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            primary.cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        }
+
+        hedges.increment();
+        Attempt<T> hedge = start(task);
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<Boolean> hedgeWon = new AtomicReference<>();
+        primary.result().whenComplete((value, error) -> settle(first, failed, hedgeWon, value, error, false));
+        hedge.result().whenComplete((value, error) -> settle(first, failed, hedgeWon, value, error, true));
+        try {
+            T value = first.get();
+            // Đếm trên luồng gọi: callback của attempt có thể chạy sau khi caller đã nhận kết quả
+            if (Boolean.TRUE.equals(hedgeWon.get())) {
+                hedgeWins.increment();
+            }
+            return value;
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        } finally {
+            // Huỷ request còn lại: ngắt luồng để HttpClient huỷ exchange thay vì đọc hết một response thừa
+            if (primary.cancel() | hedge.cancel()) {
+                cancelled.increment();
+            }
+        }
+    }
+
+    private <T> Attempt<T> start(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<Void> run = new FutureTask<>(() -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+            return null;
+        });
+        executor.execute(run);
+        return new Attempt<>(result, run);
+    }
+
+    private record Attempt<T>(CompletableFuture<T> result, FutureTask<Void> run) {
+        boolean cancel() {
+            return !result.isDone() && run.cancel(true);
+        }
+    }
+
+    private <T> void settle(CompletableFuture<T> first, AtomicInteger failed, AtomicReference<Boolean> hedgeWon,
+                            T value, Throwable error, boolean isHedge) {
+        if (error == null) {
+            if (hedgeWon.compareAndSet(null, isHedge)) {
+                first.complete(value);
+            }
+        } else if (failed.incrementAndGet() == 2) {
+            first.completeExceptionally(error);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error fatal) {
+            throw fatal;
+        }
+        return new CompletionException(cause);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.vocab.common.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Retries a call with exponential backoff and full jitter: before attempt {@code n + 1} it sleeps a random
+ * time between 0 and {@code min(maxDelay, baseDelay * 2^(n-1))}, so clients that failed together do not
+ * retry together.
+ * A server-supplied delay (such as an HTTP {@code Retry-After}) replaces the backoff when it is longer;
+ * if it exceeds {@code maxRetryAfter} the call is not retried, since an early retry would only be rejected again.
+ */
+public class RetryPolicy {
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long maxRetryAfterMillis;
+    private final LongAdder retries = new LongAdder();
+
+    public RetryPolicy(String name, int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        this(name, maxAttempts, baseDelay, maxDelay, maxDelay);
+    }
+
+    public RetryPolicy(String name, int maxAttempts, Duration baseDelay, Duration maxDelay, Duration maxRetryAfter) {
+        this.name = name;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(0, baseDelay.toMillis());
+        this.maxDelayMillis = Math.max(baseDelayMillis, maxDelay.toMillis());
+        this.maxRetryAfterMillis = Math.max(0, maxRetryAfter.toMillis());
+    }
+
+    public <T> T execute(Supplier<T> task, Predicate<RuntimeException> retryable) {
+        return execute(task, retryable, e -> null);
+    }
+
+    /**
+     * @param retryAfter delay requested by the server for a failure, or null when it did not ask for one
+     */
+    public <T> T execute(Supplier<T> task, Predicate<RuntimeException> retryable,
+                         Function<RuntimeException, Duration> retryAfter) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return task.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !retryable.test(e)) {
+                    throw e;
+                }
+                long delay = backoffMillis(attempt);
+                Duration requested = retryAfter.apply(e);
+                if (requested != null) {
+                    if (requested.toMillis() > maxRetryAfterMillis) {
+                        throw e;
+                    }
+                    delay = Math.max(delay, requested.toMillis());
+                }
+                retries.increment();
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.vocab.common.resilience;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.time.Duration;
+
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class TimeLimitExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public TimeLimitExceededException(String name, Duration timeout) {
+        super("Call to " + name + " did not finish within " + timeout.toMillis() + " ms");
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.vocab.common.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hard deadline for a whole call, not just for the first response byte. The call runs on a worker thread;
+ * when the deadline passes the caller gets {@link TimeLimitExceededException} and the worker is interrupted.
+ * The JDK HttpClient aborts the exchange when its thread is interrupted, also while the body or an SSE
+ * stream is being read. A zero timeout runs the call on the caller thread without a deadline.
+ */
+public class TimeLimiter {
+    private final String name;
+    private final Duration timeout;
+    private final ExecutorService executor;
+    private final LongAdder timeouts = new LongAdder();
+
+    public TimeLimiter(String name, Duration timeout, ExecutorService executor) {
+        this.name = name;
+        this.timeout = timeout;
+        this.executor = executor;
+    }
+
+    public <T> T execute(Supplier<T> task) {
+        return execute(task, timeout);
+    }
+
+    public <T> T execute(Supplier<T> task, Duration timeout) {
+        if (timeout.isZero() || timeout.isNegative()) {
+            return task.get();
+        }
+        Future<T> future = executor.submit(task::get);
+        try {
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            throw new TimeLimitExceededException(name, timeout);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error fatal) {
+                throw fatal;
+            }
+            throw new CompletionException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+}
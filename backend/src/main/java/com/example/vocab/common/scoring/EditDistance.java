@@ -0,0 +1,86 @@
+package com.example.vocab.common.scoring;
+
+/**
+ * Case-insensitive Levenshtein distance on the trimmed inputs, computed with two reusable
+ * per-thread rows instead of a full matrix, so a comparison allocates nothing.
+ */
+public final class EditDistance {
+
+    private static final ThreadLocal<Rows> ROWS = ThreadLocal.withInitial(Rows::new);
+
+    private EditDistance() {
+    }
+
+    public static int distance(CharSequence a, CharSequence b) {
+        return distance(a, b, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * Returns the distance, or {@code maxDistance + 1} as soon as it is known to exceed {@code maxDistance}.
+     */
+    public static int distance(CharSequence a, CharSequence b, int maxDistance) {
+        int aStart = trimStart(a), aEnd = trimEnd(a, aStart);
+        int bStart = trimStart(b), bEnd = trimEnd(b, bStart);
+        int m = aEnd - aStart;
+        int n = bEnd - bStart;
+        if (Math.abs(m - n) > maxDistance) return maxDistance + 1;
+        if (m == 0) return n;
+        if (n == 0) return m;
+
+        Rows rows = ROWS.get();
+        rows.ensureCapacity(n + 1);
+        int[] prev = rows.prev;
+        int[] cur = rows.cur;
+        for (int j = 0; j <= n; j++) prev[j] = j;
+
+        for (int i = 1; i <= m; i++) {
+            char ca = Character.toLowerCase(a.charAt(aStart + i - 1));
+            cur[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= n; j++) {
+                int cost = ca == Character.toLowerCase(b.charAt(bStart + j - 1)) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                cur[j] = value;
+                if (value < rowMin) rowMin = value;
+            }
+            if (rowMin > maxDistance) return maxDistance + 1;
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return Math.min(prev[n], maxDistance + 1);
+    }
+
+    /**
+     * Length of the input once leading and trailing whitespace is ignored.
+     */
+    public static int trimmedLength(CharSequence s) {
+        int start = trimStart(s);
+        return trimEnd(s, start) - start;
+    }
+
+    static int trimStart(CharSequence s) {
+        int i = 0;
+        while (i < s.length() && s.charAt(i) <= ' ') i++;
+        return i;
+    }
+
+    static int trimEnd(CharSequence s, int start) {
+        int end = s.length();
+        while (end > start && s.charAt(end - 1) <= ' ') end--;
+        return end;
+    }
+
+    private static final class Rows {
+        private int[] prev = new int[32];
+        private int[] cur = new int[32];
+
+        private void ensureCapacity(int size) {
+            if (prev.length < size) {
+                int capacity = Math.max(size, prev.length * 2);
+                prev = new int[capacity];
+                cur = new int[capacity];
+            }
+        }
+    }
+}
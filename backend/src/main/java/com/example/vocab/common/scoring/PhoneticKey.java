@@ -0,0 +1,163 @@
+package com.example.vocab.common.scoring;
+
+/**
+ * Simplified Metaphone encoding for English words, used to accept answers that are
+ * misspelled but sound the same ("fone" / "phone"). Encodes into reusable per-thread buffers.
+ */
+public final class PhoneticKey {
+
+    private static final ThreadLocal<StringBuilder[]> BUFFERS =
+            ThreadLocal.withInitial(() -> new StringBuilder[]{new StringBuilder(16), new StringBuilder(16)});
+
+    private PhoneticKey() {
+    }
+
+    public static String encode(CharSequence word) {
+        StringBuilder out = new StringBuilder();
+        encode(word, out);
+        return out.toString();
+    }
+
+    public static boolean soundsAlike(CharSequence a, CharSequence b) {
+        StringBuilder[] buffers = BUFFERS.get();
+        encode(a, buffers[0]);
+        encode(b, buffers[1]);
+        return buffers[0].length() > 0 && buffers[0].compareTo(buffers[1]) == 0;
+    }
+
+    static void encode(CharSequence word, StringBuilder out) {
+        out.setLength(0);
+        int n = word.length();
+        int i = 0;
+        while (i < n && !Character.isLetter(word.charAt(i))) i++;
+        if (i >= n) return;
+
+        // Initial letter exceptions
+        char first = lower(word, i);
+        char second = lower(word, i + 1);
+        if ((first == 'k' || first == 'g' || first == 'p') && second == 'n'
+                || first == 'w' && second == 'r'
+                || first == 'a' && second == 'e') {
+            i++;
+        } else if (first == 'x') {
+            out.append('S');
+            i++;
+        } else if (first == 'w' && second == 'h') {
+            out.append('W');
+            i += 2;
+        }
+
+        boolean firstLetter = true;
+        char previous = 0;
+        for (; i < n; i++) {
+            char c = lower(word, i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char next = lower(word, i + 1);
+            boolean start = firstLetter;
+            firstLetter = false;
+            if (c == previous && c != 'c') {
+                continue;
+            }
+            previous = c;
+            switch (c) {
+                case 'a', 'e', 'i', 'o', 'u' -> {
+                    if (start) out.append('A');
+                }
+                case 'b' -> {
+                    // Silent in a final "mb"
+                    if (!(i > 0 && lower(word, i - 1) == 'm' && next == 0)) out.append('B');
+                }
+                case 'c' -> {
+                    if (next == 'h' && i > 0 && lower(word, i - 1) == 's') {
+                        // "sch" as in "school"
+                        out.append('K');
+                        i++;
+                    } else if (next == 'i' && lower(word, i + 2) == 'a' || next == 'h') {
+                        out.append('X');
+                        i += next == 'h' ? 1 : 0;
+                    } else if (next == 'i' || next == 'e' || next == 'y') {
+                        out.append('S');
+                    } else {
+                        out.append('K');
+                    }
+                }
+                case 'd' -> {
+                    char after = lower(word, i + 2);
+                    if (next == 'g' && (after == 'e' || after == 'y' || after == 'i')) {
+                        out.append('J');
+                        i++;
+                    } else {
+                        out.append('T');
+                    }
+                }
+                case 'g' -> {
+                    if (next == 'h' && !isVowel(lower(word, i + 2))) {
+                        // Silent in "night", "though"
+                        i++;
+                    } else if (next == 'n' && (i + 2 >= n || lower(word, i + 2) == 's')) {
+                        // Silent in "sign", "signs"
+                    } else if (next == 'i' || next == 'e' || next == 'y') {
+                        out.append('J');
+                    } else {
+                        out.append('K');
+                    }
+                }
+                case 'h' -> {
+                    char before = i > 0 ? lower(word, i - 1) : 0;
+                    if (isVowel(next) && "cgpst".indexOf(before) < 0) out.append('H');
+                }
+                case 'k' -> {
+                    if (i == 0 || lower(word, i - 1) != 'c') out.append('K');
+                }
+                case 'p' -> {
+                    if (next == 'h') {
+                        out.append('F');
+                        i++;
+                    } else {
+                        out.append('P');
+                    }
+                }
+                case 'q' -> out.append('K');
+                case 's' -> {
+                    char after = lower(word, i + 2);
+                    if (next == 'h') {
+                        out.append('X');
+                        i++;
+                    } else if (next == 'i' && (after == 'o' || after == 'a')) {
+                        out.append('X');
+                    } else {
+                        out.append('S');
+                    }
+                }
+                case 't' -> {
+                    char after = lower(word, i + 2);
+                    if (next == 'i' && (after == 'o' || after == 'a')) {
+                        out.append('X');
+                    } else if (next == 'h') {
+                        out.append('0');
+                        i++;
+                    } else {
+                        out.append('T');
+                    }
+                }
+                case 'v' -> out.append('F');
+                case 'w', 'y' -> {
+                    if (isVowel(next)) out.append(Character.toUpperCase(c));
+                }
+                case 'x' -> out.append("KS");
+                case 'z' -> out.append('S');
+                default -> out.append(Character.toUpperCase(c));
+            }
+        }
+    }
+
+    private static char lower(CharSequence s, int index) {
+        return index < s.length() ? Character.toLowerCase(s.charAt(index)) : 0;
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
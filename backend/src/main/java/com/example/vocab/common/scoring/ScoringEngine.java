@@ -0,0 +1,89 @@
+package com.example.vocab.common.scoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Shared scoring for pronunciation checks and answer grading, built on the
+ * allocation-free {@link EditDistance} and {@link PhoneticKey}.
+ */
+@Component
+public class ScoringEngine {
+
+    public enum GradingMode {
+        // Đáp án phải khớp hoàn toàn (không phân biệt hoa thường)
+        EXACT,
+        // Chấp nhận lỗi gõ nhỏ hoặc cách viết đọc giống nhau
+        TOLERANT
+    }
+
+    public enum Grade {
+        EXACT,
+        TYPO,
+        PHONETIC,
+        WRONG
+    }
+
+    private final GradingMode gradingMode;
+
+    @Autowired
+    public ScoringEngine(@Value("${app.grading.mode:exact}") String gradingMode) {
+        this(GradingMode.valueOf(gradingMode.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    public ScoringEngine(GradingMode gradingMode) {
+        this.gradingMode = gradingMode;
+    }
+
+    public GradingMode getGradingMode() {
+        return gradingMode;
+    }
+
+    /**
+     * Similarity of the two strings on a 0-100 scale: 100 minus the edit distance as a
+     * percentage of the longer (trimmed) input.
+     */
+    public int similarityScore(String actual, String target) {
+        if (target == null || actual == null) return 0;
+        int targetLength = EditDistance.trimmedLength(target);
+        int actualLength = EditDistance.trimmedLength(actual);
+        if (targetLength == 0 || actualLength == 0) return 0;
+
+        int maxLength = Math.max(actualLength, targetLength);
+        int distance = EditDistance.distance(actual, target, maxLength);
+        double accuracy = (1.0 - ((double) distance / maxLength)) * 100;
+        return Math.max(0, (int) Math.round(accuracy));
+    }
+
+    public Grade grade(String answer, String expected) {
+        if (answer == null || expected == null || EditDistance.trimmedLength(answer) == 0) {
+            return Grade.WRONG;
+        }
+        if (gradingMode == GradingMode.EXACT) {
+            return EditDistance.distance(answer, expected, 0) == 0 ? Grade.EXACT : Grade.WRONG;
+        }
+        int allowed = allowedTypos(EditDistance.trimmedLength(expected));
+        int distance = EditDistance.distance(answer, expected, allowed + 1);
+        if (distance == 0) return Grade.EXACT;
+        if (distance <= allowed) return Grade.TYPO;
+        // Viết sai nhưng đọc giống: chỉ chấp nhận với từ đủ dài để mã âm không quá lỏng
+        if (distance == allowed + 1 && EditDistance.trimmedLength(expected) >= 4
+                && PhoneticKey.soundsAlike(answer, expected)) {
+            return Grade.PHONETIC;
+        }
+        return Grade.WRONG;
+    }
+
+    public boolean isCorrect(String answer, String expected) {
+        return grade(answer, expected) != Grade.WRONG;
+    }
+
+    static int allowedTypos(int length) {
+        if (length <= 3) return 0;
+        if (length <= 6) return 1;
+        return 2;
+    }
+}
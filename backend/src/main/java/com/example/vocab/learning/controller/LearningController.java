@@ -1,6 +1,7 @@
 package com.example.vocab.learning.controller;
 
 import com.example.vocab.learning.service.LearningService;
+import com.example.vocab.session.domain.ResultSnapshot;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,4 +25,10 @@ public class LearningController {
     public List<LearningService.EvaluationResult> getResults(@PathVariable String sessionId) {
         return learningService.getResults(sessionId);
     }
+
+    // Tổng kết: số câu đúng, bỏ qua, độ chính xác kèm kết quả từng từ
+    @GetMapping("/results/summary")
+    public ResultSnapshot getResultSummary(@PathVariable String sessionId) {
+        return learningService.getResultSummary(sessionId);
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.vocab.learning.controller;
 
+import com.example.vocab.common.scoring.ScoringEngine;
 import com.example.vocab.learning.service.LearningService;
 import com.example.vocab.word.domain.Word;
 import com.example.vocab.word.repository.WordRepository;
@@ -7,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,6 +18,7 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class QuizController {
     private final WordRepository wordRepository;
+    private final ScoringEngine scoringEngine;
 
     @GetMapping("/random")
     public List<Word> getRandomQuiz() {
@@ -25,17 +28,20 @@ public class QuizController {
     @PostMapping("/submit")
     public List<LearningService.EvaluationResult> submitQuiz(@RequestBody Map<String, String> answers) {
         List<LearningService.EvaluationResult> results = new ArrayList<>();
+        Map<String, Word> wordsById = new HashMap<>();
+        for (Word word : wordRepository.findAllByIds(answers.keySet())) {
+            wordsById.put(word.getId(), word);
+        }
 
         for (Map.Entry<String, String> entry : answers.entrySet()) {
             if (entry.getKey() == null)
                 continue;
-            Word word = wordRepository.findById(entry.getKey())
-                    .orElse(null);
+            Word word = wordsById.get(entry.getKey());
 
             if (word != null) {
                 String userAnswer = entry.getValue().trim();
                 boolean skipped = userAnswer.equalsIgnoreCase("skip");
-                boolean correct = !skipped && word.getEnglish().equalsIgnoreCase(userAnswer);
+                boolean correct = !skipped && scoringEngine.isCorrect(userAnswer, word.getEnglish());
 
                 results.add(LearningService.EvaluationResult.builder()
                         .id(word.getId())
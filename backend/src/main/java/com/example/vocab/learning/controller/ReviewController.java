@@ -0,0 +1,28 @@
+package com.example.vocab.learning.controller;
+
+import com.example.vocab.learning.service.ReviewService;
+import com.example.vocab.word.domain.Word;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/review")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReviewController {
+    private final ReviewService reviewService;
+
+    // Các từ đến hạn ôn tập trên mọi phiên học, sớm nhất trước (tối đa 100)
+    @GetMapping("/due")
+    public List<Word> getDueWords(@RequestParam(defaultValue = "20") int limit) {
+        return reviewService.getDueWords(limit);
+    }
+
+    @PostMapping("/submit")
+    public List<ReviewService.ReviewResult> submit(@RequestBody Map<String, String> answers) {
+        return reviewService.submitReviews(answers);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordsChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * In-memory queue of the earliest review due times, ordered by (dueAt, word id) like the Firestore query.
+ * It is a prefix of that index: every scheduled word ordered before {@link #horizon()} is in the queue, so
+ * the next N due words are read from the front in O(N) without touching Firestore. When the prefix does not
+ * reach far enough, {@link ReviewService} loads the next page of the index after the horizon.
+ */
+@Component
+public class DueQueue {
+    public record Entry(long dueAt, String wordId) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::dueAt).thenComparing(Entry::wordId);
+
+    private final TreeSet<Entry> entries = new TreeSet<>(ORDER);
+    private final Map<String, Entry> byWordId = new HashMap<>();
+    private final int maxSize;
+    // Mọi từ đứng trước horizon (theo ORDER) đều có trong hàng đợi; null = chưa tải gì
+    private Entry horizon;
+    // Đã tải hết index: hàng đợi chứa mọi từ đã lên lịch
+    private boolean complete;
+
+    public DueQueue(@Value("${app.review.queue.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Ids of up to {@code limit} words due at or before {@code now}, earliest first.
+     */
+    public synchronized List<String> due(int limit, long now) {
+        List<String> ids = new ArrayList<>(limit);
+        for (Entry entry : entries) {
+            if (ids.size() >= limit || entry.dueAt() > now || !loaded(entry)) {
+                break;
+            }
+            ids.add(entry.wordId());
+        }
+        return ids;
+    }
+
+    /**
+     * Whether every word due at or before {@code now} is already in the queue.
+     */
+    public synchronized boolean covers(long now) {
+        return complete || (horizon != null && horizon.dueAt() > now);
+    }
+
+    /**
+     * Position in the index after which the next page should be read, or null to read from the start.
+     */
+    public synchronized Entry horizon() {
+        return horizon;
+    }
+
+    /**
+     * Adds the page of the index read after {@code after}. {@code exhausted} means the page was shorter than
+     * requested, so the queue now holds every scheduled word. A page loaded against a stale horizon is ignored.
+     */
+    public synchronized void load(Entry after, List<Entry> page, boolean exhausted) {
+        if (complete || !Objects.equals(after, horizon)) {
+            return;
+        }
+        for (Entry entry : page) {
+            // Từ đã được chấm lại trong lúc đọc trang thì giữ lịch mới hơn
+            if (!byWordId.containsKey(entry.wordId())) {
+                put(entry);
+            }
+        }
+        if (exhausted) {
+            complete = true;
+        } else if (!page.isEmpty()) {
+            horizon = page.get(page.size() - 1);
+        }
+        trim();
+    }
+
+    /**
+     * Records a new due time for {@code wordId} (null when it is no longer scheduled).
+     */
+    public synchronized void update(String wordId, Long dueAt) {
+        remove(wordId);
+        if (dueAt != null) {
+            Entry entry = new Entry(dueAt, wordId);
+            if (loaded(entry)) {
+                put(entry);
+                trim();
+            }
+        }
+    }
+
+    /**
+     * Keeps the queue in step with word writes made outside a review, such as a re-saved or deleted session.
+     */
+    @EventListener
+    public void onWordsChanged(WordsChangedEvent event) {
+        event.deletedIds().forEach(this::remove);
+        for (Word word : event.upserted()) {
+            if (word != null && word.getId() != null) {
+                update(word.getId(), word.getDueAt());
+            }
+        }
+    }
+
+    public synchronized void remove(String wordId) {
+        Entry entry = byWordId.remove(wordId);
+        if (entry != null) {
+            entries.remove(entry);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void put(Entry entry) {
+        entries.add(entry);
+        byWordId.put(entry.wordId(), entry);
+    }
+
+    private boolean loaded(Entry entry) {
+        return complete || (horizon != null && ORDER.compare(entry, horizon) <= 0);
+    }
+
+    private void trim() {
+        while (entries.size() > maxSize) {
+            Entry last = entries.pollLast();
+            byWordId.remove(last.wordId());
+            // Phần tử cuối còn lại trở thành giới hạn mới; lần tải sau đọc tiếp từ sau nó
+            horizon = entries.isEmpty() ? null : entries.last();
+            complete = false;
+        }
+    }
+}
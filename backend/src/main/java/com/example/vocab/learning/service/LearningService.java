@@ -1,6 +1,10 @@
 package com.example.vocab.learning.service;
 
 import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.common.scoring.ScoringEngine;
+import com.example.vocab.session.domain.ResultSnapshot;
+import com.example.vocab.session.repository.SessionUpdate;
+import com.example.vocab.session.repository.SessionVersion;
 import com.example.vocab.session.service.SessionService;
 import com.example.vocab.word.domain.Word;
 import com.example.vocab.word.service.WordService;
@@ -18,6 +22,8 @@ import java.util.Map;
 public class LearningService {
     private final SessionService sessionService;
     private final WordService wordService;
+    private final ScoringEngine scoringEngine;
+    private final ReviewService reviewService;
 
     @Data
     @Builder
@@ -32,16 +38,20 @@ public class LearningService {
     }
 
     public List<EvaluationResult> submitLearning(String sessionId, Map<String, String> answers) {
+        SessionVersion version = sessionService.requireWritable(sessionId);
         List<Word> words = wordService.getWordsBySessionId(sessionId);
         List<EvaluationResult> results = new ArrayList<>();
+        long now = System.currentTimeMillis();
 
         for (Word word : words) {
             String userAnswer = answers.getOrDefault(word.getId(), "").trim();
             boolean skipped = userAnswer.equalsIgnoreCase("skip");
-            boolean correct = !skipped && word.getEnglish().equalsIgnoreCase(userAnswer);
+            ScoringEngine.Grade grade = skipped ? ScoringEngine.Grade.WRONG : scoringEngine.grade(userAnswer, word.getEnglish());
+            boolean correct = grade != ScoringEngine.Grade.WRONG;
 
             word.setUserAnswer(userAnswer);
             word.setCorrect(correct);
+            reviewService.schedule(word, grade, skipped, now);
 
             results.add(EvaluationResult.builder()
                     .id(word.getId())
@@ -54,12 +64,54 @@ public class LearningService {
                     .build());
         }
 
-        wordService.updateWords(words);
-        sessionService.updateStatus(sessionId, SessionStatus.DONE);
+        // Lưu câu trả lời, trạng thái DONE và bản chụp kết quả trong cùng một batch; hai lượt ghi này được đưa
+        // vào chunk đầu. Phiên quá lớn cho một document thì không có bản chụp, kết quả dựng lại từ các từ
+        ResultSnapshot snapshot = ResultSnapshot.of(sessionId, now, results.stream().map(LearningService::toOutcome).toList());
+        wordService.updateWords(words, batch -> {
+            sessionService.stageUpdate(batch, sessionId, SessionUpdate.status(SessionStatus.DONE), version);
+            if (snapshot.fitsInOneDocument()) {
+                sessionService.stageResultSnapshot(batch, snapshot);
+            } else {
+                sessionService.stageResultSnapshotDelete(batch, sessionId);
+            }
+        });
+        reviewService.scheduled(words);
         return results;
     }
 
+    /**
+     * Results of a submitted session from its snapshot (one document read); sessions submitted before
+     * snapshots existed fall back to rebuilding the results from their words.
+     */
     public List<EvaluationResult> getResults(String sessionId) {
+        return sessionService.getResultSnapshot(sessionId)
+                .map(snapshot -> snapshot.getOutcomes().stream().map(LearningService::toEvaluationResult).toList())
+                .orElseGet(() -> resultsFromWords(sessionId));
+    }
+
+    public ResultSnapshot getResultSummary(String sessionId) {
+        return sessionService.getResultSnapshot(sessionId)
+                .orElseGet(() -> snapshotFromWords(sessionId, System.currentTimeMillis()));
+    }
+
+    /**
+     * Builds the snapshot of an already submitted session from its stored answers and saves it, unless it is
+     * too large for one document.
+     */
+    public ResultSnapshot backfillResultSnapshot(String sessionId, long submittedAt) {
+        ResultSnapshot snapshot = snapshotFromWords(sessionId, submittedAt);
+        if (snapshot.fitsInOneDocument()) {
+            sessionService.saveResultSnapshot(snapshot);
+        }
+        return snapshot;
+    }
+
+    private ResultSnapshot snapshotFromWords(String sessionId, long submittedAt) {
+        return ResultSnapshot.of(sessionId, submittedAt,
+                resultsFromWords(sessionId).stream().map(LearningService::toOutcome).toList());
+    }
+
+    private List<EvaluationResult> resultsFromWords(String sessionId) {
         List<Word> words = wordService.getWordsBySessionId(sessionId);
         List<EvaluationResult> results = new ArrayList<>();
 
@@ -78,4 +130,28 @@ public class LearningService {
         }
         return results;
     }
+
+    private static ResultSnapshot.Outcome toOutcome(EvaluationResult result) {
+        return ResultSnapshot.Outcome.builder()
+                .id(result.getId())
+                .english(result.getEnglish())
+                .vietnamese(result.getVietnamese())
+                .userAnswer(result.getUserAnswer())
+                .correct(result.isCorrect())
+                .skipped(result.isSkipped())
+                .imageUrl(result.getImageUrl())
+                .build();
+    }
+
+    private static EvaluationResult toEvaluationResult(ResultSnapshot.Outcome outcome) {
+        return EvaluationResult.builder()
+                .id(outcome.getId())
+                .english(outcome.getEnglish())
+                .vietnamese(outcome.getVietnamese())
+                .userAnswer(outcome.getUserAnswer())
+                .correct(Boolean.TRUE.equals(outcome.getCorrect()))
+                .skipped(Boolean.TRUE.equals(outcome.getSkipped()))
+                .imageUrl(outcome.getImageUrl())
+                .build();
+    }
 }
@@ -0,0 +1,64 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.session.domain.Session;
+import com.example.vocab.session.service.SessionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One-off backfill of result snapshots for sessions that were submitted before snapshots existed.
+ * Runs at startup when enabled, e.g. {@code java -jar vocab.jar --app.results.backfill.enabled=true}.
+ * It pages through DONE session ids (keys only) and skips sessions that already have a snapshot,
+ * so it is safe to run again after an interruption.
+ */
+@Component
+@ConditionalOnProperty(name = "app.results.backfill.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ResultSnapshotBackfill implements ApplicationRunner {
+    private static final int PAGE_SIZE = 100;
+
+    private final SessionService sessionService;
+    private final LearningService learningService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int created = 0;
+        int skipped = 0;
+        int failed = 0;
+        String after = null;
+        while (true) {
+            List<String> ids = sessionService.getSessionIdsByStatus(SessionStatus.DONE, after, PAGE_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Set<String> existing = sessionService.getSessionIdsWithResultSnapshot(ids);
+            for (String id : ids) {
+                if (existing.contains(id)) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    Session session = sessionService.getSessionById(id);
+                    // Không biết thời điểm nộp bài chính xác: dùng lần cập nhật cuối, nếu không có thì lúc tạo
+                    Long submittedAt = session.getUpdatedAt() != null ? session.getUpdatedAt() : session.getCreatedAt();
+                    learningService.backfillResultSnapshot(id, submittedAt != null ? submittedAt : System.currentTimeMillis());
+                    created++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.warn("Cannot backfill results of session {}: {}", id, e.getMessage());
+                }
+            }
+            after = ids.get(ids.size() - 1);
+        }
+        log.info("Result snapshot backfill finished: {} created, {} already present, {} failed", created, skipped, failed);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.common.scoring.ScoringEngine;
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordRepository;
+import com.example.vocab.word.service.WordService;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.vocab.common.firestore.FirestoreFutures.await;
+
+/**
+ * Spaced-repetition reviews across all sessions: which words are due now, and grading review answers.
+ */
+@Service
+public class ReviewService {
+    public static final int MAX_DUE_LIMIT = 100;
+
+    private final WordRepository wordRepository;
+    private final WordService wordService;
+    private final ScoringEngine scoringEngine;
+    private final SpacedRepetition spacedRepetition;
+    private final DueQueue dueQueue;
+    private final int refillSize;
+
+    public ReviewService(WordRepository wordRepository, WordService wordService, ScoringEngine scoringEngine,
+                         SpacedRepetition spacedRepetition, DueQueue dueQueue,
+                         @Value("${app.review.queue.refill-size:500}") int refillSize) {
+        this.wordRepository = wordRepository;
+        this.wordService = wordService;
+        this.scoringEngine = scoringEngine;
+        this.spacedRepetition = spacedRepetition;
+        this.dueQueue = dueQueue;
+        this.refillSize = Math.max(refillSize, MAX_DUE_LIMIT);
+    }
+
+    @Data
+    @Builder
+    public static class ReviewResult {
+        private String id;
+        private String english;
+        private String vietnamese;
+        private String userAnswer;
+        private boolean correct;
+        private boolean skipped;
+        private Integer intervalDays;
+        private Long dueAt;
+    }
+
+    /**
+     * Up to {@code limit} words due now, earliest first.
+     */
+    public List<Word> getDueWords(int limit) {
+        int effectiveLimit = Math.max(1, Math.min(limit, MAX_DUE_LIMIT));
+        long now = System.currentTimeMillis();
+        // Từ hợp lệ vẫn đứng đầu hàng đợi, id hỏng bị gỡ ra: đọc lại cho tới khi đủ hoặc hết hàng đợi
+        Map<String, Word> due = new LinkedHashMap<>();
+        while (due.size() < effectiveLimit) {
+            List<String> ids = dueQueue.due(effectiveLimit, now);
+            if (ids.size() < effectiveLimit && !dueQueue.covers(now)) {
+                refill();
+                ids = dueQueue.due(effectiveLimit, now);
+            }
+            List<String> unseen = ids.stream().filter(id -> !due.containsKey(id)).toList();
+            if (unseen.isEmpty()) {
+                break;
+            }
+
+            Map<String, Word> byId = new HashMap<>();
+            for (Word word : wordRepository.findAllByIds(unseen)) {
+                byId.put(word.getId(), word);
+            }
+            for (String id : unseen) {
+                Word word = byId.get(id);
+                if (word == null || word.getDueAt() == null) {
+                    // Từ đã bị xoá (hoặc bỏ lịch) kể từ lúc vào hàng đợi
+                    dueQueue.remove(id);
+                } else if (word.getDueAt() > now) {
+                    dueQueue.update(id, word.getDueAt());
+                } else {
+                    due.put(id, word);
+                }
+            }
+        }
+        return new ArrayList<>(due.values());
+    }
+
+    public List<ReviewResult> submitReviews(Map<String, String> answers) {
+        long now = System.currentTimeMillis();
+        List<Word> words = wordRepository.findAllByIds(answers.keySet());
+        List<ReviewResult> results = new ArrayList<>();
+        for (Word word : words) {
+            String userAnswer = answers.getOrDefault(word.getId(), "").trim();
+            boolean skipped = userAnswer.equalsIgnoreCase("skip");
+            ScoringEngine.Grade grade = skipped ? ScoringEngine.Grade.WRONG : scoringEngine.grade(userAnswer, word.getEnglish());
+            schedule(word, grade, skipped, now);
+            results.add(ReviewResult.builder()
+                    .id(word.getId())
+                    .english(word.getEnglish())
+                    .vietnamese(word.getVietnamese())
+                    .userAnswer(userAnswer)
+                    .correct(grade != ScoringEngine.Grade.WRONG)
+                    .skipped(skipped)
+                    .intervalDays(word.getIntervalDays())
+                    .dueAt(word.getDueAt())
+                    .build());
+        }
+        wordService.updateWords(words);
+        scheduled(words);
+        return results;
+    }
+
+    /**
+     * Updates the schedule of {@code word} for a graded answer; the caller saves the word and then calls {@link #scheduled}.
+     */
+    public void schedule(Word word, ScoringEngine.Grade grade, boolean skipped, long now) {
+        spacedRepetition.review(word, SpacedRepetition.quality(grade, skipped), now);
+    }
+
+    public void scheduled(List<Word> words) {
+        for (Word word : words) {
+            dueQueue.update(word.getId(), word.getDueAt());
+        }
+    }
+
+    private void refill() {
+        DueQueue.Entry after = dueQueue.horizon();
+        LinkedHashMap<String, Long> page = await(wordRepository.findDueAtAfterAsync(
+                after != null ? after.dueAt() : null, after != null ? after.wordId() : null, refillSize),
+                "Error fetching due words");
+        List<DueQueue.Entry> entries = new ArrayList<>(page.size());
+        page.forEach((id, dueAt) -> entries.add(new DueQueue.Entry(dueAt, id)));
+        dueQueue.load(after, entries, entries.size() < refillSize);
+    }
+}
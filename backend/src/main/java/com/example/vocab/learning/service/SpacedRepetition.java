@@ -0,0 +1,70 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.common.scoring.ScoringEngine;
+import com.example.vocab.word.domain.Word;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * SM-2 scheduling. Each graded answer gets a quality from 0 (skipped) to 5 (exact). A quality below 3 restarts
+ * the word at a one-day interval; otherwise the interval grows 1 day, 6 days, then by the word's ease factor.
+ * Ease moves with the quality and never drops below 1.3.
+ */
+@Component
+public class SpacedRepetition {
+    static final double INITIAL_EASE = 2.5;
+    static final double MIN_EASE = 1.3;
+    private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+    private final int maxIntervalDays;
+
+    public SpacedRepetition(@Value("${app.review.max-interval-days:365}") int maxIntervalDays) {
+        this.maxIntervalDays = maxIntervalDays;
+    }
+
+    public static int quality(ScoringEngine.Grade grade, boolean skipped) {
+        if (skipped) {
+            return 0;
+        }
+        return switch (grade) {
+            case EXACT -> 5;
+            case TYPO -> 4;
+            case PHONETIC -> 3;
+            case WRONG -> 1;
+        };
+    }
+
+    /**
+     * Updates the schedule fields of {@code word} for an answer of the given quality at {@code now}.
+     */
+    public void review(Word word, int quality, long now) {
+        double ease = word.getEase() != null ? word.getEase() : INITIAL_EASE;
+        int repetitions = word.getRepetitions() != null ? word.getRepetitions() : 0;
+        int interval = word.getIntervalDays() != null ? word.getIntervalDays() : 0;
+
+        if (quality < 3) {
+            repetitions = 0;
+            interval = 1;
+        } else {
+            repetitions++;
+            if (repetitions == 1) {
+                interval = 1;
+            } else if (repetitions == 2) {
+                interval = 6;
+            } else {
+                interval = (int) Math.round(interval * ease);
+            }
+        }
+        int miss = 5 - quality;
+        ease = Math.max(MIN_EASE, ease + 0.1 - miss * (0.08 + miss * 0.02));
+        interval = Math.min(Math.max(interval, 1), maxIntervalDays);
+
+        word.setEase(ease);
+        word.setRepetitions(repetitions);
+        word.setIntervalDays(interval);
+        word.setLastReviewedAt(now);
+        word.setDueAt(now + interval * DAY_MILLIS);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.vocab.pronunciation.controller;
 
 import com.example.vocab.pronunciation.service.PronunciationService;
+import com.example.vocab.pronunciation.service.RecognitionMode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,14 +24,21 @@ public class PronunciationController {
     @PostMapping("/check")
     public ResponseEntity<Map<String, Object>> checkPronunciation(
             @RequestParam("audio") MultipartFile audioFile,
-            @RequestParam("targetWord") String targetWord) {
+            @RequestParam("targetWord") String targetWord,
+            @RequestParam(value = "mode", defaultValue = "open") String mode) {
         
         if (audioFile.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "Vui lòng đính kèm file ghi âm"));
         }
         
         // Forward thẳng file vào service xử lý on-memory
-        Map<String, Object> result = pronunciationService.assessPronunciation(audioFile, targetWord);
+        RecognitionMode recognitionMode;
+        try {
+            recognitionMode = RecognitionMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "mode phải là 'constrained' hoặc 'open'"));
+        }
+        Map<String, Object> result = pronunciationService.assessPronunciation(audioFile, targetWord, recognitionMode);
         return ResponseEntity.ok(result);
     }
 }
@@ -0,0 +1,367 @@
+package com.example.vocab.pronunciation.controller;
+
+import com.example.vocab.common.resilience.Bulkhead;
+import com.example.vocab.pronunciation.service.AudioNormalizer;
+import com.example.vocab.pronunciation.service.PronunciationService;
+import com.example.vocab.pronunciation.service.RecognitionMode;
+import com.example.vocab.pronunciation.service.RecognizerPool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming pronunciation check over WebSocket.
+ * <p>
+ * Connect to {@code /api/v1/pronunciation/stream?targetWord=apple&sampleRate=48000&channels=1[&mode=constrained]}
+ * and send 16-bit little-endian PCM as binary frames; it is normalised to 16 kHz mono on the server. The server answers each frame with
+ * {@code {"type":"partial","text":...}} and sends {@code {"type":"final",...}} with the score as soon
+ * as the target word is heard, or when the client sends the text message {@code "end"}.
+ * <p>
+ * A recognizer is borrowed only when the first audio frame arrives and is returned as soon as the result is
+ * sent. At most {@code app.pronunciation.stream.max-concurrent} streams decode at once (the rest of the pool
+ * stays available to {@code /check}); further streams are closed with 1013 (try again later), and a stream
+ * that sends no audio for {@code app.pronunciation.stream.idle-timeout} is closed and its recognizer returned.
+ * Invalid query parameters close the socket with 1008 (policy violation).
+ */
+@Component
+@Slf4j
+public class PronunciationStreamHandler extends AbstractWebSocketHandler {
+    private static final String STATE_ATTRIBUTE = "pronunciationStream";
+    private static final float DEFAULT_SAMPLE_RATE = 16000f;
+    private static final float MIN_SAMPLE_RATE = 8000f;
+    private static final float MAX_SAMPLE_RATE = 192000f;
+    private static final int MAX_CHANNELS = 8;
+
+    private final RecognizerPool recognizerPool;
+    private final PronunciationService pronunciationService;
+    private final Bulkhead voskBulkhead;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Semaphore streamPermits;
+    private final Duration idleTimeout;
+    private final Map<WebSocketSession, StreamState> streams = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService idleReaper;
+
+    public PronunciationStreamHandler(RecognizerPool recognizerPool,
+                                      PronunciationService pronunciationService,
+                                      @Qualifier("voskBulkhead") Bulkhead voskBulkhead,
+                                      @Value("${app.pronunciation.stream.max-concurrent:0}") int maxConcurrent,
+                                      @Value("${app.pronunciation.stream.idle-timeout:10s}") Duration idleTimeout) {
+        this.recognizerPool = recognizerPool;
+        this.pronunciationService = pronunciationService;
+        this.voskBulkhead = voskBulkhead;
+        // Mặc định một nửa pool: luôn chừa recognizer cho /check
+        int limit = maxConcurrent > 0 ? maxConcurrent : Math.max(1, recognizerPool.getMaxPerSampleRate() / 2);
+        this.streamPermits = new Semaphore(limit);
+        this.idleTimeout = idleTimeout;
+        this.idleReaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "pronunciation-stream-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        idleReaper.scheduleAtFixedRate(this::closeIdleStreams, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Decoder state of one socket. The lease and normalizer exist only while an utterance is being decoded;
+     * all access is synchronized on the state because the idle reaper may release it from another thread.
+     */
+    private static final class StreamState {
+        private final String targetWord;
+        private final String grammar;
+        private final float sampleRate;
+        private final int channels;
+        private final StringBuilder confirmedText = new StringBuilder();
+        private RecognizerPool.Lease lease;
+        private boolean holdsPermit;
+        private AudioNormalizer normalizer;
+        private boolean segmentEnded;
+        private boolean finished;
+        private volatile long lastActivity = System.nanoTime();
+
+        private StreamState(String targetWord, String grammar, float sampleRate, int channels) {
+            this.targetWord = targetWord;
+            this.grammar = grammar;
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+        }
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        MultiValueMap<String, String> params = UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+        String targetWord = params.getFirst("targetWord");
+        if (targetWord == null || targetWord.isBlank()) {
+            session.close(CloseStatus.BAD_DATA.withReason("targetWord is required"));
+            return;
+        }
+        float sampleRate;
+        int channels;
+        RecognitionMode mode;
+        try {
+            sampleRate = parseSampleRate(params.getFirst("sampleRate"));
+            channels = parseChannels(params.getFirst("channels"));
+            mode = parseMode(params.getFirst("mode"));
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason(e.getMessage()));
+            return;
+        }
+        String grammar = pronunciationService.grammarFor(targetWord.trim(), mode);
+
+        StreamState state = new StreamState(targetWord.trim(), grammar, sampleRate, channels);
+        session.getAttributes().put(STATE_ATTRIBUTE, state);
+        streams.put(session, state);
+    }
+
+    static float parseSampleRate(String value) {
+        if (value == null) {
+            return DEFAULT_SAMPLE_RATE;
+        }
+        float sampleRate;
+        try {
+            sampleRate = Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("sampleRate must be a number");
+        }
+        if (!(sampleRate >= MIN_SAMPLE_RATE && sampleRate <= MAX_SAMPLE_RATE)) {
+            throw new IllegalArgumentException("sampleRate must be between 8000 and 192000");
+        }
+        return sampleRate;
+    }
+
+    static int parseChannels(String value) {
+        if (value == null) {
+            return 1;
+        }
+        int channels;
+        try {
+            channels = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("channels must be an integer");
+        }
+        if (channels < 1 || channels > MAX_CHANNELS) {
+            throw new IllegalArgumentException("channels must be between 1 and " + MAX_CHANNELS);
+        }
+        return channels;
+    }
+
+    static RecognitionMode parseMode(String value) {
+        if (value == null) {
+            return RecognitionMode.OPEN;
+        }
+        try {
+            return RecognitionMode.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("mode must be 'constrained' or 'open'");
+        }
+    }
+
+    /**
+     * Borrows a recognizer for the utterance on its first audio frame; returns false (and closes the socket)
+     * when the stream limit is reached.
+     */
+    private boolean startDecoding(WebSocketSession session, StreamState state) throws IOException {
+        if (state.lease != null) {
+            return true;
+        }
+        if (!streamPermits.tryAcquire()) {
+            state.finished = true;
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason("Too many pronunciation streams, try again shortly"));
+            return false;
+        }
+        state.holdsPermit = true;
+        state.lease = recognizerPool.borrow(AudioNormalizer.TARGET_SAMPLE_RATE, state.grammar);
+        Recognizer recognizer = state.lease.recognizer();
+        state.normalizer = pronunciationService.newNormalizer(state.sampleRate, state.channels,
+                (samples, length) -> state.segmentEnded |= recognizer.acceptWaveForm(samples, length));
+        return true;
+    }
+
+    private void release(StreamState state, boolean broken) {
+        synchronized (state) {
+            state.finished = true;
+            if (state.lease != null) {
+                if (broken) state.lease.invalidate();
+                state.lease.close();
+                state.lease = null;
+                state.normalizer = null;
+            }
+            if (state.holdsPermit) {
+                state.holdsPermit = false;
+                streamPermits.release();
+            }
+        }
+    }
+
+    private void closeIdleStreams() {
+        long now = System.nanoTime();
+        for (Map.Entry<WebSocketSession, StreamState> entry : streams.entrySet()) {
+            StreamState state = entry.getValue();
+            if (now - state.lastActivity > idleTimeout.toNanos()) {
+                release(state, false);
+                streams.remove(entry.getKey());
+                try {
+                    entry.getKey().close(CloseStatus.SESSION_NOT_RELIABLE.withReason("No audio received"));
+                } catch (IOException e) {
+                    log.debug("Cannot close idle pronunciation stream: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        idleReaper.shutdownNow();
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws Exception {
+        StreamState state = (StreamState) session.getAttributes().get(STATE_ATTRIBUTE);
+        if (state == null) {
+            return;
+        }
+        ByteBuffer payload = message.getPayload();
+        byte[] frame = new byte[payload.remaining()];
+        payload.get(frame);
+
+        String hypothesis;
+        synchronized (state) {
+            if (state.finished || !startDecoding(session, state)) {
+                return;
+            }
+            state.lastActivity = System.nanoTime();
+            Recognizer recognizer = state.lease.recognizer();
+            hypothesis = voskBulkhead.execute(() -> {
+                state.segmentEnded = false;
+                state.normalizer.accept(frame, frame.length);
+                if (state.segmentEnded) {
+                    // Vosk đã chốt một đoạn: cộng dồn vào phần văn bản đã xác nhận
+                    appendText(state.confirmedText, pronunciationService.stripUnknown(readField(recognizer.getResult(), "text")));
+                    return state.confirmedText.toString();
+                }
+                return joinText(state.confirmedText, pronunciationService.stripUnknown(readField(recognizer.getPartialResult(), "partial")));
+            });
+        }
+
+        if (containsWord(hypothesis, state.targetWord)) {
+            finish(session, state, state.targetWord, true);
+        } else {
+            send(session, Map.of("type", "partial", "text", hypothesis));
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        StreamState state = (StreamState) session.getAttributes().get(STATE_ATTRIBUTE);
+        if (state == null || !"end".equalsIgnoreCase(message.getPayload().trim())) {
+            return;
+        }
+        String finalText;
+        synchronized (state) {
+            if (state.finished) {
+                return;
+            }
+            if (state.lease == null) {
+                // Chưa nhận khung âm thanh nào: không cần mượn recognizer
+                finalText = "";
+            } else {
+                Recognizer recognizer = state.lease.recognizer();
+                finalText = voskBulkhead.execute(() -> {
+                    state.normalizer.finish();
+                    return joinText(state.confirmedText, pronunciationService.stripUnknown(readField(recognizer.getFinalResult(), "text")));
+                });
+            }
+        }
+        finish(session, state, finalText, false);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("Pronunciation stream error: {}", exception.getMessage());
+        StreamState state = (StreamState) session.getAttributes().get(STATE_ATTRIBUTE);
+        if (state != null) {
+            release(state, true);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        streams.remove(session);
+        StreamState state = (StreamState) session.getAttributes().remove(STATE_ATTRIBUTE);
+        if (state != null) {
+            release(state, false);
+        }
+    }
+
+    private void finish(WebSocketSession session, StreamState state, String recognizedText, boolean early) throws IOException {
+        // Trả recognizer ngay khi có kết quả, không đợi client đóng socket
+        release(state, false);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("type", "final");
+        result.put("target_word", state.targetWord);
+        result.put("recognized_text", recognizedText);
+        result.put("score", pronunciationService.calculateScore(recognizedText, state.targetWord));
+        result.put("early", early);
+        send(session, result);
+        session.close(CloseStatus.NORMAL);
+    }
+
+    private void send(WebSocketSession session, Map<String, ?> payload) throws IOException {
+        if (session.isOpen()) {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(payload)));
+        }
+    }
+
+    private String readField(String voskJson, String field) {
+        try {
+            return objectMapper.readTree(voskJson).path(field).asText("");
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    private static void appendText(StringBuilder confirmed, String text) {
+        if (!text.isEmpty()) {
+            if (confirmed.length() > 0) confirmed.append(' ');
+            confirmed.append(text);
+        }
+    }
+
+    private static String joinText(StringBuilder confirmed, String text) {
+        if (confirmed.length() == 0) return text;
+        if (text.isEmpty()) return confirmed.toString();
+        return confirmed + " " + text;
+    }
+
+    private static boolean containsWord(String hypothesis, String targetWord) {
+        for (String token : hypothesis.split("\\s+")) {
+            if (token.equalsIgnoreCase(targetWord)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.vocab.pronunciation.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Streaming normalisation of 16-bit PCM before it reaches Vosk:
+ * mono downmix, windowed-sinc resampling to 16 kHz and trimming of leading/trailing
+ * silence with a frame energy VAD. Audio is pushed through in chunks, so a recording
+ * is never held in memory as a whole.
+ * <p>
+ * The speech threshold adapts to the clip: it is the configured RMS or 10 dB above the quietest frame seen
+ * so far, whichever is lower, so a quiet microphone is not mistaken for silence. If no frame passes at all,
+ * the clip (up to its last {@value #MAX_UNTRIMMED_SECONDS} s) is passed on untrimmed unless it is digital silence.
+ * <p>
+ * Not thread-safe: use one instance per recording.
+ */
+public class AudioNormalizer {
+    public static final int TARGET_SAMPLE_RATE = 16000;
+
+    // 20 ms frames for the VAD
+    private static final int FRAME_SIZE = TARGET_SAMPLE_RATE / 50;
+    // Keep 200 ms before the first speech frame and 300 ms after the last one
+    private static final int PRE_ROLL_FRAMES = 10;
+    private static final int HANGOVER_FRAMES = 15;
+    // Audio kept before speech, for the untrimmed fallback
+    private static final int MAX_UNTRIMMED_SECONDS = 10;
+    private static final int MAX_LEADING_FRAMES = MAX_UNTRIMMED_SECONDS * 50;
+    // Below this RMS (about -64 dBFS) a frame is silence whatever the noise floor
+    private static final double MIN_SPEECH_RMS = 20;
+    private static final double NOISE_FLOOR_MARGIN = 10; // 10 dB in energy
+
+    @FunctionalInterface
+    public interface Sink {
+        void accept(short[] samples, int length);
+    }
+
+    private final int channels;
+    private final double energyThreshold;
+    private final Sink sink;
+    private final Resampler resampler;
+
+    private final byte[] pendingBytes;
+    private int pendingByteCount;
+    private float[] mono = new float[0];
+
+    private final short[] frame = new short[FRAME_SIZE];
+    private int frameFill;
+    // Trước tiếng nói: các khung im lặng gần nhất (tối đa MAX_LEADING_FRAMES)
+    private final ArrayDeque<short[]> leadingFrames = new ArrayDeque<>();
+    private double leadingPeakEnergy;
+    // Sau tiếng nói: khoảng lặng đang chờ (chỉ giữ HANGOVER_FRAMES khung đầu)
+    private final short[][] silentFrames = new short[HANGOVER_FRAMES][FRAME_SIZE];
+    private int silentFrameCount;
+    private double noiseFloorEnergy = Double.MAX_VALUE;
+    private boolean speechStarted;
+    private boolean untrimmed;
+
+    private long inputFrames;
+    private long outputSamples;
+
+    /**
+     * @param rmsThreshold frame RMS (in 16-bit sample units) above which a frame always counts as speech
+     */
+    public AudioNormalizer(float inputSampleRate, int channels, int rmsThreshold, Sink sink) {
+        if (channels <= 0) {
+            throw new IllegalArgumentException("channels must be positive");
+        }
+        this.channels = channels;
+        this.energyThreshold = (double) rmsThreshold * rmsThreshold;
+        this.sink = sink;
+        this.resampler = Math.round(inputSampleRate) == TARGET_SAMPLE_RATE
+                ? null
+                : new Resampler(inputSampleRate, TARGET_SAMPLE_RATE);
+        this.pendingBytes = new byte[channels * 2];
+    }
+
+    /**
+     * Accepts interleaved signed 16-bit little-endian PCM. Chunks may split sample frames.
+     */
+    public void accept(byte[] pcm, int length) {
+        int bytesPerFrame = channels * 2;
+        int offset = 0;
+        // Complete a sample frame left over from the previous chunk
+        if (pendingByteCount > 0) {
+            int needed = Math.min(bytesPerFrame - pendingByteCount, length);
+            System.arraycopy(pcm, 0, pendingBytes, pendingByteCount, needed);
+            pendingByteCount += needed;
+            offset = needed;
+            if (pendingByteCount < bytesPerFrame) {
+                return;
+            }
+            downmix(pendingBytes, 0, 1);
+            pendingByteCount = 0;
+        }
+        int frames = (length - offset) / bytesPerFrame;
+        downmix(pcm, offset, frames);
+        int consumed = offset + frames * bytesPerFrame;
+        pendingByteCount = length - consumed;
+        System.arraycopy(pcm, consumed, pendingBytes, 0, pendingByteCount);
+    }
+
+    /**
+     * Flushes the resampler and emits the trailing hangover; call once after the last chunk.
+     * The trailing partial frame goes through the same energy check as full frames.
+     */
+    public void finish() {
+        if (resampler != null) {
+            resampler.flush(this::frameSamples);
+        }
+        if (frameFill > 0) {
+            onFrame(frameFill);
+        }
+        if (speechStarted) {
+            emitHangover(silentFrameCount);
+        } else if (leadingPeakEnergy >= MIN_SPEECH_RMS * MIN_SPEECH_RMS) {
+            // Không khung nào vượt ngưỡng nhưng không phải im lặng tuyệt đối: gửi nguyên bản thay vì bỏ hết
+            untrimmed = true;
+            for (short[] leading : leadingFrames) {
+                emit(leading, leading.length);
+            }
+        }
+        leadingFrames.clear();
+        silentFrameCount = 0;
+        frameFill = 0;
+    }
+
+    public long getInputFrames() {
+        return inputFrames;
+    }
+
+    public long getOutputSamples() {
+        return outputSamples;
+    }
+
+    public boolean isSpeechDetected() {
+        return speechStarted;
+    }
+
+    /**
+     * True when no frame passed the VAD and the audio was passed on untrimmed.
+     */
+    public boolean isUntrimmed() {
+        return untrimmed;
+    }
+
+    private void downmix(byte[] pcm, int offset, int frames) {
+        if (frames <= 0) return;
+        if (mono.length < frames) {
+            mono = new float[frames];
+        }
+        int pos = offset;
+        for (int i = 0; i < frames; i++) {
+            int sum = 0;
+            for (int c = 0; c < channels; c++) {
+                sum += (short) ((pcm[pos] & 0xff) | (pcm[pos + 1] << 8));
+                pos += 2;
+            }
+            mono[i] = (float) sum / channels;
+        }
+        inputFrames += frames;
+        if (resampler != null) {
+            resampler.process(mono, frames, this::frameSamples);
+        } else {
+            frameSamples(mono, frames);
+        }
+    }
+
+    private void frameSamples(float[] samples, int count) {
+        for (int i = 0; i < count; i++) {
+            float value = samples[i];
+            frame[frameFill++] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+            if (frameFill == FRAME_SIZE) {
+                onFrame(FRAME_SIZE);
+                frameFill = 0;
+            }
+        }
+    }
+
+    private void onFrame(int length) {
+        double energy = 0;
+        for (int i = 0; i < length; i++) {
+            energy += (double) frame[i] * frame[i];
+        }
+        // Năng lượng trung bình trên mỗi mẫu, để khung cuối ngắn hơn được so cùng ngưỡng
+        energy /= length;
+        noiseFloorEnergy = Math.min(noiseFloorEnergy, energy);
+        double threshold = Math.min(energyThreshold,
+                Math.max(MIN_SPEECH_RMS * MIN_SPEECH_RMS, noiseFloorEnergy * NOISE_FLOOR_MARGIN));
+
+        if (energy >= threshold) {
+            // Speech: release the buffered pre-roll (or the silence gap inside speech) first
+            if (speechStarted) {
+                emitHangover(silentFrameCount);
+            } else {
+                emitPreRoll();
+            }
+            silentFrameCount = 0;
+            speechStarted = true;
+            emit(frame, length);
+            return;
+        }
+        if (!speechStarted) {
+            short[] kept = leadingFrames.size() == MAX_LEADING_FRAMES ? leadingFrames.poll() : null;
+            if (kept == null || kept.length != length) {
+                kept = new short[length];
+            }
+            System.arraycopy(frame, 0, kept, 0, length);
+            leadingFrames.add(kept);
+            leadingPeakEnergy = Math.max(leadingPeakEnergy, energy);
+            return;
+        }
+        // After speech keep a hangover of silence; longer pauses are shortened to it
+        if (silentFrameCount < HANGOVER_FRAMES) {
+            if (silentFrames[silentFrameCount].length != length) {
+                silentFrames[silentFrameCount] = new short[length];
+            }
+            System.arraycopy(frame, 0, silentFrames[silentFrameCount], 0, length);
+        }
+        silentFrameCount++;
+    }
+
+    private void emitPreRoll() {
+        int skip = Math.max(0, leadingFrames.size() - PRE_ROLL_FRAMES);
+        for (short[] leading : leadingFrames) {
+            if (skip-- > 0) continue;
+            emit(leading, leading.length);
+        }
+        leadingFrames.clear();
+    }
+
+    private void emitHangover(int count) {
+        for (int i = 0; i < Math.min(count, HANGOVER_FRAMES); i++) {
+            emit(silentFrames[i], silentFrames[i].length);
+        }
+    }
+
+    private void emit(short[] samples, int length) {
+        outputSamples += length;
+        sink.accept(samples, length);
+    }
+
+    /**
+     * Band-limited resampler using a Blackman-windowed sinc kernel sampled into a lookup table.
+     */
+    static final class Resampler {
+        private static final int ZERO_CROSSINGS = 8;
+        private static final int PHASES = 256;
+
+        private final double step;
+        private final int halfWidth;
+        private final float[] kernel;
+        private final double kernelScale;
+
+        private float[] buffer;
+        private int bufferLength;
+        private double position;
+        private float[] out = new float[256];
+        private int outLength;
+
+        Resampler(double inputRate, double outputRate) {
+            this.step = inputRate / outputRate;
+            // Cut-off a little below the lower Nyquist frequency, in cycles per input sample
+            double cutoff = 0.5 * Math.min(1.0, outputRate / inputRate) * 0.95;
+            this.halfWidth = (int) Math.ceil(ZERO_CROSSINGS / (2 * cutoff));
+            this.kernel = new float[halfWidth * PHASES + 2];
+            for (int i = 0; i < kernel.length; i++) {
+                double x = (double) i / PHASES;
+                double sinc = x == 0 ? 1.0 : Math.sin(Math.PI * 2 * cutoff * x) / (Math.PI * 2 * cutoff * x);
+                double w = x >= halfWidth ? 0.0 : 0.42 + 0.5 * Math.cos(Math.PI * x / halfWidth)
+                        + 0.08 * Math.cos(2 * Math.PI * x / halfWidth);
+                kernel[i] = (float) (2 * cutoff * sinc * w);
+            }
+            this.kernelScale = PHASES;
+            // Zero history on the left so the first output sample has full context
+            this.buffer = new float[4096 + 2 * halfWidth];
+            this.bufferLength = halfWidth;
+            this.position = halfWidth;
+        }
+
+        void process(float[] input, int count, FloatSink sink) {
+            ensureCapacity(bufferLength + count);
+            System.arraycopy(input, 0, buffer, bufferLength, count);
+            bufferLength += count;
+            drain(sink);
+        }
+
+        void flush(FloatSink sink) {
+            ensureCapacity(bufferLength + halfWidth);
+            Arrays.fill(buffer, bufferLength, bufferLength + halfWidth, 0f);
+            bufferLength += halfWidth;
+            drain(sink);
+        }
+
+        private void drain(FloatSink sink) {
+            outLength = 0;
+            while (position + halfWidth < bufferLength) {
+                if (outLength == out.length) {
+                    sink.accept(out, outLength);
+                    outLength = 0;
+                }
+                out[outLength++] = interpolate(position);
+                position += step;
+            }
+            if (outLength > 0) {
+                sink.accept(out, outLength);
+            }
+            // Drop input that no future output sample can reach
+            int drop = (int) Math.floor(position) - halfWidth;
+            if (drop > 0) {
+                System.arraycopy(buffer, drop, buffer, 0, bufferLength - drop);
+                bufferLength -= drop;
+                position -= drop;
+            }
+        }
+
+        private float interpolate(double t) {
+            int first = (int) Math.ceil(t - halfWidth);
+            int last = (int) Math.floor(t + halfWidth);
+            double sum = 0;
+            for (int k = Math.max(0, first); k <= last && k < bufferLength; k++) {
+                double offset = Math.abs(t - k) * kernelScale;
+                int index = (int) offset;
+                if (index + 1 >= kernel.length) continue;
+                double frac = offset - index;
+                double h = kernel[index] + (kernel[index + 1] - kernel[index]) * frac;
+                sum += buffer[k] * h;
+            }
+            return (float) sum;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (buffer.length < capacity) {
+                buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface FloatSink {
+        void accept(float[] samples, int length);
+    }
+}
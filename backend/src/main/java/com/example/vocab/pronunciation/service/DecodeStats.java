@@ -0,0 +1,36 @@
+package com.example.vocab.pronunciation.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of audio length and decode time for one recognition mode.
+ * Real-time factor is decode time divided by audio duration (lower is faster).
+ */
+public class DecodeStats {
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder audioNanos = new LongAdder();
+    private final LongAdder decodeNanos = new LongAdder();
+
+    public void record(long audioDurationNanos, long decodeDurationNanos) {
+        requests.increment();
+        audioNanos.add(audioDurationNanos);
+        decodeNanos.add(decodeDurationNanos);
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public double getAudioSeconds() {
+        return audioNanos.sum() / 1e9;
+    }
+
+    public double getDecodeSeconds() {
+        return decodeNanos.sum() / 1e9;
+    }
+
+    public double getRealTimeFactor() {
+        long audio = audioNanos.sum();
+        return audio > 0 ? (double) decodeNanos.sum() / audio : 0.0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.vocab.pronunciation.service;
+
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordsChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares grammar recognizers for newly saved words in the background, so the first constrained check of a
+ * word does not pay for compiling its grammar and initialising the decoder.
+ * Only the first {@code app.pronunciation.grammar.prewarm-per-save} words of each save are prepared;
+ * 0 (the default, since constrained decoding is opt-in) turns it off.
+ */
+@Component
+@Slf4j
+public class GrammarPrewarmer {
+    private final PronunciationService pronunciationService;
+    private final RecognizerPool recognizerPool;
+    private final int perSave;
+    private final ExecutorService executor;
+
+    public GrammarPrewarmer(PronunciationService pronunciationService, RecognizerPool recognizerPool,
+                            @Value("${app.pronunciation.grammar.prewarm-per-save:0}") int perSave) {
+        this.pronunciationService = pronunciationService;
+        this.recognizerPool = recognizerPool;
+        this.perSave = perSave;
+        // Một luồng, hàng đợi ngắn: bỏ qua khi đang bận thay vì dồn việc
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(4), r -> {
+            Thread thread = new Thread(r, "grammar-prewarm");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @EventListener
+    public void onWordsChanged(WordsChangedEvent event) {
+        if (perSave <= 0 || event.upserted().isEmpty()) {
+            return;
+        }
+        var targets = event.upserted().stream()
+                .map(Word::getEnglish)
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(english -> !english.isEmpty())
+                .distinct()
+                .limit(perSave)
+                .toList();
+        try {
+            executor.execute(() -> {
+                for (String target : targets) {
+                    try {
+                        String grammar = pronunciationService.grammarFor(target, RecognitionMode.CONSTRAINED);
+                        if (grammar != null && !recognizerPool.prewarm(AudioNormalizer.TARGET_SAMPLE_RATE, grammar)) {
+                            // Hết chỗ trong giới hạn recognizer grammar: dừng, không đẩy grammar khác ra
+                            return;
+                        }
+                    } catch (RuntimeException e) {
+                        log.debug("Cannot prewarm grammar for '{}': {}", target, e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Grammar prewarm skipped: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
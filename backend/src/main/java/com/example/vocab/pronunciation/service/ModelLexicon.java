@@ -0,0 +1,55 @@
+package com.example.vocab.pronunciation.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Words the Vosk model can output, read from {@code graph/words.txt} when the model ships it.
+ * A grammar word that is missing from the lexicon is dropped by Vosk, so such a target could only
+ * ever decode to {@code [unk]}. Models without a word list report every word as known.
+ */
+@Slf4j
+public class ModelLexicon {
+    private final Set<String> words;
+
+    private ModelLexicon(Set<String> words) {
+        this.words = words;
+    }
+
+    public static ModelLexicon load(Path modelPath) {
+        Path wordsFile = modelPath.resolve("graph").resolve("words.txt");
+        if (!Files.isRegularFile(wordsFile)) {
+            log.info("No word list at {}; grammar targets are not checked against the lexicon", wordsFile);
+            return new ModelLexicon(null);
+        }
+        // Mỗi dòng: "<từ> <id>"
+        try (Stream<String> lines = Files.lines(wordsFile, StandardCharsets.UTF_8)) {
+            Set<String> words = new HashSet<>();
+            lines.forEach(line -> {
+                int space = line.indexOf(' ');
+                words.add(space > 0 ? line.substring(0, space) : line);
+            });
+            log.info("Loaded {} words from the Vosk lexicon", words.size());
+            return new ModelLexicon(words);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read Vosk word list " + wordsFile, e);
+        }
+    }
+
+    public static ModelLexicon unknown() {
+        return new ModelLexicon(null);
+    }
+
+    public boolean contains(String word) {
+        return words == null || words.contains(word.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.vocab.pronunciation.service;
+
+import com.example.vocab.common.scoring.EditDistance;
+import com.example.vocab.common.scoring.PhoneticKey;
+import com.example.vocab.word.repository.WordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds and caches the Vosk grammar used for a single-word pronunciation check:
+ * the target word, a few similar-sounding words from our vocabulary (so a near miss is
+ * recognised as that word instead of being forced onto the target) and {@code [unk]}.
+ * Neighbours are vocabulary words sharing the target's first letters whose {@link PhoneticKey} is equal to the
+ * target's or one edit away ("ship"/"sheep", "cat"/"cap"), closest sound first, then closest spelling.
+ * Targets the model lexicon does not know get no grammar (open decoding), since Vosk would drop them
+ * from the grammar and every attempt would decode to {@code [unk]}.
+ */
+@Component
+@Slf4j
+public class PronunciationGrammarCache {
+    private static final String UNKNOWN = "[unk]";
+    private static final int PREFIX_LENGTH = 2;
+    private static final int CANDIDATE_LIMIT = 50;
+    private static final int MAX_KEY_DISTANCE = 1;
+
+    private static final String NO_GRAMMAR = "";
+
+    private final WordRepository wordRepository;
+    private final ModelLexicon lexicon;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int maxNeighbours;
+    private final Cache<String, String> grammars;
+
+    public PronunciationGrammarCache(WordRepository wordRepository, ModelLexicon lexicon,
+                                     @Value("${app.pronunciation.grammar.max-neighbours:5}") int maxNeighbours,
+                                     @Value("${app.pronunciation.grammar.cache-size:2000}") long cacheSize,
+                                     @Value("${app.pronunciation.grammar.ttl:6h}") Duration ttl) {
+        this.wordRepository = wordRepository;
+        this.lexicon = lexicon;
+        this.maxNeighbours = maxNeighbours;
+        this.grammars = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Grammar for {@code targetWord}, or null when the target is not in the model lexicon.
+     */
+    public String grammarFor(String targetWord) {
+        String grammar = grammars.get(targetWord.trim().toLowerCase(Locale.ROOT), this::buildGrammar);
+        return grammar.isEmpty() ? null : grammar;
+    }
+
+    private String buildGrammar(String target) {
+        for (String token : target.split("\\s+")) {
+            if (!lexicon.contains(token)) {
+                log.info("'{}' is not in the Vosk lexicon, checking it with open decoding", target);
+                return NO_GRAMMAR;
+            }
+        }
+        List<String> words = new ArrayList<>();
+        words.add(target);
+        for (String neighbour : findNeighbours(target)) {
+            if (words.size() > maxNeighbours) break;
+            words.add(neighbour);
+        }
+        words.add(UNKNOWN);
+        try {
+            return objectMapper.writeValueAsString(words);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialise grammar for " + target, e);
+        }
+    }
+
+    private List<String> findNeighbours(String target) {
+        if (target.length() < PREFIX_LENGTH || target.contains(" ")) {
+            return List.of();
+        }
+        String targetKey = PhoneticKey.encode(target);
+        if (targetKey.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return wordRepository.findEnglishByPrefix(target.substring(0, PREFIX_LENGTH), CANDIDATE_LIMIT).stream()
+                    .map(word -> word.trim().toLowerCase(Locale.ROOT))
+                    .filter(word -> !word.equals(target) && !word.contains(" ") && !word.isEmpty())
+                    .filter(lexicon::contains)
+                    .distinct()
+                    .filter(word -> keyDistance(word, targetKey) <= MAX_KEY_DISTANCE)
+                    .sorted(Comparator.comparingInt((String word) -> keyDistance(word, targetKey))
+                            .thenComparingInt(word -> EditDistance.distance(word, target)))
+                    .toList();
+        } catch (RuntimeException e) {
+            // Không có từ lân cận vẫn dùng được grammar chỉ gồm từ mục tiêu
+            log.warn("Cannot load grammar neighbours for '{}': {}", target, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static int keyDistance(String word, String targetKey) {
+        return EditDistance.distance(PhoneticKey.encode(word), targetKey, MAX_KEY_DISTANCE);
+    }
+}
@@ -1,103 +1,190 @@
 package com.example.vocab.pronunciation.service;
 
+import com.example.vocab.common.resilience.Bulkhead;
+import com.example.vocab.common.resilience.BulkheadFullException;
+import com.example.vocab.common.scoring.ScoringEngine;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.vosk.Model;
 import org.vosk.Recognizer;
 
+import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class PronunciationService {
 
-    private final Model voskModel;
+    private final RecognizerPool recognizerPool;
+    private final PronunciationGrammarCache grammarCache;
+    private final ScoringEngine scoringEngine;
     private final ObjectMapper objectMapper;
+    private final Bulkhead voskBulkhead;
+    private final Map<RecognitionMode, DecodeStats> decodeStats = new EnumMap<>(RecognitionMode.class);
+    private final Map<RecognitionMode, Timer> decodeTimers = new EnumMap<>(RecognitionMode.class);
+    private final Map<RecognitionMode, DistributionSummary> realTimeFactors = new EnumMap<>(RecognitionMode.class);
+    private final int vadRmsThreshold;
 
     @Autowired
-    public PronunciationService(Model voskModel) {
-        this.voskModel = voskModel;
+    public PronunciationService(RecognizerPool recognizerPool, PronunciationGrammarCache grammarCache,
+                                ScoringEngine scoringEngine,
+                                @Qualifier("voskBulkhead") Bulkhead voskBulkhead,
+                                @Value("${app.pronunciation.vad.rms-threshold:300}") int vadRmsThreshold,
+                                MeterRegistry meterRegistry) {
+        this.recognizerPool = recognizerPool;
+        this.grammarCache = grammarCache;
+        this.scoringEngine = scoringEngine;
         this.objectMapper = new ObjectMapper();
+        this.voskBulkhead = voskBulkhead;
+        this.vadRmsThreshold = vadRmsThreshold;
+        for (RecognitionMode mode : RecognitionMode.values()) {
+            decodeStats.put(mode, new DecodeStats());
+            String tag = mode.name().toLowerCase();
+            decodeTimers.put(mode, Timer.builder("vosk.decode")
+                    .description("Vosk decode time per pronunciation request")
+                    .tag("mode", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            // RTF < 1 là giải mã nhanh hơn thời gian thực; bucket cố định vì giá trị nằm quanh 0-2
+            realTimeFactors.put(mode, DistributionSummary.builder("vosk.real_time_factor")
+                    .description("Decode time divided by audio duration per pronunciation request")
+                    .tag("mode", tag)
+                    .serviceLevelObjectives(0.05, 0.1, 0.25, 0.5, 1.0, 2.0)
+                    .register(meterRegistry));
+        }
     }
 
     public Map<String, Object> assessPronunciation(MultipartFile audioFile, String targetWord) {
+        return assessPronunciation(audioFile, targetWord, RecognitionMode.OPEN);
+    }
+
+    /**
+     * A constrained check that hears speech but nothing from the grammar (only {@code [unk]}) is decoded again
+     * in open mode, so a target the grammar cannot represent is still scored against what was said.
+     */
+    public Map<String, Object> assessPronunciation(MultipartFile audioFile, String targetWord, RecognitionMode mode) {
+        // Dựng grammar (có thể phải đọc Firestore) trước khi chiếm suất giải mã
+        String grammar = grammarFor(targetWord, mode);
+        // Giới hạn số luồng giải mã đồng thời để không chiếm hết CPU của các API khác
+        return voskBulkhead.execute(() -> {
+            Decoded decoded = decodeAndScore(audioFile, targetWord, mode, grammar);
+            if (mode == RecognitionMode.CONSTRAINED && decoded.onlyUnknown()) {
+                return decodeAndScore(audioFile, targetWord, RecognitionMode.OPEN, null).result();
+            }
+            return decoded.result();
+        });
+    }
+
+    /**
+     * Grammar for constrained decoding of {@code targetWord}, or null for open-vocabulary decoding
+     * (open mode, or a target the model lexicon does not contain).
+     */
+    public String grammarFor(String targetWord, RecognitionMode mode) {
+        if (mode == RecognitionMode.OPEN || targetWord == null || targetWord.isBlank()) {
+            return null;
+        }
+        return grammarCache.grammarFor(targetWord);
+    }
+
+    public AudioNormalizer newNormalizer(float sampleRate, int channels, AudioNormalizer.Sink sink) {
+        return new AudioNormalizer(sampleRate, channels, vadRmsThreshold, sink);
+    }
+
+    public DecodeStats getDecodeStats(RecognitionMode mode) {
+        return decodeStats.get(mode);
+    }
+
+    private record Decoded(Map<String, Object> result, boolean onlyUnknown) {
+    }
+
+    private Decoded decodeAndScore(MultipartFile audioFile, String targetWord, RecognitionMode mode, String grammar) {
         Map<String, Object> result = new HashMap<>();
         String recognizedText = "";
+        double realTimeFactor;
+        double decodedSeconds;
         
         // 1. Đọc luồng âm thanh và thu thập chữ (Không lưu file ra ổ đĩa - xử lý ngay trên RAM)
         try (InputStream is = new BufferedInputStream(audioFile.getInputStream());
              AudioInputStream ais = AudioSystem.getAudioInputStream(is)) {
              
-            // Yêu cầu của Vosk thông thường là 16kHz
-            int sampleRate = (int) ais.getFormat().getSampleRate();
-            if (sampleRate <= 0) sampleRate = 16000;
-            
-            try (Recognizer recognizer = new Recognizer(voskModel, sampleRate)) {
+            // Chuẩn hoá về PCM 16-bit little-endian; AudioNormalizer sẽ downmix về mono và resample về 16kHz
+            AudioFormat source = ais.getFormat();
+            float sampleRate = source.getSampleRate() > 0 ? source.getSampleRate() : AudioNormalizer.TARGET_SAMPLE_RATE;
+            int channels = Math.max(1, source.getChannels());
+            AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, sampleRate, 16, channels,
+                    channels * 2, sampleRate, false);
+            AudioInputStream pcmStream = source.matches(pcm16) ? ais : AudioSystem.getAudioInputStream(pcm16, ais);
+
+            long start = System.nanoTime();
+            AudioNormalizer normalizer;
+
+            // Mượn Recognizer đã khởi tạo sẵn từ pool thay vì tạo mới mỗi lần
+            try (RecognizerPool.Lease lease = recognizerPool.borrow(AudioNormalizer.TARGET_SAMPLE_RATE, grammar)) {
+                Recognizer recognizer = lease.recognizer();
+                normalizer = new AudioNormalizer(sampleRate, channels, vadRmsThreshold, recognizer::acceptWaveForm);
                 int nbytes;
-                byte[] b = new byte[4096];
-                while ((nbytes = ais.read(b)) >= 0) {
-                    recognizer.acceptWaveForm(b, nbytes);
+                byte[] b = new byte[8192];
+                while ((nbytes = pcmStream.read(b)) >= 0) {
+                    normalizer.accept(b, nbytes);
                 }
+                normalizer.finish();
                 String finalResult = recognizer.getFinalResult();
                 
                 // Bóc tách file JSON của Vosk trả về: {"text": "apple"}
                 JsonNode jsonNode = objectMapper.readTree(finalResult);
                 recognizedText = jsonNode.has("text") ? jsonNode.get("text").asText() : "";
             }
+
+            long decodeNanos = System.nanoTime() - start;
+            long audioNanos = (long) (normalizer.getInputFrames() * 1e9 / sampleRate);
+            decodeStats.get(mode).record(audioNanos, decodeNanos);
+            realTimeFactor = audioNanos > 0 ? (double) decodeNanos / audioNanos : 0.0;
+            decodeTimers.get(mode).record(decodeNanos, TimeUnit.NANOSECONDS);
+            realTimeFactors.get(mode).record(realTimeFactor);
+            decodedSeconds = normalizer.getOutputSamples() / (double) AudioNormalizer.TARGET_SAMPLE_RATE;
+        } catch (BulkheadFullException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Lỗi đọc File Wav: Bạn phải đảm bảo App gửi đúng file chuẩn chuẩn Wav. " + e.getMessage(), e);
         }
 
+        // Ở chế độ grammar, đoạn không khớp được trả về là [unk]
+        boolean onlyUnknown = !recognizedText.isBlank() && stripUnknown(recognizedText).isEmpty();
+        recognizedText = stripUnknown(recognizedText);
+
         // 2. Chấm điểm phát âm bằng Levenshtein
         int score = calculateScore(recognizedText, targetWord);
         
         result.put("target_word", targetWord);
         result.put("recognized_text", recognizedText);
         result.put("score", score);
+        result.put("mode", mode.name().toLowerCase());
+        result.put("real_time_factor", realTimeFactor);
+        result.put("decoded_seconds", decodedSeconds);
         
         // Luồng InputStream thuộc MultipartFile sẽ tự động gỡ bỏ ở Finally block
         // File âm thanh hoàn toàn không bị lưu lại
-        return result;
+        return new Decoded(result, onlyUnknown);
     }
 
-    private int calculateScore(String userSpoken, String target) {
-        if (target == null || target.trim().isEmpty()) return 0;
-        if (userSpoken == null || userSpoken.trim().isEmpty()) return 0;
-
-        String s1 = userSpoken.toLowerCase().trim();
-        String s2 = target.toLowerCase().trim();
-
-        int distance = computeLevenshteinDistance(s1, s2);
-        int maxLength = Math.max(s1.length(), s2.length());
-        
-        if (maxLength == 0) return 100;
-        
-        double accuracy = (1.0 - ((double) distance / maxLength)) * 100;
-        return Math.max(0, (int) Math.round(accuracy));
+    public String stripUnknown(String recognizedText) {
+        return recognizedText.replace("[unk]", " ").trim().replaceAll("\\s+", " ");
     }
 
-    private int computeLevenshteinDistance(String lhs, String rhs) {
-        int[][] distance = new int[lhs.length() + 1][rhs.length() + 1];
-
-        for (int i = 0; i <= lhs.length(); i++) distance[i][0] = i;
-        for (int j = 1; j <= rhs.length(); j++) distance[0][j] = j;
-
-        for (int i = 1; i <= lhs.length(); i++) {
-            for (int j = 1; j <= rhs.length(); j++) {
-                int cost = (lhs.charAt(i - 1) == rhs.charAt(j - 1)) ? 0 : 1;
-                distance[i][j] = Math.min(
-                    Math.min(distance[i - 1][j] + 1, distance[i][j - 1] + 1),
-                    distance[i - 1][j - 1] + cost
-                );
-            }
-        }
-        return distance[lhs.length()][rhs.length()];
+    public int calculateScore(String userSpoken, String target) {
+        return scoringEngine.similarityScore(userSpoken, target);
     }
 }
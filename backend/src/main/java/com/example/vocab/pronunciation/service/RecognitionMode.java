@@ -0,0 +1,8 @@
+package com.example.vocab.pronunciation.service;
+
+public enum RecognitionMode {
+    // Chỉ nhận dạng từ mục tiêu, các từ gần giống và [unk]
+    CONSTRAINED,
+    // Nhận dạng tự do với toàn bộ từ vựng của model
+    OPEN
+}
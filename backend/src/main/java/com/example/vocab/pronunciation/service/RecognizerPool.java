@@ -0,0 +1,394 @@
+package com.example.vocab.pronunciation.service;
+
+import com.example.vocab.common.resilience.BulkheadFullException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.vosk.Model;
+import org.vosk.Recognizer;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of Vosk recognizers keyed by sample rate (and grammar for constrained decoding),
+ * so the native decoder is not rebuilt per request.
+ * Recognizers are reset when returned and pre-warmed at startup.
+ * Leases held longer than the leak threshold are reported by a background check.
+ * Grammar pools live in a bounded cache; an evicted pool closes its recognizers as they come back.
+ * Native recognizers across all grammar pools are capped by {@code app.vosk.pool.max-grammar-recognizers}:
+ * at the cap an idle recognizer of another grammar is closed to make room. Every new recognizer decodes a
+ * short silence before it is handed out, and {@link #prewarm} lets grammars be prepared ahead of use.
+ */
+@Component
+@Slf4j
+public class RecognizerPool implements MeterBinder {
+    // 100 ms of 16-bit silence, enough to push the decoder through its first-use initialisation
+    private static final byte[] WARM_UP_AUDIO = new byte[3200];
+
+    private final Model model;
+    private final int maxPerKey;
+    private final Duration borrowTimeout;
+    private final Duration leakThreshold;
+    private final float warmUpSampleRate;
+    private final int maxGrammarRecognizers;
+    private final AtomicInteger grammarRecognizers = new AtomicInteger();
+    private final Map<PoolKey, KeyedPool> pools = new ConcurrentHashMap<>();
+    private final Cache<PoolKey, KeyedPool> grammarPools;
+    private final Map<Lease, Long> outstanding = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leakDetector;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    public RecognizerPool(Model model,
+                          @Value("${app.vosk.pool.max-per-sample-rate:0}") int maxPerKey,
+                          @Value("${app.vosk.pool.borrow-timeout:2s}") Duration borrowTimeout,
+                          @Value("${app.vosk.pool.leak-threshold:60s}") Duration leakThreshold,
+                          @Value("${app.vosk.pool.warm-up-sample-rate:16000}") float warmUpSampleRate,
+                          @Value("${app.vosk.pool.max-grammars:256}") long maxGrammars,
+                          @Value("${app.vosk.pool.max-grammar-recognizers:0}") int maxGrammarRecognizers) {
+        this.model = model;
+        this.maxPerKey = maxPerKey > 0 ? maxPerKey : Runtime.getRuntime().availableProcessors();
+        // Mặc định gấp đôi số luồng giải mã: đủ cho các request đang chạy, phần còn lại là recognizer rảnh để tái dùng
+        this.maxGrammarRecognizers = maxGrammarRecognizers > 0 ? maxGrammarRecognizers : 2 * this.maxPerKey;
+        this.borrowTimeout = borrowTimeout;
+        this.leakThreshold = leakThreshold;
+        this.warmUpSampleRate = warmUpSampleRate;
+        this.grammarPools = Caffeine.newBuilder()
+                .maximumSize(maxGrammars)
+                .removalListener((PoolKey key, KeyedPool pool, RemovalCause cause) -> {
+                    if (pool != null) pool.retire();
+                })
+                .build();
+        this.leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "recognizer-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, leakThreshold.toSeconds() / 2);
+        leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.SECONDS);
+    }
+
+    public Lease borrow(float sampleRate) {
+        return borrow(sampleRate, null);
+    }
+
+    /**
+     * Borrows a recognizer restricted to {@code grammar} (a Vosk JSON word list), or an
+     * open-vocabulary one when {@code grammar} is null.
+     */
+    public Lease borrow(float sampleRate, String grammar) {
+        PoolKey key = new PoolKey(sampleRate, grammar);
+        KeyedPool pool = grammar == null
+                ? pools.computeIfAbsent(key, KeyedPool::new)
+                : grammarPools.get(key, KeyedPool::new);
+        borrowCount.increment();
+        Recognizer recognizer = pool.idle.poll();
+        if (recognizer == null) {
+            recognizer = pool.tryCreate();
+        }
+        if (recognizer == null) {
+            waitCount.increment();
+            long start = System.nanoTime();
+            try {
+                recognizer = pool.idle.poll(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                waitNanos.add(System.nanoTime() - start);
+            }
+            if (recognizer == null) {
+                throw new BulkheadFullException("vosk-recognizer-pool");
+            }
+        }
+        Lease lease = new Lease(pool, recognizer);
+        outstanding.put(lease, System.nanoTime());
+        return lease;
+    }
+
+    /**
+     * Creates and warms one recognizer for {@code grammar} if its pool has none idle and the grammar cap has room
+     * without evicting another grammar. Returns whether a recognizer was added.
+     */
+    public boolean prewarm(float sampleRate, String grammar) {
+        KeyedPool pool = grammarPools.get(new PoolKey(sampleRate, grammar), KeyedPool::new);
+        if (!pool.idle.isEmpty() || grammarRecognizers.get() >= maxGrammarRecognizers) {
+            return false;
+        }
+        Recognizer recognizer = pool.tryCreate();
+        if (recognizer == null) {
+            return false;
+        }
+        pool.release(recognizer, true);
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        KeyedPool pool = pools.computeIfAbsent(new PoolKey(warmUpSampleRate, null), KeyedPool::new);
+        long start = System.nanoTime();
+        int warmed = 0;
+        Recognizer recognizer;
+        while ((recognizer = pool.tryCreate()) != null) {
+            pool.idle.offer(recognizer);
+            warmed++;
+        }
+        log.info("Warmed up {} Vosk recognizers at {} Hz in {} ms",
+                warmed, (int) warmUpSampleRate, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        for (Map.Entry<Lease, Long> entry : outstanding.entrySet()) {
+            Lease lease = entry.getKey();
+            if (now - entry.getValue() > leakThreshold.toNanos() && lease.reportedLeak.compareAndSet(false, true)) {
+                leakCount.increment();
+                log.warn("Vosk recognizer ({} Hz) borrowed by thread '{}' has not been returned for over {}s",
+                        (int) lease.pool.key.sampleRate(), lease.borrowerThread, leakThreshold.toSeconds());
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("vosk.pool.idle", this, RecognizerPool::getIdleCount)
+                .description("Recognizers ready to be borrowed")
+                .register(registry);
+        Gauge.builder("vosk.pool.borrowed", this, RecognizerPool::getBorrowedCount)
+                .description("Recognizers currently lent out")
+                .register(registry);
+        Gauge.builder("vosk.pool.grammar.recognizers", this, RecognizerPool::getGrammarRecognizerCount)
+                .description("Open grammar recognizers, capped by app.vosk.pool.max-grammar-recognizers")
+                .register(registry);
+        Gauge.builder("vosk.pool.grammar.pools", this, RecognizerPool::getGrammarPoolCount)
+                .register(registry);
+        FunctionCounter.builder("vosk.pool.created", createdCount, LongAdder::sum)
+                .description("Native recognizers created")
+                .register(registry);
+        FunctionCounter.builder("vosk.pool.borrows", borrowCount, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("vosk.pool.leaks", leakCount, LongAdder::sum)
+                .description("Leases held longer than the leak threshold")
+                .register(registry);
+        FunctionTimer.builder("vosk.pool.wait", this, pool -> pool.waitCount.sum(), pool -> pool.waitNanos.sum(),
+                        TimeUnit.NANOSECONDS)
+                .description("Time borrowers spent waiting for a recognizer to come back")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void close() {
+        leakDetector.shutdownNow();
+        grammarPools.invalidateAll();
+        pools.values().forEach(KeyedPool::retire);
+    }
+
+    public int getMaxPerSampleRate() {
+        return maxPerKey;
+    }
+
+    public int getIdleCount() {
+        return pools.values().stream().mapToInt(pool -> pool.idle.size()).sum()
+                + grammarPools.asMap().values().stream().mapToInt(pool -> pool.idle.size()).sum();
+    }
+
+    public long getGrammarPoolCount() {
+        return grammarPools.estimatedSize();
+    }
+
+    public int getGrammarRecognizerCount() {
+        return grammarRecognizers.get();
+    }
+
+    private static void warm(Recognizer recognizer) {
+        recognizer.acceptWaveForm(WARM_UP_AUDIO, WARM_UP_AUDIO.length);
+        recognizer.getFinalResult();
+        recognizer.reset();
+    }
+
+    /**
+     * Reserves a slot under the grammar recognizer cap, closing an idle recognizer of another grammar if needed.
+     */
+    private boolean reserveGrammarSlot(KeyedPool requester) {
+        while (true) {
+            int current = grammarRecognizers.get();
+            if (current < maxGrammarRecognizers) {
+                if (grammarRecognizers.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                continue;
+            }
+            if (!closeIdleGrammarRecognizer(requester)) {
+                return false;
+            }
+        }
+    }
+
+    private boolean closeIdleGrammarRecognizer(KeyedPool requester) {
+        for (KeyedPool pool : grammarPools.asMap().values()) {
+            if (pool == requester) continue;
+            Recognizer idle = pool.idle.poll();
+            if (idle != null) {
+                pool.discard(idle);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getBorrowedCount() {
+        return outstanding.size();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public long getWaitCount() {
+        return waitCount.sum();
+    }
+
+    public long getWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    private record PoolKey(float sampleRate, String grammar) {
+    }
+
+    private final class KeyedPool {
+        private final PoolKey key;
+        private final BlockingQueue<Recognizer> idle = new LinkedBlockingQueue<>();
+        private final AtomicInteger created = new AtomicInteger();
+        private volatile boolean retired;
+
+        private KeyedPool(PoolKey key) {
+            this.key = key;
+        }
+
+        private boolean isGrammar() {
+            return key.grammar() != null;
+        }
+
+        private Recognizer tryCreate() {
+            if (created.incrementAndGet() > maxPerKey) {
+                created.decrementAndGet();
+                return null;
+            }
+            if (isGrammar() && !reserveGrammarSlot(this)) {
+                created.decrementAndGet();
+                return null;
+            }
+            Recognizer recognizer;
+            try {
+                recognizer = isGrammar()
+                        ? new Recognizer(model, key.sampleRate(), key.grammar())
+                        : new Recognizer(model, key.sampleRate());
+            } catch (IOException e) {
+                created.decrementAndGet();
+                if (isGrammar()) grammarRecognizers.decrementAndGet();
+                throw new RuntimeException("Không thể khởi tạo Vosk Recognizer", e);
+            }
+            createdCount.increment();
+            // Lần giải mã đầu tiên khởi tạo bộ giải mã native: làm trước khi giao cho request
+            warm(recognizer);
+            return recognizer;
+        }
+
+        private void release(Recognizer recognizer, boolean reusable) {
+            if (reusable && !retired) {
+                recognizer.reset();
+                idle.offer(recognizer);
+                // retire() có thể đã dọn hàng đợi giữa lần kiểm tra và offer: ai lấy được nó ra khỏi idle thì đóng,
+                // nên recognizer không bị đóng hai lần cũng không nằm lại trong pool đã bỏ
+                if (retired && idle.remove(recognizer)) {
+                    discard(recognizer);
+                }
+            } else {
+                discard(recognizer);
+            }
+        }
+
+        private void discard(Recognizer recognizer) {
+            recognizer.close();
+            created.decrementAndGet();
+            if (isGrammar()) grammarRecognizers.decrementAndGet();
+        }
+
+        private void retire() {
+            retired = true;
+            Recognizer recognizer;
+            while ((recognizer = idle.poll()) != null) {
+                discard(recognizer);
+            }
+        }
+    }
+
+    /**
+     * Borrowed recognizer; closing the lease resets it and hands it back to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private final KeyedPool pool;
+        private final Recognizer recognizer;
+        private final String borrowerThread = Thread.currentThread().getName();
+        private final AtomicBoolean returned = new AtomicBoolean();
+        private final AtomicBoolean reportedLeak = new AtomicBoolean();
+        private boolean broken;
+
+        private Lease(KeyedPool pool, Recognizer recognizer) {
+            this.pool = pool;
+            this.recognizer = recognizer;
+        }
+
+        public Recognizer recognizer() {
+            return recognizer;
+        }
+
+        /**
+         * Marks the recognizer as unusable (e.g. a native call failed) so it is closed instead of reused.
+         */
+        public void invalidate() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (returned.compareAndSet(false, true)) {
+                outstanding.remove(this);
+                pool.release(recognizer, !broken);
+            }
+        }
+    }
+}
@@ -2,11 +2,17 @@ package com.example.vocab.session.controller;
 
 import com.example.vocab.common.enums.SessionStatus;
 import com.example.vocab.session.domain.Session;
+import com.example.vocab.session.dto.SessionPage;
+import com.example.vocab.session.service.DeletionProgress;
 import com.example.vocab.session.service.SessionService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/sessions")
@@ -15,14 +21,28 @@ import java.util.List;
 public class SessionController {
     private final SessionService sessionService;
 
+    /**
+     * @deprecated returns at most the newest 500 sessions; use {@code GET /api/sessions/page}.
+     */
+    @Deprecated
     @GetMapping
-    public List<Session> getAllSessions() {
-        return sessionService.getAllSessions();
+    public CompletableFuture<List<Session>> getAllSessions(HttpServletResponse response) {
+        response.setHeader("Deprecation", "true");
+        response.setHeader(HttpHeaders.LINK, "</api/sessions/page>; rel=\"successor-version\"");
+        return sessionService.getAllSessionsAsync();
+    }
+
+    // Phân trang theo con trỏ: ?limit=20&cursor=<nextCursor của trang trước>&fields=topic,status
+    @GetMapping("/page")
+    public CompletableFuture<SessionPage> getSessionPage(@RequestParam(defaultValue = "20") int limit,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) List<String> fields) {
+        return sessionService.getSessionPageAsync(limit, cursor, fields);
     }
 
     @GetMapping("/{id}")
-    public Session getSessionById(@PathVariable String id) {
-        return sessionService.getSessionById(id);
+    public CompletableFuture<Session> getSessionById(@PathVariable String id) {
+        return sessionService.getSessionByIdAsync(id);
     }
 
     @PostMapping
@@ -42,8 +62,15 @@ public class SessionController {
         return sessionService.updateTopic(id, topic);
     }
 
+    // Xoá chạy nền: trả về 202 kèm tiến độ, theo dõi tiếp qua GET /{id}/deletion
     @DeleteMapping("/{id}")
-    public void deleteSession(@PathVariable String id) {
-        sessionService.deleteSession(id);
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public DeletionProgress deleteSession(@PathVariable String id) {
+        return sessionService.deleteSession(id);
+    }
+
+    @GetMapping("/{id}/deletion")
+    public DeletionProgress getDeletionProgress(@PathVariable String id) {
+        return sessionService.getDeletionProgress(id);
     }
 }
@@ -0,0 +1,22 @@
+package com.example.vocab.session.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a session deletion, persisted after every committed page so an interrupted job
+ * can resume from {@code lastWordId} instead of starting over.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeletionCheckpoint {
+    private String sessionId;
+    private Long startedAt;
+    private Long updatedAt;
+    private Long deletedWords;
+    private String lastWordId;
+}
@@ -0,0 +1,87 @@
+package com.example.vocab.session.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a submitted session, written once per submission next to the session so the results page
+ * is a single document read. Totals are precomputed; {@code outcomes} keeps the word order of the session.
+ * A Firestore document is capped at 1 MiB, so sessions with more than {@value #MAX_OUTCOMES} words (or very long
+ * texts such as pasted data URLs) get no snapshot: see {@link #fitsInOneDocument()}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultSnapshot {
+    private String sessionId;
+    private Long submittedAt;
+    private Integer total;
+    private Integer correctCount;
+    private Integer skippedCount;
+    private Double accuracy;
+    private List<Outcome> outcomes;
+
+    public static final int MAX_OUTCOMES = 1_000;
+    // Ước lượng thô: mỗi ký tự tối đa 3 byte UTF-8 (tiếng Việt) cộng phần tên trường của mỗi outcome
+    private static final long MAX_ESTIMATED_BYTES = 800_000;
+    private static final int OUTCOME_OVERHEAD_BYTES = 128;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder(toBuilder = true)
+    public static class Outcome {
+        private String id;
+        private String english;
+        private String vietnamese;
+        private String userAnswer;
+        private Boolean correct;
+        private Boolean skipped;
+        private String imageUrl;
+    }
+
+    /**
+     * Whether the snapshot can safely be written as one document; otherwise results are rebuilt from the words.
+     */
+    public boolean fitsInOneDocument() {
+        if (outcomes == null) {
+            return true;
+        }
+        if (outcomes.size() > MAX_OUTCOMES) {
+            return false;
+        }
+        long bytes = 0;
+        for (Outcome outcome : outcomes) {
+            bytes += OUTCOME_OVERHEAD_BYTES + 3L * (length(outcome.getId()) + length(outcome.getEnglish())
+                    + length(outcome.getVietnamese()) + length(outcome.getUserAnswer()) + length(outcome.getImageUrl()));
+        }
+        return bytes <= MAX_ESTIMATED_BYTES;
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+
+    public static ResultSnapshot of(String sessionId, long submittedAt, List<Outcome> outcomes) {
+        int correct = 0;
+        int skipped = 0;
+        for (Outcome outcome : outcomes) {
+            if (Boolean.TRUE.equals(outcome.getCorrect())) correct++;
+            if (Boolean.TRUE.equals(outcome.getSkipped())) skipped++;
+        }
+        return ResultSnapshot.builder()
+                .sessionId(sessionId)
+                .submittedAt(submittedAt)
+                .total(outcomes.size())
+                .correctCount(correct)
+                .skippedCount(skipped)
+                .accuracy(outcomes.isEmpty() ? 0.0 : (double) correct / outcomes.size())
+                .outcomes(List.copyOf(outcomes))
+                .build();
+    }
+}
@@ -13,6 +13,7 @@ import lombok.NoArgsConstructor;
 public class Session {
     private String id;
     private Long createdAt;
+    private Long updatedAt;
     private SessionStatus status;
     private String topic;
     private Integer wordCount;
@@ -0,0 +1,19 @@
+package com.example.vocab.session.dto;
+
+import com.example.vocab.session.domain.Session;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionPage {
+    private List<Session> items;
+    // null khi đã hết dữ liệu
+    private String nextCursor;
+}
@@ -0,0 +1,62 @@
+package com.example.vocab.session.repository;
+
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
+import com.example.vocab.session.domain.DeletionCheckpoint;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static com.example.vocab.common.firestore.FirestoreFutures.await;
+import static com.example.vocab.common.firestore.FirestoreFutures.toCompletable;
+
+@Repository
+public class DeletionCheckpointRepository {
+    private final Firestore firestore;
+    private static final String COLLECTION_NAME = "session_deletions";
+
+    public DeletionCheckpointRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    public List<DeletionCheckpoint> findAll() {
+        return await(toCompletable(firestore.collection(COLLECTION_NAME).get()).thenApply(snapshot -> {
+            List<DeletionCheckpoint> checkpoints = new ArrayList<>();
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                checkpoints.add(document.toObject(DeletionCheckpoint.class));
+            }
+            return checkpoints;
+        }), "Error fetching deletion checkpoints");
+    }
+
+    /**
+     * Creates {@code checkpoint}; {@code alsoWrite} adds writes (e.g. marking the session) that commit atomically with it.
+     */
+    public void create(DeletionCheckpoint checkpoint, Consumer<ChunkedWriteBatch> alsoWrite) {
+        ChunkedWriteBatch batch = new ChunkedWriteBatch(firestore);
+        batch.set(document(checkpoint.getSessionId()), checkpoint);
+        alsoWrite.accept(batch);
+        await(toCompletable(ApiFutures.allAsList(batch.commitAsync())), "Error starting session deletion");
+    }
+
+    public void save(DeletionCheckpoint checkpoint) {
+        await(toCompletable(document(checkpoint.getSessionId()).set(checkpoint)), "Error saving deletion checkpoint");
+    }
+
+    public void deleteBySessionId(String sessionId) {
+        await(toCompletable(document(sessionId).delete()), "Error deleting deletion checkpoint");
+    }
+
+    private DocumentReference document(String sessionId) {
+        if (sessionId == null) {
+            throw new IllegalArgumentException("Session ID cannot be null");
+        }
+        return firestore.collection(COLLECTION_NAME).document(sessionId);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.vocab.session.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPageRequestException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public InvalidPageRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.vocab.session.repository;
+
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
+import com.example.vocab.session.domain.ResultSnapshot;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
+import com.google.cloud.firestore.Firestore;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.vocab.common.firestore.FirestoreFutures.await;
+import static com.example.vocab.common.firestore.FirestoreFutures.toCompletable;
+
+@Repository
+public class ResultSnapshotRepository {
+    private final Firestore firestore;
+    private static final String COLLECTION_NAME = "session_results";
+
+    public ResultSnapshotRepository(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    public Optional<ResultSnapshot> findBySessionId(String sessionId) {
+        return await(findBySessionIdAsync(sessionId), "Error fetching session results");
+    }
+
+    public CompletableFuture<Optional<ResultSnapshot>> findBySessionIdAsync(String sessionId) {
+        return toCompletable(document(sessionId).get()).thenApply(document -> document.exists()
+                ? Optional.ofNullable(document.toObject(ResultSnapshot.class))
+                : Optional.empty());
+    }
+
+    /**
+     * Which of {@code sessionIds} already have a snapshot, checked in one getAll round trip without reading the outcomes.
+     */
+    public Set<String> findExistingSessionIds(Collection<String> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return Set.of();
+        }
+        DocumentReference[] refs = sessionIds.stream().map(this::document).toArray(DocumentReference[]::new);
+        return await(toCompletable(firestore.getAll(refs, FieldMask.of("sessionId")))
+                .thenApply(documents -> {
+                    Set<String> existing = new HashSet<>();
+                    for (DocumentSnapshot document : documents) {
+                        if (document.exists()) {
+                            existing.add(document.getId());
+                        }
+                    }
+                    return existing;
+                }), "Error checking session results");
+    }
+
+    public void save(ResultSnapshot snapshot) {
+        await(toCompletable(document(snapshot.getSessionId()).set(snapshot)), "Error saving session results");
+    }
+
+    /**
+     * Adds the snapshot to {@code batch} so it commits together with the submitted answers.
+     */
+    public void stage(ChunkedWriteBatch batch, ResultSnapshot snapshot) {
+        batch.set(document(snapshot.getSessionId()), snapshot);
+    }
+
+    public void stageDelete(ChunkedWriteBatch batch, String sessionId) {
+        batch.delete(document(sessionId));
+    }
+
+    public void deleteBySessionId(String sessionId) {
+        await(toCompletable(document(sessionId).delete()), "Error deleting session results");
+    }
+
+    private DocumentReference document(String sessionId) {
+        if (sessionId == null) {
+            throw new IllegalArgumentException("Session ID cannot be null");
+        }
+        return firestore.collection(COLLECTION_NAME).document(sessionId);
+    }
+}
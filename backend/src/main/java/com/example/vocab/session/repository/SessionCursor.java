@@ -0,0 +1,31 @@
+package com.example.vocab.session.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in the session list (ordered by createdAt, then document id, both descending).
+ * Sent to clients as an opaque URL-safe token.
+ */
+public record SessionCursor(long createdAt, String id) {
+    private static final String VERSION = "1";
+
+    public String encode() {
+        String raw = VERSION + ":" + createdAt + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SessionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3 || !VERSION.equals(parts[0]) || parts[2].isEmpty()) {
+                throw new InvalidPageRequestException("Invalid cursor");
+            }
+            return new SessionCursor(Long.parseLong(parts[1]), parts[2]);
+        } catch (IllegalArgumentException e) {
+            // Base64 hoặc số không hợp lệ (NumberFormatException cũng là IllegalArgumentException)
+            throw new InvalidPageRequestException("Invalid cursor");
+        }
+    }
+}
@@ -1,84 +1,220 @@
 package com.example.vocab.session.repository;
 
+import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
 import com.example.vocab.session.domain.Session;
+import com.example.vocab.session.dto.SessionPage;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.firestore.*;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.vocab.common.firestore.FirestoreFutures.await;
+import static com.example.vocab.common.firestore.FirestoreFutures.toCompletable;
 
 @Repository
 public class SessionRepository {
     private final Firestore firestore;
     private static final String COLLECTION_NAME = "sessions";
+    private static final String CREATED_AT_FIELD = "createdAt";
+    private static final Set<String> PROJECTABLE_FIELDS = Set.of("id", "createdAt", "status", "topic", "wordCount");
 
     public SessionRepository(Firestore firestore) {
         this.firestore = firestore;
     }
 
-    public List<Session> findAllByOrderByCreatedAtDesc() {
-        try {
-            ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
-                    .orderBy("createdAt", Query.Direction.DESCENDING)
-                    .get();
-            QuerySnapshot querySnapshot = future.get();
+    public List<Session> findAllByOrderByCreatedAtDesc(int limit) {
+        return await(findAllByOrderByCreatedAtDescAsync(limit), "Error fetching sessions");
+    }
+
+    /**
+     * The newest {@code limit} sessions; use {@link #findPageByOrderByCreatedAtDescAsync} to go further.
+     */
+    public CompletableFuture<List<Session>> findAllByOrderByCreatedAtDescAsync(int limit) {
+        ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
+                .orderBy("createdAt", Query.Direction.DESCENDING)
+                .limit(limit)
+                .get();
+        return toCompletable(future).thenApply(querySnapshot -> {
             List<QueryDocumentSnapshot> documents = querySnapshot.getDocuments();
             List<Session> sessions = new ArrayList<>();
             for (QueryDocumentSnapshot document : documents) {
                 sessions.add(document.toObject(Session.class));
             }
             return sessions;
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Error fetching sessions", e);
+        });
+    }
+
+    /**
+     * One page of sessions, newest first, starting after {@code after} (null for the first page).
+     * Ordering by createdAt then document id keeps pages stable when sessions share a timestamp, and
+     * {@code startAfter} makes each page cost the same however deep it is. When {@code fields} is not
+     * empty only those fields are read, plus the ones the cursor needs and {@code status}, which the service
+     * uses to hide sessions that are being deleted.
+     */
+    public CompletableFuture<SessionPage> findPageByOrderByCreatedAtDescAsync(int limit, SessionCursor after,
+                                                                             Collection<String> fields) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .orderBy(CREATED_AT_FIELD, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+        if (after != null) {
+            query = query.startAfter(after.createdAt(), after.id());
+        }
+        if (fields != null && !fields.isEmpty()) {
+            query = query.select(projection(fields));
         }
+        // Lấy thêm một bản ghi để biết còn trang sau hay không
+        return toCompletable(query.limit(limit + 1).get()).thenApply(querySnapshot -> {
+            List<QueryDocumentSnapshot> documents = querySnapshot.getDocuments();
+            List<Session> sessions = new ArrayList<>(Math.min(limit, documents.size()));
+            for (int i = 0; i < documents.size() && i < limit; i++) {
+                Session session = documents.get(i).toObject(Session.class);
+                session.setId(documents.get(i).getId());
+                sessions.add(session);
+            }
+            String nextCursor = null;
+            if (documents.size() > limit && !sessions.isEmpty()) {
+                Session last = sessions.get(sessions.size() - 1);
+                nextCursor = new SessionCursor(last.getCreatedAt() != null ? last.getCreatedAt() : 0L, last.getId()).encode();
+            }
+            return new SessionPage(sessions, nextCursor);
+        });
     }
 
-    public Optional<Session> findById(String id) {
-        try {
-            if (id == null) {
-                throw new IllegalArgumentException("Session ID cannot be null");
+    private static String[] projection(Collection<String> fields) {
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        selected.add(CREATED_AT_FIELD);
+        // Luôn đọc status: thiếu nó thì phiên DELETING lọt qua bộ lọc ở SessionService
+        selected.add("status");
+        for (String field : fields) {
+            if (!PROJECTABLE_FIELDS.contains(field)) {
+                throw new InvalidPageRequestException("Unknown session field: " + field);
             }
-            DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
-            ApiFuture<DocumentSnapshot> future = docRef.get();
-            DocumentSnapshot document = future.get();
-            if (document.exists()) {
-                return Optional.ofNullable(document.toObject(Session.class));
+            selected.add(field);
+        }
+        return selected.toArray(String[]::new);
+    }
+
+    /**
+     * Ids of up to {@code limit} sessions with {@code status}, in document id order after {@code afterId}; reads keys only.
+     */
+    public List<String> findIdsByStatus(SessionStatus status, String afterId, int limit) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("status", status.name())
+                .orderBy(FieldPath.documentId())
+                .select(FieldPath.documentId())
+                .limit(limit);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+        return await(toCompletable(query.get()).thenApply(snapshot -> {
+            List<String> ids = new ArrayList<>(snapshot.size());
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                ids.add(document.getId());
             }
-            return Optional.empty();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Error fetching session", e);
+            return ids;
+        }), "Error fetching sessions by status");
+    }
+
+    public Optional<Session> findById(String id) {
+        return await(findByIdAsync(id), "Error fetching session");
+    }
+
+    public CompletableFuture<Optional<Session>> findByIdAsync(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Session ID cannot be null");
         }
+        DocumentReference docRef = firestore.collection(COLLECTION_NAME).document(id);
+        return toCompletable(docRef.get()).thenApply(document -> document.exists()
+                ? Optional.ofNullable(document.toObject(Session.class))
+                : Optional.empty());
+    }
+
+    public Optional<SessionVersion> findVersion(String id) {
+        return await(findVersionAsync(id), "Error fetching session");
+    }
+
+    /**
+     * Reads only the status and the document's update time, for {@link #stageUpdate(ChunkedWriteBatch, String,
+     * SessionUpdate, SessionVersion)}.
+     */
+    public CompletableFuture<Optional<SessionVersion>> findVersionAsync(String id) {
+        return toCompletable(document(id).get(FieldMask.of("status"))).thenApply(document -> {
+            if (!document.exists()) {
+                return Optional.empty();
+            }
+            String status = document.getString("status");
+            return Optional.of(new SessionVersion(status != null ? SessionStatus.valueOf(status) : null,
+                    document.getUpdateTime()));
+        });
     }
 
     public Session save(Session session) {
-        try {
-            if (session.getId() == null) {
-                DocumentReference docRef = firestore.collection(COLLECTION_NAME).document();
-                session.setId(docRef.getId());
-                if (session.getCreatedAt() == null) {
-                    session.setCreatedAt(System.currentTimeMillis());
-                }
-                docRef.set(session).get();
-            } else {
-                String sessionId = session.getId();
-                if (sessionId == null) {
-                    throw new IllegalArgumentException("Session ID cannot be null for update");
-                }
-                firestore.collection(COLLECTION_NAME).document(sessionId).set(session).get();
+        return await(saveAsync(session), "Error saving session");
+    }
+
+    public CompletableFuture<Session> saveAsync(Session session) {
+        DocumentReference docRef;
+        if (session.getId() == null) {
+            docRef = firestore.collection(COLLECTION_NAME).document();
+            session.setId(docRef.getId());
+            if (session.getCreatedAt() == null) {
+                session.setCreatedAt(System.currentTimeMillis());
             }
-            return session;
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Error saving session", e);
+        } else {
+            docRef = firestore.collection(COLLECTION_NAME).document(session.getId());
         }
+        return toCompletable(docRef.set(session)).thenApply(result -> session);
     }
 
-    public void deleteById(String id) {
+    /**
+     * Applies {@code update} with a single field-masked write; no read of the current document is needed.
+     */
+    public void update(String id, SessionUpdate update) {
+        await(updateAsync(id, update), "Error updating session");
+    }
+
+    public CompletableFuture<Void> updateAsync(String id, SessionUpdate update) {
+        return toCompletable(document(id).update(update.toFields(System.currentTimeMillis())))
+                .thenApply(result -> null);
+    }
+
+    /**
+     * Adds {@code update} to {@code batch} so it commits together with the caller's other writes.
+     */
+    public void stageUpdate(ChunkedWriteBatch batch, String id, SessionUpdate update) {
+        batch.update(document(id), update.toFields(System.currentTimeMillis()));
+    }
+
+    /**
+     * Like {@link #stageUpdate(ChunkedWriteBatch, String, SessionUpdate)}, but the batch chunk fails unless the
+     * session is still at {@code expected}, so a write checked against one version cannot land on a later one.
+     */
+    public void stageUpdate(ChunkedWriteBatch batch, String id, SessionUpdate update, SessionVersion expected) {
+        batch.update(document(id), update.toFields(System.currentTimeMillis()),
+                Precondition.updatedAt(expected.updateTime()));
+    }
+
+    private DocumentReference document(String id) {
         if (id == null) {
             throw new IllegalArgumentException("Session ID cannot be null");
         }
-        firestore.collection(COLLECTION_NAME).document(id).delete();
+        return firestore.collection(COLLECTION_NAME).document(id);
+    }
+
+    public void deleteById(String id) {
+        await(deleteByIdAsync(id), "Error deleting session");
+    }
+
+    public CompletableFuture<Void> deleteByIdAsync(String id) {
+        return toCompletable(document(id).delete()).thenApply(result -> null);
     }
 }
@@ -0,0 +1,39 @@
+package com.example.vocab.session.repository;
+
+import com.example.vocab.common.enums.SessionStatus;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Partial change to a session document. Only the non-null fields are written (plus updatedAt),
+ * so concurrent updates of different fields do not overwrite each other.
+ */
+@Getter
+@Builder
+public class SessionUpdate {
+    private final SessionStatus status;
+    private final Integer wordCount;
+    private final String topic;
+
+    public static SessionUpdate status(SessionStatus status) {
+        return builder().status(status).build();
+    }
+
+    Map<String, Object> toFields(long now) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (status != null) {
+            fields.put("status", status.name());
+        }
+        if (wordCount != null) {
+            fields.put("wordCount", wordCount);
+        }
+        if (topic != null) {
+            fields.put("topic", topic);
+        }
+        fields.put("updatedAt", now);
+        return fields;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.vocab.session.repository;
+
+import com.example.vocab.common.enums.SessionStatus;
+import com.google.cloud.Timestamp;
+
+/**
+ * Status and last update time of a session as read before a write; writes staged against it
+ * fail if the session document has changed since (for example because its deletion started).
+ */
+public record SessionVersion(SessionStatus status, Timestamp updateTime) {
+}
@@ -0,0 +1,102 @@
+package com.example.vocab.session.service;
+
+import com.example.vocab.session.domain.DeletionCheckpoint;
+
+/**
+ * Live progress of one session deletion, as shown by the job endpoint and the stats page.
+ */
+public class DeletionProgress {
+    public enum State {
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private final String sessionId;
+    private final long startedAt;
+    // Thông lượng tính theo lần chạy hiện tại, không tính phần đã xoá trước khi khởi động lại
+    private final long resumedAtNanos = System.nanoTime();
+    private final long deletedBeforeResume;
+    private volatile long deletedWords;
+    private volatile String lastWordId;
+    private volatile State state = State.RUNNING;
+    private volatile String error;
+    private volatile long finishedAt;
+    private volatile long finishedAtNanos;
+
+    DeletionProgress(DeletionCheckpoint checkpoint) {
+        this.sessionId = checkpoint.getSessionId();
+        this.startedAt = checkpoint.getStartedAt() != null ? checkpoint.getStartedAt() : System.currentTimeMillis();
+        this.deletedBeforeResume = checkpoint.getDeletedWords() != null ? checkpoint.getDeletedWords() : 0L;
+        this.deletedWords = deletedBeforeResume;
+        this.lastWordId = checkpoint.getLastWordId();
+    }
+
+    synchronized void advance(int deleted, String lastWordId) {
+        this.deletedWords += deleted;
+        this.lastWordId = lastWordId;
+    }
+
+    void complete() {
+        finish(State.DONE, null);
+    }
+
+    void fail(Throwable cause) {
+        finish(State.FAILED, cause.getMessage());
+    }
+
+    private void finish(State state, String error) {
+        this.finishedAt = System.currentTimeMillis();
+        this.finishedAtNanos = System.nanoTime();
+        this.error = error;
+        this.state = state;
+    }
+
+    DeletionCheckpoint toCheckpoint() {
+        return DeletionCheckpoint.builder()
+                .sessionId(sessionId)
+                .startedAt(startedAt)
+                .updatedAt(System.currentTimeMillis())
+                .deletedWords(deletedWords)
+                .lastWordId(lastWordId)
+                .build();
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getDeletedWords() {
+        return deletedWords;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public Long getFinishedAt() {
+        return state == State.RUNNING ? null : finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public String getLastWordId() {
+        return lastWordId;
+    }
+
+    public double getElapsedSeconds() {
+        long end = state == State.RUNNING ? System.nanoTime() : finishedAtNanos;
+        return (end - resumedAtNanos) / 1e9;
+    }
+
+    public double getWordsPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds > 0 ? (deletedWords - deletedBeforeResume) / seconds : 0.0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.vocab.session.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SessionDeletingException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public SessionDeletingException(String sessionId) {
+        super("Session " + sessionId + " is being deleted");
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.vocab.session.service;
+
+import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.session.domain.DeletionCheckpoint;
+import com.example.vocab.session.repository.DeletionCheckpointRepository;
+import com.example.vocab.session.repository.ResultSnapshotRepository;
+import com.example.vocab.session.repository.SessionRepository;
+import com.example.vocab.session.repository.SessionUpdate;
+import com.example.vocab.word.service.WordService;
+import com.google.cloud.firestore.DocumentReference;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.vocab.common.firestore.FirestoreFutures.await;
+
+/**
+ * Deletes a session and its words in the background.
+ * The session is marked {@link SessionStatus#DELETING} straight away; the job then pages through word
+ * references (keys only) and deletes each page in parallel batches while the next page is fetched.
+ * A checkpoint is saved after every page, and jobs still pending at startup are resumed from it.
+ * Progress across jobs is published as {@code session.deletion.*} meters.
+ */
+@Component
+@Slf4j
+public class SessionDeletionJob implements MeterBinder {
+    private final SessionRepository sessionRepository;
+    private final DeletionCheckpointRepository checkpointRepository;
+    private final ResultSnapshotRepository resultSnapshotRepository;
+    private final WordService wordService;
+    private final int pageSize;
+    private final int batchSize;
+    private final Duration retention;
+    private final ExecutorService executor;
+    private final Map<String, DeletionProgress> jobs = new ConcurrentHashMap<>();
+    private final LongAdder deletedWords = new LongAdder();
+    private final LongAdder completedJobs = new LongAdder();
+    private final LongAdder failedJobs = new LongAdder();
+
+    public SessionDeletionJob(SessionRepository sessionRepository,
+                              DeletionCheckpointRepository checkpointRepository,
+                              ResultSnapshotRepository resultSnapshotRepository,
+                              WordService wordService,
+                              @Value("${app.deletion.page-size:2000}") int pageSize,
+                              @Value("${app.deletion.batch-size:500}") int batchSize,
+                              @Value("${app.deletion.concurrency:2}") int concurrency,
+                              @Value("${app.deletion.retention:1h}") Duration retention) {
+        this.sessionRepository = sessionRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.resultSnapshotRepository = resultSnapshotRepository;
+        this.wordService = wordService;
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+        this.retention = retention;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "session-deletion-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Marks the session as deleting and schedules the job; calling it again for a failed job restarts it
+     * from its last checkpoint.
+     */
+    public synchronized DeletionProgress start(String sessionId) {
+        pruneFinished();
+        DeletionProgress running = jobs.get(sessionId);
+        if (running != null && running.getState() == DeletionProgress.State.RUNNING) {
+            return running;
+        }
+        DeletionCheckpoint checkpoint;
+        if (running != null && running.getState() == DeletionProgress.State.FAILED) {
+            checkpoint = running.toCheckpoint();
+        } else {
+            sessionRepository.findById(sessionId).orElseThrow(() -> new RuntimeException("Session not found"));
+            long now = System.currentTimeMillis();
+            checkpoint = DeletionCheckpoint.builder()
+                    .sessionId(sessionId)
+                    .startedAt(now)
+                    .updatedAt(now)
+                    .deletedWords(0L)
+                    .build();
+            checkpointRepository.create(checkpoint, batch ->
+                    sessionRepository.stageUpdate(batch, sessionId, SessionUpdate.status(SessionStatus.DELETING)));
+        }
+        return schedule(checkpoint);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        List<DeletionCheckpoint> pending;
+        try {
+            pending = checkpointRepository.findAll();
+        } catch (RuntimeException e) {
+            log.warn("Cannot load pending session deletions: {}", e.getMessage());
+            return;
+        }
+        for (DeletionCheckpoint checkpoint : pending) {
+            log.info("Resuming deletion of session {} after {} words", checkpoint.getSessionId(), checkpoint.getDeletedWords());
+            schedule(checkpoint);
+        }
+    }
+
+    public DeletionProgress getProgress(String sessionId) {
+        DeletionProgress progress = jobs.get(sessionId);
+        if (progress == null) {
+            throw new RuntimeException("No deletion job for session");
+        }
+        return progress;
+    }
+
+    public Collection<DeletionProgress> getJobs() {
+        return List.copyOf(jobs.values());
+    }
+
+    private DeletionProgress schedule(DeletionCheckpoint checkpoint) {
+        DeletionProgress progress = new DeletionProgress(checkpoint);
+        jobs.put(checkpoint.getSessionId(), progress);
+        executor.execute(() -> run(progress));
+        return progress;
+    }
+
+    private void run(DeletionProgress progress) {
+        String sessionId = progress.getSessionId();
+        try {
+            String after = progress.getLastWordId();
+            CompletableFuture<List<DocumentReference>> page = wordService.getWordRefsAsync(sessionId, after, pageSize);
+            while (true) {
+                List<DocumentReference> refs = await(page, "Error fetching word references");
+                if (refs.isEmpty()) {
+                    break;
+                }
+                after = refs.get(refs.size() - 1).getId();
+                CompletableFuture<Void> deleted = wordService.deleteWordsAsync(sessionId, refs, batchSize);
+                // Đọc trang kế tiếp trong lúc các batch xoá đang commit
+                page = refs.size() < pageSize
+                        ? CompletableFuture.completedFuture(List.of())
+                        : wordService.getWordRefsAsync(sessionId, after, pageSize);
+                await(deleted, "Error deleting words");
+                progress.advance(refs.size(), after);
+                deletedWords.add(refs.size());
+                checkpointRepository.save(progress.toCheckpoint());
+            }
+            resultSnapshotRepository.deleteBySessionId(sessionId);
+            sessionRepository.deleteById(sessionId);
+            checkpointRepository.deleteBySessionId(sessionId);
+            completedJobs.increment();
+            progress.complete();
+            log.info("Deleted session {} with {} words in {}s", sessionId, progress.getDeletedWords(),
+                    String.format("%.1f", progress.getElapsedSeconds()));
+        } catch (RuntimeException e) {
+            // Checkpoint vẫn còn: gọi xoá lại hoặc khởi động lại ứng dụng sẽ chạy tiếp
+            failedJobs.increment();
+            progress.fail(e);
+            log.error("Deletion of session {} failed after {} words: {}", sessionId, progress.getDeletedWords(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("session.deletion.running", this, job -> job.countJobs(DeletionProgress.State.RUNNING))
+                .description("Deletion jobs in progress")
+                .register(registry);
+        Gauge.builder("session.deletion.failed", this, job -> job.countJobs(DeletionProgress.State.FAILED))
+                .description("Failed deletion jobs waiting to be restarted")
+                .register(registry);
+        Gauge.builder("session.deletion.rate", this, SessionDeletionJob::getWordsPerSecond)
+                .description("Words per second deleted by the running jobs together")
+                .baseUnit("words")
+                .register(registry);
+        FunctionCounter.builder("session.deletion.words", deletedWords, LongAdder::sum)
+                .description("Words deleted together with their session")
+                .register(registry);
+        FunctionCounter.builder("session.deletion.jobs", completedJobs, LongAdder::sum)
+                .tag("outcome", "done")
+                .register(registry);
+        FunctionCounter.builder("session.deletion.jobs", failedJobs, LongAdder::sum)
+                .tag("outcome", "failed")
+                .register(registry);
+    }
+
+    private long countJobs(DeletionProgress.State state) {
+        return jobs.values().stream().filter(progress -> progress.getState() == state).count();
+    }
+
+    private double getWordsPerSecond() {
+        return jobs.values().stream()
+                .filter(progress -> progress.getState() == DeletionProgress.State.RUNNING)
+                .mapToDouble(DeletionProgress::getWordsPerSecond)
+                .sum();
+    }
+
+    private void pruneFinished() {
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        List<String> expired = new ArrayList<>();
+        jobs.forEach((sessionId, progress) -> {
+            if (progress.getState() == DeletionProgress.State.DONE && progress.getFinishedAt() < cutoff) {
+                expired.add(sessionId);
+            }
+        });
+        expired.forEach(jobs::remove);
+    }
+
+    @PreDestroy
+    public void close() {
+        // Job đang chạy dừng giữa chừng và được tiếp tục từ checkpoint ở lần khởi động sau
+        executor.shutdownNow();
+    }
+}
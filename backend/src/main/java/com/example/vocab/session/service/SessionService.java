@@ -1,23 +1,65 @@
 package com.example.vocab.session.service;
 
 import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
+import com.example.vocab.session.domain.ResultSnapshot;
 import com.example.vocab.session.domain.Session;
+import com.example.vocab.session.dto.SessionPage;
+import com.example.vocab.session.repository.InvalidPageRequestException;
+import com.example.vocab.session.repository.ResultSnapshotRepository;
+import com.example.vocab.session.repository.SessionCursor;
 import com.example.vocab.session.repository.SessionRepository;
-import com.example.vocab.word.service.WordService;
+import com.example.vocab.session.repository.SessionUpdate;
+import com.example.vocab.session.repository.SessionVersion;
+import com.example.vocab.word.domain.Word;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 @SuppressWarnings("null")
 public class SessionService {
+    private static final int MAX_PAGE_SIZE = 100;
+    // Trần cho API cũ trả cả danh sách; client mới dùng getSessionPageAsync
+    static final int MAX_LIST_SIZE = 500;
+
     private final SessionRepository sessionRepository;
-    private final WordService wordService;
+    private final ResultSnapshotRepository resultSnapshotRepository;
+    private final SessionDeletionJob deletionJob;
 
+    /**
+     * The newest {@value #MAX_LIST_SIZE} sessions at most; older ones are only reachable through
+     * {@link #getSessionPageAsync}.
+     */
     public List<Session> getAllSessions() {
-        return sessionRepository.findAllByOrderByCreatedAtDesc();
+        return withoutDeleting(sessionRepository.findAllByOrderByCreatedAtDesc(MAX_LIST_SIZE));
+    }
+
+    public CompletableFuture<List<Session>> getAllSessionsAsync() {
+        return sessionRepository.findAllByOrderByCreatedAtDescAsync(MAX_LIST_SIZE).thenApply(SessionService::withoutDeleting);
+    }
+
+    public CompletableFuture<SessionPage> getSessionPageAsync(int limit, String cursor, Collection<String> fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPageRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        SessionCursor after = cursor != null && !cursor.isBlank() ? SessionCursor.decode(cursor) : null;
+        // Trang có thể ngắn hơn limit nếu có phiên đang bị xoá; nextCursor vẫn đúng
+        return sessionRepository.findPageByOrderByCreatedAtDescAsync(limit, after, fields)
+                .thenApply(page -> new SessionPage(withoutDeleting(page.getItems()), page.getNextCursor()));
+    }
+
+    private static List<Session> withoutDeleting(List<Session> sessions) {
+        return sessions.stream().filter(session -> session.getStatus() != SessionStatus.DELETING).toList();
     }
 
     public Session getSessionById(String id) {
@@ -25,6 +67,15 @@ public class SessionService {
                 .orElseThrow(() -> new RuntimeException("Session not found"));
     }
 
+    public CompletableFuture<Session> getSessionByIdAsync(String id) {
+        return sessionRepository.findByIdAsync(id)
+                .thenApply(session -> session.orElseThrow(() -> new RuntimeException("Session not found")));
+    }
+
+    public CompletableFuture<Session> saveAsync(Session session) {
+        return sessionRepository.saveAsync(session);
+    }
+
     public Session createSession(String topic) {
         Session session = Session.builder()
                 .status(SessionStatus.NEW)
@@ -35,25 +86,120 @@ public class SessionService {
     }
 
     public Session updateTopic(String id, String topic) {
-        Session session = getSessionById(id);
-        session.setTopic(topic != null && !topic.trim().isEmpty() ? topic : "Chưa thêm chủ đề");
-        return sessionRepository.save(session);
+        String effectiveTopic = topic != null && !topic.trim().isEmpty() ? topic : "Chưa thêm chủ đề";
+        sessionRepository.update(id, SessionUpdate.builder().topic(effectiveTopic).build());
+        return getSessionById(id);
     }
 
     public Session updateStatus(String id, SessionStatus status) {
-        Session session = getSessionById(id);
-        session.setStatus(status);
-        return sessionRepository.save(session);
+        sessionRepository.update(id, SessionUpdate.status(status));
+        return getSessionById(id);
     }
 
     public void updateWordCount(String id, int count) {
-        Session session = getSessionById(id);
-        session.setWordCount(count);
-        sessionRepository.save(session);
+        sessionRepository.update(id, SessionUpdate.builder().wordCount(count).build());
+    }
+
+    /**
+     * Stages a partial session update in {@code batch}, to be committed with the caller's other writes.
+     */
+    public void stageUpdate(ChunkedWriteBatch batch, String id, SessionUpdate update) {
+        sessionRepository.stageUpdate(batch, id, update);
+    }
+
+    /**
+     * Stages {@code update} so that it only applies if the session is still at {@code version}.
+     */
+    public void stageUpdate(ChunkedWriteBatch batch, String id, SessionUpdate update, SessionVersion version) {
+        sessionRepository.stageUpdate(batch, id, update, version);
+    }
+
+    /**
+     * Checks that words and answers may still be written to the session: it must exist and not be
+     * {@link SessionStatus#DELETING}. Stage the session update with the returned version, so a deletion
+     * that starts before the commit makes the write fail instead of bringing the session back.
+     */
+    public SessionVersion requireWritable(String id) {
+        return writable(id, sessionRepository.findVersion(id));
+    }
+
+    public CompletableFuture<SessionVersion> requireWritableAsync(String id) {
+        return sessionRepository.findVersionAsync(id).thenApply(version -> writable(id, version));
+    }
+
+    private static SessionVersion writable(String id, Optional<SessionVersion> version) {
+        SessionVersion found = version.orElseThrow(() -> new RuntimeException("Session not found"));
+        if (found.status() == SessionStatus.DELETING) {
+            throw new SessionDeletingException(id);
+        }
+        return found;
+    }
+
+    public Optional<ResultSnapshot> getResultSnapshot(String sessionId) {
+        return resultSnapshotRepository.findBySessionId(sessionId);
+    }
+
+    /**
+     * Stages the results snapshot in {@code batch}, to be committed with the submitted answers.
+     */
+    public void stageResultSnapshot(ChunkedWriteBatch batch, ResultSnapshot snapshot) {
+        resultSnapshotRepository.stage(batch, snapshot);
+    }
+
+    /**
+     * Stages the snapshot with the new text and image of {@code words}, so an edit on the results page
+     * shows up in the results; does nothing if the session has no snapshot.
+     */
+    public void stageResultSnapshotPatch(ChunkedWriteBatch batch, String sessionId, List<Word> words) {
+        resultSnapshotRepository.findBySessionId(sessionId).ifPresent(snapshot -> {
+            Map<String, Word> byId = new HashMap<>();
+            words.forEach(word -> byId.put(word.getId(), word));
+            List<ResultSnapshot.Outcome> outcomes = new ArrayList<>(snapshot.getOutcomes().size());
+            for (ResultSnapshot.Outcome outcome : snapshot.getOutcomes()) {
+                Word word = byId.get(outcome.getId());
+                outcomes.add(word == null ? outcome : outcome.toBuilder()
+                        .english(word.getEnglish())
+                        .vietnamese(word.getVietnamese())
+                        .imageUrl(word.getImageUrl())
+                        .build());
+            }
+            snapshot.setOutcomes(outcomes);
+            if (snapshot.fitsInOneDocument()) {
+                resultSnapshotRepository.stage(batch, snapshot);
+            } else {
+                // Ảnh mới làm bản chụp vượt giới hạn document: bỏ nó, kết quả dựng lại từ các từ
+                resultSnapshotRepository.stageDelete(batch, sessionId);
+            }
+        });
+    }
+
+    /**
+     * Stages removal of the snapshot: once the word list is replaced the old results no longer match it.
+     */
+    public void stageResultSnapshotDelete(ChunkedWriteBatch batch, String sessionId) {
+        resultSnapshotRepository.stageDelete(batch, sessionId);
+    }
+
+    public void saveResultSnapshot(ResultSnapshot snapshot) {
+        resultSnapshotRepository.save(snapshot);
+    }
+
+    public List<String> getSessionIdsByStatus(SessionStatus status, String afterId, int limit) {
+        return sessionRepository.findIdsByStatus(status, afterId, limit);
+    }
+
+    public Set<String> getSessionIdsWithResultSnapshot(Collection<String> sessionIds) {
+        return resultSnapshotRepository.findExistingSessionIds(sessionIds);
+    }
+
+    /**
+     * Marks the session as deleting and removes it with its words in the background.
+     */
+    public DeletionProgress deleteSession(String id) {
+        return deletionJob.start(id);
     }
 
-    public void deleteSession(String id) {
-        wordService.deleteWordsBySessionId(id);
-        sessionRepository.deleteById(id);
+    public DeletionProgress getDeletionProgress(String id) {
+        return deletionJob.getProgress(id);
     }
 }
@@ -1,6 +1,8 @@
 package com.example.vocab.word.controller;
 
 import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.session.repository.SessionUpdate;
+import com.example.vocab.session.repository.SessionVersion;
 import com.example.vocab.session.service.SessionService;
 import com.example.vocab.word.domain.Word;
 import com.example.vocab.word.service.WordService;
@@ -8,6 +10,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/sessions/{sessionId}/words")
@@ -18,20 +21,36 @@ public class WordController {
     private final SessionService sessionService;
 
     @GetMapping
-    public List<Word> getWords(@PathVariable String sessionId) {
-        return wordService.getWordsBySessionId(sessionId);
+    public CompletableFuture<List<Word>> getWords(@PathVariable String sessionId) {
+        return wordService.getWordsBySessionIdAsync(sessionId);
     }
 
     @PostMapping
-    public List<Word> saveWords(@PathVariable String sessionId, @RequestBody List<Word> words) {
-        List<Word> savedWords = wordService.saveWords(sessionId, words);
-        sessionService.updateWordCount(sessionId, savedWords.size());
-        sessionService.updateStatus(sessionId, SessionStatus.LEARNING);
-        return savedWords;
+    public CompletableFuture<List<Word>> saveWords(@PathVariable String sessionId, @RequestBody List<Word> words) {
+        // Word count and status are staged first, in the first chunk: if the session does not exist that chunk
+        // fails and no word is written. Up to 500 writes this is one atomic commit; beyond that the later chunks
+        // follow the first and a failure there can leave the save partly applied.
+        // Phiên đang xoá thì trả 409; nếu việc xoá bắt đầu trong lúc lưu, precondition làm chunk đầu thất bại
+        return sessionService.requireWritableAsync(sessionId).thenCompose(version ->
+                wordService.saveWordsAsync(sessionId, words, (batch, savedWords) -> {
+                    sessionService.stageUpdate(batch, sessionId, SessionUpdate.builder()
+                            .wordCount(savedWords.size())
+                            .status(SessionStatus.LEARNING)
+                            .build(), version);
+                    // Danh sách từ đã thay: kết quả cũ không còn khớp, trang kết quả dựng lại từ các từ
+                    sessionService.stageResultSnapshotDelete(batch, sessionId);
+                }));
     }
 
     @PutMapping("/{wordId}")
     public Word updateWord(@PathVariable String sessionId, @PathVariable String wordId, @RequestBody Word wordData) {
-        return wordService.updateWord(wordId, wordData.getEnglish(), wordData.getVietnamese(), wordData.getImageUrl());
+        SessionVersion version = sessionService.requireWritable(sessionId);
+        // Sửa từ ở trang kết quả: cập nhật luôn bản chụp kết quả trong cùng commit. Chạm updatedAt của phiên
+        // với precondition để lần sửa không lọt vào một phiên vừa chuyển sang DELETING
+        return wordService.updateWord(wordId, wordData.getEnglish(), wordData.getVietnamese(), wordData.getImageUrl(),
+                (batch, savedWords) -> {
+                    sessionService.stageUpdate(batch, sessionId, SessionUpdate.builder().build(), version);
+                    sessionService.stageResultSnapshotPatch(batch, savedWords.get(0).getSessionId(), savedWords);
+                });
     }
 }
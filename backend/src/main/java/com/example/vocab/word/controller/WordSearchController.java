@@ -0,0 +1,22 @@
+package com.example.vocab.word.controller;
+
+import com.example.vocab.word.search.WordSearchHit;
+import com.example.vocab.word.search.WordSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/words")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class WordSearchController {
+    private final WordSearchIndex wordSearchIndex;
+
+    // Tìm theo tiếng Anh hoặc tiếng Việt (không dấu cũng được), chấp nhận lỗi gõ nhỏ: ?q=qua tao&limit=10
+    @GetMapping("/search")
+    public List<WordSearchHit> search(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return wordSearchIndex.search(q, limit);
+    }
+}
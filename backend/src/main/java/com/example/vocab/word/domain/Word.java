@@ -8,7 +8,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Word {
     private String id;
     private String sessionId;
@@ -19,4 +19,12 @@ public class Word {
     private Boolean correct;
     private String imageUrl;
     private String example;
+    // Khóa ngẫu nhiên trong [0, 1) dùng để lấy mẫu từ ngẫu nhiên mà không quét cả collection
+    private Double randomKey;
+    // Lịch ôn tập SM-2; dueAt == null nghĩa là từ chưa được chấm lần nào nên chưa vào hàng đợi ôn tập
+    private Double ease;
+    private Integer intervalDays;
+    private Integer repetitions;
+    private Long dueAt;
+    private Long lastReviewedAt;
 }
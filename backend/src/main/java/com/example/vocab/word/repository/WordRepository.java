@@ -1,34 +1,64 @@
 package com.example.vocab.word.repository;
 
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
 import com.example.vocab.word.domain.Word;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
 import com.google.cloud.firestore.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static com.example.vocab.common.firestore.FirestoreFutures.await;
+import static com.example.vocab.common.firestore.FirestoreFutures.toCompletable;
 
 @Repository
 public class WordRepository {
     private final Firestore firestore;
     private static final String COLLECTION_NAME = "words";
+    private static final String RANDOM_KEY_FIELD = "randomKey";
+    private static final String DUE_AT_FIELD = "dueAt";
+    private static final int MAX_SAMPLE_ROUNDS = 4;
+    // Cửa sổ chấp nhận = ACCEPT_WINDOW / số từ; nhỏ hơn thì đều hơn nhưng tốn nhiều lần đọc hơn (~22% probe được nhận)
+    private static final double ACCEPT_WINDOW = 0.25;
+    private static final int PROBES_PER_WORD = 5;
+    private static final long KEYED_COUNT_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final ApplicationEventPublisher eventPublisher;
+    private volatile KeyedCount keyedWordCount;
 
-    public WordRepository(Firestore firestore) {
+    private record KeyedCount(long count, long readAtNanos) {
+    }
+
+    public WordRepository(Firestore firestore, ApplicationEventPublisher eventPublisher) {
         this.firestore = firestore;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Word> findAllBySessionIdOrderByOrderIndexAsc(String sessionId) {
-        try {
-            ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
-                    .whereEqualTo("sessionId", sessionId)
-                    .get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+        return await(findAllBySessionIdOrderByOrderIndexAscAsync(sessionId), "Error fetching words");
+    }
+
+    public CompletableFuture<List<Word>> findAllBySessionIdOrderByOrderIndexAscAsync(String sessionId) {
+        ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("sessionId", sessionId)
+                .get();
+        return toCompletable(future).thenApply(snapshot -> {
             List<Word> words = new ArrayList<>();
-            for (QueryDocumentSnapshot document : documents) {
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
                 words.add(document.toObject(Word.class));
             }
             // Sort manually to avoid composite index requirement
@@ -40,85 +70,347 @@ public class WordRepository {
                 return idxA.compareTo(idxB);
             });
             return words;
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Error fetching words", e);
-        }
+        });
     }
 
+    /**
+     * Up to {@code limit} distinct random words, about k index reads per word regardless of collection size.
+     * A probe draws a pivot r and reads the first word with {@code randomKey >= r}, so on its own a word is picked
+     * in proportion to the gap before its key. To even that out a probe is only accepted when the key lies within
+     * {@code ACCEPT_WINDOW / n} of the pivot: every word whose gap is at least that wide (about 78% of them) then has
+     * the same chance, and only words in tighter gaps are still picked less often. After {@code MAX_SAMPLE_ROUNDS}
+     * rounds the remaining slots are filled from rejected probes, so the result is never short while words exist.
+     */
     public List<Word> findRandomWords(int limit) {
         try {
-            ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
-                    .limit(500)
-                    .get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            List<Word> words = new ArrayList<>();
-            for (QueryDocumentSnapshot document : documents) {
-                words.add(document.toObject(Word.class));
+            double window = ACCEPT_WINDOW / Math.max(1, countKeyedWords());
+            Map<String, Word> picked = new LinkedHashMap<>();
+            Map<String, Word> rejected = new LinkedHashMap<>();
+            for (int round = 0; round < MAX_SAMPLE_ROUNDS && picked.size() < limit; round++) {
+                List<Double> pivots = new ArrayList<>();
+                List<ApiFuture<QuerySnapshot>> probes = new ArrayList<>();
+                for (int i = 0; i < (limit - picked.size()) * PROBES_PER_WORD; i++) {
+                    double pivot = ThreadLocalRandom.current().nextDouble();
+                    pivots.add(pivot);
+                    probes.add(randomKeyQuery(pivot).get());
+                }
+                for (int i = 0; i < probes.size(); i++) {
+                    double pivot = pivots.get(i);
+                    List<QueryDocumentSnapshot> documents = probes.get(i).get().getDocuments();
+                    double distance;
+                    if (documents.isEmpty()) {
+                        // Pivot fell after the largest key: wrap around to the smallest one
+                        documents = randomKeyQuery(0.0).get().get().getDocuments();
+                        distance = 1.0 - pivot;
+                    } else {
+                        distance = -pivot;
+                    }
+                    for (QueryDocumentSnapshot document : documents) {
+                        Double key = document.getDouble(RANDOM_KEY_FIELD);
+                        Word word = document.toObject(Word.class);
+                        if (key != null && distance + key <= window && picked.size() < limit) {
+                            picked.putIfAbsent(document.getId(), word);
+                        } else {
+                            rejected.putIfAbsent(document.getId(), word);
+                        }
+                    }
+                }
             }
-            Collections.shuffle(words);
-            return words.stream().limit(limit).collect(Collectors.toList());
+            for (Map.Entry<String, Word> fallback : rejected.entrySet()) {
+                if (picked.size() >= limit) break;
+                picked.putIfAbsent(fallback.getKey(), fallback.getValue());
+            }
+            return new ArrayList<>(picked.values());
         } catch (InterruptedException | ExecutionException e) {
             throw new RuntimeException("Error fetching random words", e);
         }
     }
 
-    public void deleteAllBySessionId(String sessionId) {
-        try {
-            ApiFuture<QuerySnapshot> future = firestore.collection(COLLECTION_NAME)
-                    .whereEqualTo("sessionId", sessionId)
-                    .get();
-            List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-            WriteBatch batch = firestore.batch();
-            for (QueryDocumentSnapshot document : documents) {
-                batch.delete(document.getReference());
+    // Số từ đã có randomKey, dùng để chọn cửa sổ chấp nhận; đếm bằng aggregation và giữ vài phút
+    private long countKeyedWords() throws InterruptedException, ExecutionException {
+        KeyedCount cached = keyedWordCount;
+        long now = System.nanoTime();
+        if (cached != null && now - cached.readAtNanos() < KEYED_COUNT_TTL_NANOS) {
+            return cached.count();
+        }
+        long count = firestore.collection(COLLECTION_NAME)
+                .whereGreaterThanOrEqualTo(RANDOM_KEY_FIELD, 0.0)
+                .count().get().get().getCount();
+        keyedWordCount = new KeyedCount(count, now);
+        return count;
+    }
+
+    /**
+     * Ids of up to {@code limit} words after {@code afterId} in document id order that have no {@code randomKey}
+     * yet; only that field is read. Returns the last id read as well so the caller can page on.
+     */
+    public RandomKeyPage findWithoutRandomKeyAfter(String afterId, int limit) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .orderBy(FieldPath.documentId())
+                .select(RANDOM_KEY_FIELD)
+                .limit(limit);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+        return await(toCompletable(query.get()).thenApply(snapshot -> {
+            List<String> missing = new ArrayList<>();
+            String last = null;
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                last = document.getId();
+                if (document.getDouble(RANDOM_KEY_FIELD) == null) {
+                    missing.add(document.getId());
+                }
             }
-            batch.commit().get();
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Error deleting words by session", e);
+            return new RandomKeyPage(missing, last);
+        }), "Error reading word keys");
+    }
+
+    public record RandomKeyPage(List<String> missingIds, String lastId) {
+    }
+
+    /**
+     * Gives each of {@code ids} a fresh random key; the other fields are left untouched.
+     */
+    public void assignRandomKeys(Collection<String> ids) {
+        ChunkedWriteBatch batch = new ChunkedWriteBatch(firestore);
+        for (String id : ids) {
+            batch.update(firestore.collection(COLLECTION_NAME).document(id),
+                    Map.of(RANDOM_KEY_FIELD, ThreadLocalRandom.current().nextDouble()));
+        }
+        await(toCompletable(ApiFutures.allAsList(batch.commitAsync())), "Error assigning random keys");
+        keyedWordCount = null;
+    }
+
+    private Query randomKeyQuery(double pivot) {
+        return firestore.collection(COLLECTION_NAME)
+                .whereGreaterThanOrEqualTo(RANDOM_KEY_FIELD, pivot)
+                .orderBy(RANDOM_KEY_FIELD)
+                .limit(1);
+    }
+
+    private static void assignRandomKey(Word word) {
+        if (word.getRandomKey() == null) {
+            word.setRandomKey(ThreadLocalRandom.current().nextDouble());
+        }
+    }
+
+    /**
+     * References to up to {@code limit} words of the session after {@code afterId}, in document id order.
+     * Only keys are read (no fields), so paging through a large session stays cheap.
+     */
+    public CompletableFuture<List<DocumentReference>> findRefsBySessionIdAsync(String sessionId, String afterId, int limit) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .whereEqualTo("sessionId", sessionId)
+                .orderBy(FieldPath.documentId())
+                .select(FieldPath.documentId())
+                .limit(limit);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
         }
+        return toCompletable(query.get()).thenApply(snapshot -> {
+            List<DocumentReference> refs = new ArrayList<>(snapshot.size());
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                refs.add(document.getReference());
+            }
+            return refs;
+        });
+    }
+
+    /**
+     * Deletes {@code refs} in batches of {@code batchSize}, committed in parallel.
+     */
+    public CompletableFuture<Void> deleteAllAsync(List<DocumentReference> refs, int batchSize) {
+        ChunkedWriteBatch batch = new ChunkedWriteBatch(firestore, batchSize);
+        for (DocumentReference ref : refs) {
+            batch.delete(ref);
+        }
+        List<String> ids = refs.stream().map(DocumentReference::getId).toList();
+        return toCompletable(ApiFutures.allAsList(batch.commitAsync())).thenApply(results -> {
+            eventPublisher.publishEvent(new WordsChangedEvent(List.of(), ids));
+            return null;
+        });
     }
 
     public Optional<Word> findById(String id) {
+        return await(findByIdAsync(id), "Error fetching word by id");
+    }
+
+    public CompletableFuture<Optional<Word>> findByIdAsync(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Word ID cannot be null");
+        }
+        return toCompletable(firestore.collection(COLLECTION_NAME).document(id).get())
+                .thenApply(doc -> doc.exists() ? Optional.ofNullable(doc.toObject(Word.class)) : Optional.empty());
+    }
+
+    /**
+     * Fetches all given words in a single getAll round trip.
+     * The result follows the iteration order of {@code ids}; missing documents are skipped.
+     */
+    public List<Word> findAllByIds(Collection<String> ids) {
+        return await(findAllByIdsAsync(ids), "Error fetching words by ids");
+    }
+
+    public CompletableFuture<List<Word>> findAllByIdsAsync(Collection<String> ids) {
+        List<DocumentReference> refs = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(id -> firestore.collection(COLLECTION_NAME).document(id))
+                .toList();
+        if (refs.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return toCompletable(firestore.getAll(refs.toArray(new DocumentReference[0]))).thenApply(documents -> {
+            List<Word> words = new ArrayList<>(documents.size());
+            for (DocumentSnapshot document : documents) {
+                if (document.exists()) {
+                    words.add(document.toObject(Word.class));
+                }
+            }
+            return words;
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} distinct English words starting with {@code prefix}, ignoring the case of the
+     * first letter ("ap" also finds "Apple"), reading only the english field.
+     * Firestore range queries are case-sensitive, so the lower-case and capitalised prefixes are queried in parallel.
+     */
+    public List<String> findEnglishByPrefix(String prefix, int limit) {
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        String capitalized = lower.isEmpty() ? lower : lower.substring(0, 1).toUpperCase(Locale.ROOT) + lower.substring(1);
         try {
-            if (id == null) {
-                throw new IllegalArgumentException("Word ID cannot be null");
+            List<ApiFuture<QuerySnapshot>> futures = new ArrayList<>();
+            for (String variant : lower.equals(capitalized) ? List.of(lower) : List.of(lower, capitalized)) {
+                futures.add(firestore.collection(COLLECTION_NAME)
+                        .whereGreaterThanOrEqualTo("english", variant)
+                        .whereLessThan("english", variant + "\uf8ff")
+                        .select("english")
+                        .limit(limit)
+                        .get());
             }
-            DocumentSnapshot doc = firestore.collection(COLLECTION_NAME).document(id).get().get();
-            if (doc.exists()) {
-                return Optional.ofNullable(doc.toObject(Word.class));
+            List<String> english = new ArrayList<>();
+            for (ApiFuture<QuerySnapshot> future : futures) {
+                for (QueryDocumentSnapshot document : future.get().getDocuments()) {
+                    String value = document.getString("english");
+                    if (value != null && english.size() < limit && !english.contains(value)) {
+                        english.add(value);
+                    }
+                }
             }
-            return Optional.empty();
+            return english;
         } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Error fetching word by id", e);
+            throw new RuntimeException("Error fetching words by prefix", e);
         }
     }
 
-    public List<Word> saveAll(List<Word> words) {
-        try {
-            WriteBatch batch = firestore.batch();
-            for (Word word : words) {
-                DocumentReference docRef;
-                if (word.getId() == null) {
-                    docRef = firestore.collection(COLLECTION_NAME).document();
-                    word.setId(docRef.getId());
-                } else {
-                    String wordId = word.getId();
-                    if (wordId == null) {
-                        throw new IllegalArgumentException("Word ID cannot be null for update");
-                    }
-                    docRef = firestore.collection(COLLECTION_NAME).document(wordId);
+    /**
+     * Due times of up to {@code limit} scheduled words ordered by (dueAt, id), starting after the given position
+     * (null for the start), keyed by word id. Served by the dueAt index and reads only that field;
+     * unscheduled words have no dueAt and are skipped.
+     */
+    public CompletableFuture<LinkedHashMap<String, Long>> findDueAtAfterAsync(Long afterDueAt, String afterId, int limit) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .orderBy(DUE_AT_FIELD)
+                .orderBy(FieldPath.documentId())
+                .select(DUE_AT_FIELD)
+                .limit(limit);
+        if (afterDueAt != null) {
+            query = query.startAfter(afterDueAt, afterId);
+        }
+        return toCompletable(query.get()).thenApply(snapshot -> {
+            LinkedHashMap<String, Long> dueAt = new LinkedHashMap<>();
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                Long value = document.getLong(DUE_AT_FIELD);
+                if (value != null) {
+                    dueAt.put(document.getId(), value);
                 }
-                batch.set(docRef, word);
             }
-            batch.commit().get();
+            return dueAt;
+        });
+    }
+
+    /**
+     * Up to {@code limit} words after {@code afterId} in document id order, with only the fields the
+     * search index needs (id, sessionId, english, vietnamese).
+     */
+    public CompletableFuture<List<Word>> findSearchFieldsAfterAsync(String afterId, int limit) {
+        Query query = firestore.collection(COLLECTION_NAME)
+                .orderBy(FieldPath.documentId())
+                .select("sessionId", "english", "vietnamese")
+                .limit(limit);
+        if (afterId != null) {
+            query = query.startAfter(afterId);
+        }
+        return toCompletable(query.get()).thenApply(snapshot -> {
+            List<Word> words = new ArrayList<>(snapshot.size());
+            for (QueryDocumentSnapshot document : snapshot.getDocuments()) {
+                words.add(Word.builder()
+                        .id(document.getId())
+                        .sessionId(document.getString("sessionId"))
+                        .english(document.getString("english"))
+                        .vietnamese(document.getString("vietnamese"))
+                        .build());
+            }
             return words;
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException("Error saving words", e);
+        });
+    }
+
+    public List<Word> saveAll(List<Word> words) {
+        applyChanges(words, List.of());
+        return words;
+    }
+
+    /**
+     * Upserts {@code upserts} and deletes {@code deletedIds}, split into limit-sized batches
+     * that are committed in parallel.
+     */
+    public void applyChanges(List<Word> upserts, Collection<String> deletedIds) {
+        applyChanges(upserts, deletedIds, batch -> { });
+    }
+
+    /**
+     * Same as {@link #applyChanges(List, Collection)}; {@code alsoWrite} may add further writes (e.g. the
+     * session update). They are staged first, so they land in the first chunk, and the other chunks are only
+     * sent once it has committed: if that write fails (the session does not exist) no word is written.
+     * Up to 500 writes in total commit atomically in one round trip; a larger change can still be left partly
+     * applied when a later chunk fails.
+     */
+    public void applyChanges(List<Word> upserts, Collection<String> deletedIds, Consumer<ChunkedWriteBatch> alsoWrite) {
+        await(applyChangesAsync(upserts, deletedIds, alsoWrite), "Error saving words");
+    }
+
+    public CompletableFuture<Void> applyChangesAsync(List<Word> upserts, Collection<String> deletedIds) {
+        return applyChangesAsync(upserts, deletedIds, batch -> { });
+    }
+
+    public CompletableFuture<Void> applyChangesAsync(List<Word> upserts, Collection<String> deletedIds,
+                                                     Consumer<ChunkedWriteBatch> alsoWrite) {
+        ChunkedWriteBatch batch = ChunkedWriteBatch.guarded(firestore);
+        alsoWrite.accept(batch);
+        for (Word word : upserts) {
+            DocumentReference docRef;
+            if (word.getId() == null) {
+                docRef = firestore.collection(COLLECTION_NAME).document();
+                word.setId(docRef.getId());
+            } else {
+                docRef = firestore.collection(COLLECTION_NAME).document(word.getId());
+            }
+            assignRandomKey(word);
+            batch.set(docRef, word);
+        }
+        for (String id : deletedIds) {
+            batch.delete(firestore.collection(COLLECTION_NAME).document(id));
         }
+        return toCompletable(ApiFutures.allAsList(batch.commitAsync())).thenApply(results -> {
+            eventPublisher.publishEvent(new WordsChangedEvent(upserts, deletedIds));
+            return null;
+        });
     }
 
     public Word save(Word word) {
         try {
+            assignRandomKey(word);
             if (word.getId() == null) {
                 DocumentReference docRef = firestore.collection(COLLECTION_NAME).document();
                 word.setId(docRef.getId());
@@ -130,6 +422,7 @@ public class WordRepository {
                 }
                 firestore.collection(COLLECTION_NAME).document(wordId).set(word).get();
             }
+            eventPublisher.publishEvent(new WordsChangedEvent(List.of(word), List.of()));
             return word;
         } catch (InterruptedException | ExecutionException e) {
             throw new RuntimeException("Error saving word", e);
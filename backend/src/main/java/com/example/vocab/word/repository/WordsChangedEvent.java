@@ -0,0 +1,12 @@
+package com.example.vocab.word.repository;
+
+import com.example.vocab.word.domain.Word;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by {@link WordRepository} after a write has been committed.
+ */
+public record WordsChangedEvent(List<Word> upserted, Collection<String> deletedIds) {
+}
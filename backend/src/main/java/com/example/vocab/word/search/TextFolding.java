@@ -0,0 +1,30 @@
+package com.example.vocab.word.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds text for search: lower case, Vietnamese diacritics removed ("quả táo" -> "qua tao", "đ" -> "d")
+ * and every run of non-alphanumeric characters turned into a single space.
+ */
+final class TextFolding {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextFolding() {
+    }
+
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    static String[] tokens(String folded) {
+        return folded.isEmpty() ? new String[0] : folded.split(" ");
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.vocab.word.search;
+
+/**
+ * One search result; {@code score} is 3 for an exact match, 2 for a prefix of the whole text,
+ * 1 for a prefix of one of its words and below 1 for a fuzzy (typo-tolerant) match.
+ */
+public record WordSearchHit(String id, String sessionId, String english, String vietnamese, double score) {
+}
@@ -0,0 +1,374 @@
+package com.example.vocab.word.search;
+
+import com.example.vocab.common.scoring.EditDistance;
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordRepository;
+import com.example.vocab.word.repository.WordsChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.example.vocab.common.firestore.FirestoreFutures.await;
+
+/**
+ * In-memory search over the English and Vietnamese text of every word, diacritic-insensitive.
+ * A sorted term map (whole folded texts and their single words) answers prefix queries with one range scan;
+ * trigram postings find candidates for typo-tolerant matches, which are then checked with a bounded edit distance.
+ * Work per query is bounded whatever the index size: the prefix scan stops after {@code MAX_PREFIX_CANDIDATES} ids,
+ * and the typo path reads the rarest trigrams first, skips very common ones and keeps only the best-overlapping
+ * candidates in a bounded heap.
+ * The index is filled by a paged pass over Firestore at startup and kept current from {@link WordsChangedEvent}s.
+ * Query latency is recorded as the {@code search.query} timer, tagged with whether the typo path ran.
+ */
+@Component
+@Slf4j
+public class WordSearchIndex implements MeterBinder {
+    public static final int MAX_LIMIT = 50;
+    private static final int MAX_PREFIX_CANDIDATES = 200;
+    private static final int MAX_FUZZY_CANDIDATES = 100;
+    // Tổng số posting được đọc ở nhánh gần đúng, và ngưỡng tần suất để bỏ qua trigram quá phổ biến
+    private static final int MAX_FUZZY_POSTINGS = 2000;
+    private static final double MAX_TRIGRAM_DOCUMENT_RATIO = 0.02;
+    private static final int MIN_TRIGRAM_DOCUMENT_CUTOFF = 500;
+    private static final char BOUNDARY = '$';
+
+    // texts: cả cụm đã fold và từng từ của nó, tính một lần vì nhánh gần đúng duyệt chúng cho mỗi ứng viên
+    private record Entry(String id, String sessionId, String english, String vietnamese,
+                         String foldedEnglish, String foldedVietnamese, List<String> texts) {
+
+        static Entry of(Word word) {
+            String foldedEnglish = TextFolding.fold(word.getEnglish());
+            String foldedVietnamese = TextFolding.fold(word.getVietnamese());
+            Set<String> texts = new LinkedHashSet<>();
+            for (String folded : new String[]{foldedEnglish, foldedVietnamese}) {
+                if (folded.isEmpty()) continue;
+                texts.add(folded);
+                texts.addAll(List.of(TextFolding.tokens(folded)));
+            }
+            return new Entry(word.getId(), word.getSessionId(), word.getEnglish(), word.getVietnamese(),
+                    foldedEnglish, foldedVietnamese, List.copyOf(texts));
+        }
+    }
+
+    private final WordRepository wordRepository;
+    private final int rebuildPageSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Set<String>> terms = new TreeMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    // Khác null trong lúc rebuild: các từ vừa thay đổi không bị trang đọc trước đó ghi đè bằng dữ liệu cũ
+    private Set<String> changedDuringRebuild;
+    private volatile boolean ready;
+    // Null cho tới khi được gắn vào registry (ví dụ trong test và benchmark)
+    private volatile Timer prefixSearches;
+    private volatile Timer fuzzySearches;
+
+    public WordSearchIndex(WordRepository wordRepository,
+                           @Value("${app.search.rebuild-page-size:1000}") int rebuildPageSize) {
+        this.wordRepository = wordRepository;
+        this.rebuildPageSize = rebuildPageSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            terms.clear();
+            trigrams.clear();
+            changedDuringRebuild = new HashSet<>();
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            String after = null;
+            while (true) {
+                List<Word> page = await(wordRepository.findSearchFieldsAfterAsync(after, rebuildPageSize),
+                        "Error reading words for the search index");
+                if (page.isEmpty()) {
+                    break;
+                }
+                lock.writeLock().lock();
+                try {
+                    for (Word word : page) {
+                        if (!changedDuringRebuild.contains(word.getId())) {
+                            put(Entry.of(word));
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                after = page.get(page.size() - 1).getId();
+            }
+            ready = true;
+            log.info("Search index built with {} words in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Cannot build the search index: {}", e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            changedDuringRebuild = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onWordsChanged(WordsChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Word word : event.upserted()) {
+                if (word.getId() == null) continue;
+                put(Entry.of(word));
+                markChanged(word.getId());
+            }
+            for (String id : event.deletedIds()) {
+                remove(id);
+                markChanged(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Best matches for {@code query}: exact and prefix matches first, then typo-tolerant ones.
+     */
+    public List<WordSearchHit> search(String query, int limit) {
+        long start = System.nanoTime();
+        String folded = TextFolding.fold(query);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        int effectiveLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<WordSearchHit> hits = new ArrayList<>();
+        boolean fuzzy;
+        lock.readLock().lock();
+        try {
+            Map<String, Double> scores = new HashMap<>();
+            // Term đúng bằng truy vấn đứng đầu khoảng nên match chính xác luôn được xét trước khi chạm giới hạn
+            scan:
+            for (Set<String> ids : terms.subMap(folded, true, folded + Character.MAX_VALUE, false).values()) {
+                for (String id : ids) {
+                    scores.merge(id, prefixScore(entries.get(id), folded), Math::max);
+                    if (scores.size() >= MAX_PREFIX_CANDIDATES) break scan;
+                }
+            }
+            fuzzy = scores.size() < effectiveLimit && folded.length() >= 3;
+            if (fuzzy) {
+                addFuzzyMatches(folded, scores, effectiveLimit - scores.size());
+            }
+            for (Map.Entry<String, Double> score : scores.entrySet()) {
+                Entry entry = entries.get(score.getKey());
+                hits.add(new WordSearchHit(entry.id(), entry.sessionId(), entry.english(), entry.vietnamese(), score.getValue()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparingDouble(WordSearchHit::score).reversed()
+                .thenComparingInt(hit -> hit.english() != null ? hit.english().length() : Integer.MAX_VALUE)
+                .thenComparing(WordSearchHit::id));
+        List<WordSearchHit> result = hits.size() > effectiveLimit ? List.copyOf(hits.subList(0, effectiveLimit)) : hits;
+        Timer timer = fuzzy ? fuzzySearches : prefixSearches;
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    private static double prefixScore(Entry entry, String query) {
+        if (entry.foldedEnglish().equals(query) || entry.foldedVietnamese().equals(query)) return 3;
+        if (entry.foldedEnglish().startsWith(query) || entry.foldedVietnamese().startsWith(query)) return 2;
+        return 1;
+    }
+
+    private void addFuzzyMatches(String query, Map<String, Double> scores, int needed) {
+        List<Set<String>> postings = new ArrayList<>();
+        for (String trigram : queryTrigrams(query)) {
+            Set<String> ids = trigrams.get(trigram);
+            if (ids != null) postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        int cutoff = Math.max(MIN_TRIGRAM_DOCUMENT_CUTOFF, (int) (entries.size() * MAX_TRIGRAM_DOCUMENT_RATIO));
+        Map<String, Integer> shared = new HashMap<>();
+        int read = 0;
+        scan:
+        for (int i = 0; i < postings.size(); i++) {
+            // Trigram hiếm trước; trigram quá phổ biến gần như không lọc được gì nên bỏ (trừ khi chỉ còn nó)
+            if (i > 0 && postings.get(i).size() > cutoff) break;
+            for (String id : postings.get(i)) {
+                if (++read > MAX_FUZZY_POSTINGS) break scan;
+                if (!scores.containsKey(id)) {
+                    shared.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        // Top-k theo số trigram chung bằng min-heap thay vì sắp xếp mọi ứng viên
+        PriorityQueue<Map.Entry<String, Integer>> best = new PriorityQueue<>(MAX_FUZZY_CANDIDATES + 1,
+                Map.Entry.comparingByValue());
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            if (best.size() < MAX_FUZZY_CANDIDATES) {
+                best.add(candidate);
+            } else if (candidate.getValue() > best.peek().getValue()) {
+                best.poll();
+                best.add(candidate);
+            }
+        }
+        List<Map.Entry<String, Integer>> ordered = new ArrayList<>(best);
+        ordered.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        int allowed = query.length() <= 4 ? 1 : 2;
+        int found = 0;
+        int stopBelow = 0;
+        for (Map.Entry<String, Integer> candidate : ordered) {
+            // Đủ kết quả thì chỉ xét nốt các ứng viên cùng mức trùng trigram với kết quả cuối cùng
+            if (found >= needed && candidate.getValue() < stopBelow) break;
+            int distance = bestDistance(entries.get(candidate.getKey()), query, allowed);
+            if (distance <= allowed) {
+                scores.put(candidate.getKey(), 1.0 - (distance + 1.0) / (allowed + 2.0));
+                if (++found == needed) {
+                    stopBelow = candidate.getValue();
+                }
+            }
+        }
+    }
+
+    // Khoảng cách nhỏ nhất tới cả cụm, từng từ, hoặc phần đầu cùng độ dài (gõ sai khi đang gõ dở)
+    private static int bestDistance(Entry entry, String query, int allowed) {
+        int best = allowed + 1;
+        for (String text : entry.texts()) {
+            best = Math.min(best, EditDistance.distance(query, text, allowed));
+            if (text.length() > query.length()) {
+                best = Math.min(best, EditDistance.distance(query, text.substring(0, query.length()), allowed));
+            }
+            if (best == 0) break;
+        }
+        return best;
+    }
+
+    private void put(Entry entry) {
+        remove(entry.id());
+        entries.put(entry.id(), entry);
+        for (String text : entry.texts()) {
+            terms.computeIfAbsent(text, k -> new HashSet<>()).add(entry.id());
+        }
+        for (String trigram : indexTrigrams(entry)) {
+            trigrams.computeIfAbsent(trigram, k -> new HashSet<>()).add(entry.id());
+        }
+    }
+
+    private void remove(String id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String text : entry.texts()) {
+            removePosting(terms, text, id);
+        }
+        for (String trigram : indexTrigrams(entry)) {
+            removePosting(trigrams, trigram, id);
+        }
+    }
+
+    private static void removePosting(Map<String, Set<String>> postings, String key, String id) {
+        Set<String> ids = postings.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private void markChanged(String id) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+    }
+
+    // Mỗi từ được bọc bởi dấu biên: "$apple$" -> $ap, app, ppl, ple, le$
+    private static Set<String> indexTrigrams(Entry entry) {
+        Set<String> result = new HashSet<>();
+        for (String text : entry.texts()) {
+            if (text.indexOf(' ') < 0) {
+                addTrigrams(BOUNDARY + text + BOUNDARY, result);
+            }
+        }
+        return result;
+    }
+
+    // Truy vấn có thể chỉ là phần đầu của từ nên không thêm dấu biên cuối
+    private static Set<String> queryTrigrams(String query) {
+        Set<String> result = new HashSet<>();
+        for (String token : TextFolding.tokens(query)) {
+            addTrigrams(BOUNDARY + token, result);
+        }
+        return result;
+    }
+
+    private static void addTrigrams(String text, Set<String> result) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(text.substring(i, i + 3));
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        prefixSearches = searchTimer(registry, false);
+        fuzzySearches = searchTimer(registry, true);
+        Gauge.builder("search.index.words", this, WordSearchIndex::size)
+                .register(registry);
+        Gauge.builder("search.index.terms", this, WordSearchIndex::getTermCount)
+                .register(registry);
+        Gauge.builder("search.index.ready", this, index -> index.isReady() ? 1 : 0)
+                .description("1 once the startup build has finished")
+                .register(registry);
+    }
+
+    private static Timer searchTimer(MeterRegistry registry, boolean fuzzy) {
+        return Timer.builder("search.query")
+                .description("Latency of word search queries")
+                .tag("fuzzy", String.valueOf(fuzzy))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
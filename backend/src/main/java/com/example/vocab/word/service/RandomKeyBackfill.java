@@ -0,0 +1,46 @@
+package com.example.vocab.word.service;
+
+import com.example.vocab.word.repository.WordRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off backfill of {@code randomKey} for words saved before random sampling existed; without a key a word
+ * is never returned by {@link WordRepository#findRandomWords}.
+ * Runs at startup when enabled, e.g. {@code java -jar vocab.jar --app.words.random-key-backfill.enabled=true}.
+ * It pages through words in id order reading only that field and skips words that already have a key,
+ * so it is safe to run again after an interruption.
+ */
+@Component
+@ConditionalOnProperty(name = "app.words.random-key-backfill.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class RandomKeyBackfill implements ApplicationRunner {
+    private static final int PAGE_SIZE = 500;
+
+    private final WordRepository wordRepository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int assigned = 0;
+        int scanned = 0;
+        String after = null;
+        while (true) {
+            WordRepository.RandomKeyPage page = wordRepository.findWithoutRandomKeyAfter(after, PAGE_SIZE);
+            if (page.lastId() == null) {
+                break;
+            }
+            if (!page.missingIds().isEmpty()) {
+                wordRepository.assignRandomKeys(page.missingIds());
+                assigned += page.missingIds().size();
+            }
+            scanned += PAGE_SIZE;
+            after = page.lastId();
+        }
+        log.info("Random key backfill finished: {} words updated after scanning about {}", assigned, scanned);
+    }
+}
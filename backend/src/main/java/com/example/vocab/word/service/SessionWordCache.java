@@ -0,0 +1,104 @@
+package com.example.vocab.word.service;
+
+import com.example.vocab.word.domain.Word;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of the ordered word list of a session.
+ * Weight is the number of words, so a few large sessions cannot crowd out the heap.
+ * Entries are copied on the way in and out because callers mutate the returned words.
+ * Values read outside the cache (async reads) go in through {@link #putIfUnchanged}, which never replaces
+ * an entry and gives up if any write happened since the read started, so a slow read cannot bring back
+ * a list that a write has already replaced or invalidated.
+ * Hit/miss/eviction counters are published as the {@code cache.*} meters with {@code cache=sessionWords}.
+ */
+@Component
+public class SessionWordCache implements MeterBinder {
+    private final Cache<String, List<Word>> cache;
+    // Tăng trước mỗi lần ghi/xoá entry; lần đọc async so sánh với giá trị lúc bắt đầu
+    private final AtomicLong writes = new AtomicLong();
+
+    public SessionWordCache(@Value("${app.cache.words.max-weight:50000}") long maxWeight,
+                            @Value("${app.cache.words.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String sessionId, List<Word> words) -> Math.max(1, words.size()))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public List<Word> get(String sessionId, Function<String, List<Word>> loader) {
+        List<Word> words = cache.get(sessionId, id -> copyOf(loader.apply(id)));
+        return copyOf(words);
+    }
+
+    public List<Word> getIfPresent(String sessionId) {
+        List<Word> words = cache.getIfPresent(sessionId);
+        return words != null ? copyOf(words) : null;
+    }
+
+    public void put(String sessionId, List<Word> words) {
+        writes.incrementAndGet();
+        cache.put(sessionId, copyOf(words));
+    }
+
+    /**
+     * Marker to take before reading {@code words} from the repository, for {@link #putIfUnchanged}.
+     */
+    public long writeMarker() {
+        return writes.get();
+    }
+
+    /**
+     * Caches a list read from the repository unless the session is already cached or any write or
+     * invalidation happened after {@code writeMarker} was taken.
+     */
+    public void putIfUnchanged(String sessionId, List<Word> words, long writeMarker) {
+        List<Word> copy = copyOf(words);
+        cache.asMap().compute(sessionId, (id, current) ->
+                current == null && writes.get() == writeMarker ? copy : current);
+    }
+
+    public void invalidate(String sessionId) {
+        if (sessionId != null) {
+            writes.incrementAndGet();
+            cache.invalidate(sessionId);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "sessionWords");
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private static List<Word> copyOf(Collection<Word> words) {
+        List<Word> copy = new ArrayList<>(words.size());
+        for (Word word : words) {
+            copy.add(word != null ? word.toBuilder().build() : null);
+        }
+        return copy;
+    }
+}
@@ -1,51 +1,214 @@
 package com.example.vocab.word.service;
 
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
 import com.example.vocab.word.domain.Word;
 import com.example.vocab.word.repository.WordRepository;
+import com.google.cloud.firestore.DocumentReference;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class WordService {
     private final WordRepository wordRepository;
+    private final SessionWordCache sessionWordCache;
 
     public List<Word> getWordsBySessionId(String sessionId) {
-        return wordRepository.findAllBySessionIdOrderByOrderIndexAsc(sessionId);
+        return sessionWordCache.get(sessionId, wordRepository::findAllBySessionIdOrderByOrderIndexAsc);
     }
 
+    public CompletableFuture<List<Word>> getWordsBySessionIdAsync(String sessionId) {
+        List<Word> cached = sessionWordCache.getIfPresent(sessionId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long writeMarker = sessionWordCache.writeMarker();
+        return wordRepository.findAllBySessionIdOrderByOrderIndexAscAsync(sessionId).thenApply(words -> {
+            sessionWordCache.putIfUnchanged(sessionId, words, writeMarker);
+            return words;
+        });
+    }
+
+    /**
+     * Replaces the word list of a session, writing only what differs from the stored list:
+     * changed or reordered words are upserted and words no longer present are deleted.
+     * Incoming words are matched to stored ones by id, or by english/vietnamese text
+     * when the client does not send ids.
+     * The diff is taken against a fresh read, not the cache: another instance may have changed the
+     * session since this one cached it. Up to 500 writes commit atomically; a larger diff is split into
+     * several batches and a failure can leave it partly applied (the client simply saves again).
+     */
     public List<Word> saveWords(String sessionId, List<Word> words) {
         if (words == null || sessionId == null)
             return List.of();
-        wordRepository.deleteAllBySessionId(sessionId);
+        WordDiff diff = diff(sessionId, wordRepository.findAllBySessionIdOrderByOrderIndexAsc(sessionId), words);
+        sessionWordCache.invalidate(sessionId);
+        wordRepository.applyChanges(diff.upserts(), diff.deletedIds());
+        sessionWordCache.put(sessionId, diff.saved());
+        return diff.saved();
+    }
+
+    /**
+     * Async variant of {@link #saveWords}.
+     */
+    public CompletableFuture<List<Word>> saveWordsAsync(String sessionId, List<Word> words) {
+        return saveWordsAsync(sessionId, words, (batch, saved) -> { });
+    }
+
+    /**
+     * {@code alsoWrite} receives the saved list and the write batch, to stage related writes
+     * (such as the session's word count) that should commit together with the words.
+     */
+    public CompletableFuture<List<Word>> saveWordsAsync(String sessionId, List<Word> words, BatchWriter alsoWrite) {
+        if (words == null || sessionId == null)
+            return CompletableFuture.completedFuture(List.of());
+        return wordRepository.findAllBySessionIdOrderByOrderIndexAscAsync(sessionId).thenCompose(existing -> {
+            WordDiff diff = diff(sessionId, existing, words);
+            sessionWordCache.invalidate(sessionId);
+            Consumer<ChunkedWriteBatch> extra = batch -> alsoWrite.write(batch, diff.saved());
+            return wordRepository.applyChangesAsync(diff.upserts(), diff.deletedIds(), extra).thenApply(ignored -> {
+                sessionWordCache.put(sessionId, diff.saved());
+                return diff.saved();
+            });
+        });
+    }
+
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(ChunkedWriteBatch batch, List<Word> savedWords);
+    }
+
+    private record WordDiff(List<Word> saved, List<Word> upserts, Collection<String> deletedIds) {
+    }
+
+    private static WordDiff diff(String sessionId, List<Word> existing, List<Word> words) {
+        Map<String, Word> unmatched = new LinkedHashMap<>();
+        Map<String, Deque<Word>> unmatchedByText = new HashMap<>();
+        for (Word word : existing) {
+            unmatched.put(word.getId(), word);
+            unmatchedByText.computeIfAbsent(textKey(word), k -> new ArrayDeque<>()).add(word);
+        }
+
+        List<Word> saved = new ArrayList<>(words.size());
+        List<Word> upserts = new ArrayList<>();
         for (int i = 0; i < words.size(); i++) {
             Word word = words.get(i);
             if (word == null)
                 continue;
             word.setSessionId(sessionId);
             word.setOrderIndex(i);
+
+            Word previous = word.getId() != null
+                    ? unmatched.remove(word.getId())
+                    : pollByText(unmatchedByText, unmatched, word);
+            if (previous != null) {
+                word.setId(previous.getId());
+                carryOver(word, previous);
+            }
+            if (!word.equals(previous)) {
+                upserts.add(word);
+            }
+            saved.add(word);
+        }
+        return new WordDiff(saved, upserts, unmatched.keySet());
+    }
+
+    // Client chỉ gửi nội dung từ: giữ khoá ngẫu nhiên và lịch ôn tập đã lưu thay vì xoá chúng khi lưu lại
+    private static void carryOver(Word word, Word previous) {
+        if (word.getRandomKey() == null) {
+            word.setRandomKey(previous.getRandomKey());
+        }
+        if (word.getEase() == null) {
+            word.setEase(previous.getEase());
+        }
+        if (word.getIntervalDays() == null) {
+            word.setIntervalDays(previous.getIntervalDays());
+        }
+        if (word.getRepetitions() == null) {
+            word.setRepetitions(previous.getRepetitions());
+        }
+        if (word.getDueAt() == null) {
+            word.setDueAt(previous.getDueAt());
+        }
+        if (word.getLastReviewedAt() == null) {
+            word.setLastReviewedAt(previous.getLastReviewedAt());
         }
-        return wordRepository.saveAll(words);
     }
 
     public List<Word> updateWords(List<Word> words) {
+        return updateWords(words, batch -> { });
+    }
+
+    public List<Word> updateWords(List<Word> words, Consumer<ChunkedWriteBatch> alsoWrite) {
         if (words == null)
             return List.of();
-        return wordRepository.saveAll(words);
+        try {
+            wordRepository.applyChanges(words, List.of(), alsoWrite);
+            return words;
+        } finally {
+            words.stream()
+                    .filter(Objects::nonNull)
+                    .map(Word::getSessionId)
+                    .distinct()
+                    .forEach(sessionWordCache::invalidate);
+        }
     }
 
-    public void deleteWordsBySessionId(String sessionId) {
-        wordRepository.deleteAllBySessionId(sessionId);
+    private static Word pollByText(Map<String, Deque<Word>> byText, Map<String, Word> unmatched, Word word) {
+        Deque<Word> candidates = byText.get(textKey(word));
+        while (candidates != null && !candidates.isEmpty()) {
+            Word candidate = candidates.poll();
+            if (unmatched.remove(candidate.getId()) != null) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static String textKey(Word word) {
+        return word.getEnglish() + '\u0000' + word.getVietnamese();
+    }
+
+    public CompletableFuture<List<DocumentReference>> getWordRefsAsync(String sessionId, String afterId, int limit) {
+        return wordRepository.findRefsBySessionIdAsync(sessionId, afterId, limit);
+    }
+
+    public CompletableFuture<Void> deleteWordsAsync(String sessionId, List<DocumentReference> refs, int batchSize) {
+        sessionWordCache.invalidate(sessionId);
+        return wordRepository.deleteAllAsync(refs, batchSize);
     }
 
     public Word updateWord(String wordId, String english, String vietnamese, String imageUrl) {
+        return updateWord(wordId, english, vietnamese, imageUrl, (batch, savedWords) -> { });
+    }
+
+    /**
+     * {@code alsoWrite} receives the updated word, to stage related writes (such as the session's results)
+     * in the same commit.
+     */
+    public Word updateWord(String wordId, String english, String vietnamese, String imageUrl, BatchWriter alsoWrite) {
         Word word = wordRepository.findById(wordId)
                 .orElseThrow(() -> new RuntimeException("Word not found"));
         word.setEnglish(english);
         word.setVietnamese(vietnamese);
         word.setImageUrl(imageUrl);
-        return wordRepository.save(word);
+        try {
+            wordRepository.applyChanges(List.of(word), List.of(), batch -> alsoWrite.write(batch, List.of(word)));
+            return word;
+        } finally {
+            sessionWordCache.invalidate(word.getSessionId());
+        }
     }
 }
@@ -1,17 +1,28 @@
 package com.example.vocab.chat;
 
+import com.example.vocab.chat.dto.CorrectionRule;
 import com.example.vocab.word.domain.Word;
 import com.example.vocab.word.repository.WordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,22 +34,52 @@ class ChatServiceTest {
     @Mock
     private GeminiService geminiService;
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private ChatService chatService;
 
     @BeforeEach
     void setUp() {
-        chatService = new ChatService(wordRepository, geminiService);
+        chatService = new ChatService(wordRepository, geminiService,
+                new ConversationStore(2, 200, 100_000, Duration.ofMinutes(5)),
+                new CorrectionEngine(List.of(agreeRule()), Set.of("i am agree"), 12), meterRegistry);
     }
 
     @Test
     void shouldReturnGeminiResponse() {
-        when(geminiService.generateContent(anyString())).thenReturn("This is an AI response.");
+        when(geminiService.generateContent(anyString(), anyString())).thenReturn("This is an AI response.");
         
         String response = chatService.processMessage("hello", "session-1");
         
         assertThat(response).isEqualTo("This is an AI response.");
     }
 
+    @Test
+    void shouldAnswerKnownMistakeLocally() {
+        String response = chatService.processMessage("I am agree with you", "session-1");
+
+        assertThat(response).contains("I agree with you").contains("Agree");
+        verifyNoInteractions(geminiService);
+    }
+
+    @Test
+    void shouldSendRecentTurnsAndPendingPracticeWordWithNextMessage() {
+        Word apple = Word.builder()
+                .english("apple")
+                .vietnamese("qua tao")
+                .build();
+
+        when(wordRepository.findRandomWords(1)).thenReturn(List.of(apple));
+        when(geminiService.generateContent(anyString(), anyString())).thenReturn("Sure.");
+
+        chatService.processMessage("practice", "session-1");
+        chatService.processMessage("I eat an apple", "session-1");
+
+        verify(geminiService).generateContent(eq(ChatService.SYSTEM_INSTRUCTION), argThat(prompt -> prompt.contains("User: practice\nYou: Sure.")
+                && prompt.contains("practicing: 'apple'")
+                && prompt.endsWith("User message: I eat an apple")));
+    }
+
     @Test
     void shouldAddPracticeWordWhenRequested() {
         Word apple = Word.builder()
@@ -47,11 +88,52 @@ class ChatServiceTest {
                 .build();
 
         when(wordRepository.findRandomWords(1)).thenReturn(List.of(apple));
-        when(geminiService.generateContent(anyString())).thenReturn("Let's practice.");
+        when(geminiService.generateContent(anyString(), anyString())).thenReturn("Let's practice.");
 
         String response = chatService.processMessage("practice", "session-1");
 
         assertThat(response).contains("apple");
         assertThat(response).contains("Practice this word");
     }
+
+    @Test
+    void shouldStreamTokensAndAppendPracticeWordLast() {
+        Word apple = Word.builder()
+                .english("apple")
+                .vietnamese("qua tao")
+                .build();
+
+        when(wordRepository.findRandomWords(1)).thenReturn(List.of(apple));
+        when(geminiService.streamContent(anyString(), anyString(), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(2);
+            onToken.accept("Let's ");
+            onToken.accept("practice.");
+            return "Let's practice.";
+        });
+
+        List<String> tokens = new ArrayList<>();
+        String response = chatService.streamMessage("practice", "session-1", tokens::add);
+
+        assertThat(tokens).hasSize(3);
+        assertThat(tokens.get(0)).isEqualTo("Let's ");
+        assertThat(tokens.get(2)).contains("Practice this word").contains("apple");
+        assertThat(response).isEqualTo(String.join("", tokens));
+        assertThat(meterRegistry.get("chat.ttft").tag("stream", "true").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.duration").tag("stream", "true").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("chat.duration").tag("stream", "false").timer().count()).isZero();
+    }
+
+    private static CorrectionRule agreeRule() {
+        return CorrectionRule.builder()
+                .input("I am agree.")
+                .output(CorrectionRule.Output.builder()
+                        .corrected_sentence("I agree.")
+                        .mistakes(List.of(CorrectionRule.Mistake.builder()
+                                .wrong("I am agree")
+                                .fix("I agree")
+                                .reason("'Agree' is a verb, it does not take 'am'.")
+                                .build()))
+                        .build())
+                .build();
+    }
 }
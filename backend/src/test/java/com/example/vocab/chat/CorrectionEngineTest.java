@@ -0,0 +1,70 @@
+package com.example.vocab.chat;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Runs against the rule files shipped in {@code training_data}.
+ */
+class CorrectionEngineTest {
+
+    private final CorrectionEngine engine = new CorrectionEngine("classpath:training_data/*.json",
+            "classpath:training_data/phrase_allowlist.txt", 12);
+
+    @Test
+    void answersRuleInputsRegardlessOfCaseAndPunctuation() {
+        assertThat(engine.getSentenceRuleCount()).isPositive();
+
+        assertThat(engine.correct("she DON'T like him")).hasValueSatisfying(reply ->
+                assertThat(reply).contains("She doesn't like him."));
+        assertThat(engine.getSentenceHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void correctsKnownPhraseInsideAShortMessage() {
+        assertThat(engine.correct("Honestly I am agree with my teacher")).hasValueSatisfying(reply ->
+                assertThat(reply).contains("**Honestly I agree with my teacher**"));
+        assertThat(engine.getPhraseHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesOtherMessagesToTheLlm() {
+        assertThat(engine.correct("What does 'serendipity' mean?")).isEmpty();
+        // Chỉ khớp nguyên từ: "agreeable" không phải lỗi "I am agree"
+        assertThat(engine.correct("I am agreeable today")).isEmpty();
+        assertThat(engine.getHitRate()).isZero();
+    }
+
+    @Test
+    void missesAreCountedByNormalisedMessage() {
+        engine.correct("What does 'serendipity' mean?");
+        engine.correct("WHAT does 'serendipity' mean!!");
+        engine.correct("How are you?");
+
+        assertThat(engine.getTopMisses(1)).containsExactly(entry("what does 'serendipity' mean", 2L));
+        assertThat(engine.getTopMisses(10)).hasSize(2);
+    }
+
+    @Test
+    void correctEnglishIsNotRewrittenIntoAnotherWord() {
+        // Các từ đúng trùng với dạng "sai" trong dữ liệu (từ đồng âm, cặp bị đảo) phải đi tới LLM
+        assertThat(engine.correct("I want to achieve my goals")).isEmpty();
+        assertThat(engine.correct("The movie was quite good")).isEmpty();
+        assertThat(engine.correct("Can you advise me?")).isEmpty();
+        assertThat(engine.correct("We live by the bay")).isEmpty();
+        assertThat(engine.correct("The dog wagged its tail")).isEmpty();
+        assertThat(engine.correct("My shoes are loose")).isEmpty();
+        assertThat(engine.correct("I asked wether he knew")).isEmpty();
+        assertThat(engine.getHitRate()).isZero();
+    }
+
+    @Test
+    void realWordIsStillCorrectedInTheSentenceItCameFrom() {
+        assertThat(engine.correct("Its a sunny day.")).hasValueSatisfying(reply ->
+                assertThat(reply).contains("It's a sunny day."));
+        assertThat(engine.correct("My freind is here")).hasValueSatisfying(reply ->
+                assertThat(reply).contains("**My friend is here**"));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.vocab.chat;
+
+import com.example.vocab.common.resilience.Bulkhead;
+import com.example.vocab.common.resilience.CircuitBreaker;
+import com.example.vocab.common.resilience.HedgePolicy;
+import com.example.vocab.common.resilience.RetryPolicy;
+import com.example.vocab.common.resilience.TimeLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link GeminiService#streamContent} against a local stub of the streamGenerateContent SSE endpoint.
+ */
+class GeminiServiceStreamTest {
+
+    private HttpServer server;
+    private GeminiService geminiService;
+    private final AtomicInteger streamCalls = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String lastRequestBody;
+    private volatile boolean stall;
+    private volatile int cachedContentStatus = 200;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1beta/models/test:streamGenerateContent", exchange -> {
+            streamCalls.incrementAndGet();
+            lastRequestBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            int reply = lastRequestBody.contains("\"cachedContent\"") && cachedContentStatus != 200
+                    ? cachedContentStatus : status;
+            if (!exchange.getRequestURI().getQuery().contains("alt=sse") || reply != 200) {
+                exchange.sendResponseHeaders(reply != 200 ? reply : 400, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (String chunk : List.of("Hel", "lo ", "there")) {
+                    String event = "data: {\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"" + chunk + "\"}]}}]}\r\n\r\n";
+                    out.write(event.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    if (stall) {
+                        // Header và chunk đầu đã gửi, phần còn lại treo: read-timeout không bắt được trường hợp này
+                        sleep(5000);
+                    }
+                }
+            }
+        });
+        server.start();
+
+        geminiService = new GeminiService(new RestTemplate(), new ObjectMapper(),
+                new Bulkhead("gemini", 4, 4, Duration.ofSeconds(1)),
+                new CircuitBreaker("gemini", 10, 10, 0.5, Duration.ofSeconds(30)),
+                new RetryPolicy("gemini", 2, Duration.ZERO, Duration.ZERO),
+                new HedgePolicy("gemini", Duration.ZERO, null),
+                new TimeLimiter("gemini", Duration.ofSeconds(5), Executors.newCachedThreadPool()),
+                new LlmResponseCache(100, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(geminiService, "apiKey", "test-key");
+        ReflectionTestUtils.setField(geminiService, "apiUrl",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/v1beta/models/test:generateContent");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void forwardsChunksAsTheyArriveAndCachesTheFullReply() {
+        List<String> tokens = new ArrayList<>();
+
+        String reply = geminiService.streamContent("hi", tokens::add);
+
+        assertThat(tokens).containsExactly("Hel", "lo ", "there");
+        assertThat(reply).isEqualTo("Hello there");
+
+        List<String> cachedTokens = new ArrayList<>();
+        assertThat(geminiService.streamContent("hi", cachedTokens::add)).isEqualTo("Hello there");
+        assertThat(cachedTokens).containsExactly("Hello there");
+        assertThat(streamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsSystemInstructionSeparatelyFromTheTurn() throws Exception {
+        geminiService.streamContent("Be concise.", "hi", token -> { });
+
+        JsonNode body = new ObjectMapper().readTree(lastRequestBody);
+        assertThat(body.path("systemInstruction").path("parts").path(0).path("text").asText()).isEqualTo("Be concise.");
+        assertThat(body.path("contents").path(0).path("parts").path(0).path("text").asText()).isEqualTo("hi");
+    }
+
+    @Test
+    void emitsFallbackWithoutCachingWhenTheApiFails() {
+        status = 503;
+        List<String> tokens = new ArrayList<>();
+
+        String reply = geminiService.streamContent("hi", tokens::add);
+
+        assertThat(reply).isEqualTo(GeminiService.FALLBACK_RESPONSE);
+        assertThat(tokens).containsExactly(GeminiService.FALLBACK_RESPONSE);
+
+        // 503 được thử lại một lần trước khi trả câu dự phòng
+        assertThat(streamCalls.get()).isEqualTo(2);
+
+        status = 200;
+        assertThat(geminiService.streamContent("hi", token -> { })).isEqualTo("Hello there");
+        assertThat(streamCalls.get()).isEqualTo(3);
+    }
+
+    @Test
+    void stalledStreamIsCutOffAtTheAttemptDeadline() {
+        stall = true;
+        ReflectionTestUtils.setField(geminiService, "streamTimeout", Duration.ofMillis(500));
+        List<String> tokens = new ArrayList<>();
+
+        long start = System.nanoTime();
+        String reply = geminiService.streamContent("hi", tokens::add);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        // Đã gửi một phần cho người dùng nên giữ nguyên, không thử lại
+        assertThat(reply).isEqualTo("Hel");
+        assertThat(tokens).containsExactly("Hel");
+        assertThat(streamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void readsRetryAfterInSecondsOrAsHttpDate() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "3");
+        assertThat(GeminiService.retryAfter(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "", headers, null, null)))
+                .isEqualTo(Duration.ofSeconds(3));
+
+        headers.set(HttpHeaders.RETRY_AFTER, "Wed, 21 Oct 2015 07:28:00 GMT");
+        assertThat(GeminiService.retryAfter(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "", headers, null, null)))
+                .isEqualTo(Duration.ZERO);
+        assertThat(GeminiService.retryAfter(new IllegalStateException())).isNull();
+    }
+
+    @Test
+    void fallsBackToSystemInstructionOnlyWhileTheCachedContentIsGone() {
+        ReflectionTestUtils.setField(geminiService, "cachedContent", "cachedContents/tutor");
+        cachedContentStatus = 404;
+
+        assertThat(geminiService.streamContent("Be concise.", "hi", token -> { })).isEqualTo("Hello there");
+        assertThat(lastRequestBody).contains("systemInstruction").doesNotContain("cachedContents/tutor");
+
+        // Hết thời gian chờ thì thử lại context cache
+        cachedContentStatus = 200;
+        ReflectionTestUtils.setField(geminiService, "cachedContentRejectedUntil", System.nanoTime() - 1);
+        assertThat(geminiService.streamContent("Be concise.", "hello", token -> { })).isEqualTo("Hello there");
+        assertThat(lastRequestBody).contains("cachedContents/tutor").doesNotContain("systemInstruction");
+    }
+
+    @Test
+    void rateLimitDoesNotDisableCachedContent() {
+        ReflectionTestUtils.setField(geminiService, "cachedContent", "cachedContents/tutor");
+        cachedContentStatus = 429;
+
+        assertThat(geminiService.streamContent("Be concise.", "hi", token -> { }))
+                .isEqualTo(GeminiService.FALLBACK_RESPONSE);
+        assertThat(lastRequestBody).contains("cachedContents/tutor");
+
+        cachedContentStatus = 200;
+        assertThat(geminiService.streamContent("Be concise.", "hello", token -> { })).isEqualTo("Hello there");
+        assertThat(lastRequestBody).contains("cachedContents/tutor");
+    }
+}
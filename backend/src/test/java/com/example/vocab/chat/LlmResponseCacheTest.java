@@ -0,0 +1,91 @@
+package com.example.vocab.chat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LlmResponseCacheTest {
+
+    private final LlmResponseCache cache = new LlmResponseCache(100, Duration.ofMinutes(1));
+
+    @Test
+    void returnsCachedResponseForPromptsDifferingOnlyInWhitespace() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String first = cache.get("Hello   world\n", () -> "reply " + calls.incrementAndGet());
+        String second = cache.get("  Hello world", () -> "reply " + calls.incrementAndGet());
+
+        assertThat(first).isEqualTo("reply 1");
+        assertThat(second).isEqualTo("reply 1");
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void publishesResultsAsCacheMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("prompt", () -> "reply");
+        cache.get("prompt", () -> "reply");
+
+        assertThat(registry.get("cache.gets").tags("cache", "llmResponses", "result", "hit").functionCounter().count())
+                .isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tags("result", "miss").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.size").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void doesNotCacheFailures() {
+        assertThatThrownBy(() -> cache.get("prompt", () -> {
+            throw new IllegalStateException("down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.get("prompt", () -> "recovered")).isEqualTo("recovered");
+        assertThat(cache.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentIdenticalPromptsShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> cache.get("same prompt", () -> {
+                    calls.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "shared";
+                })));
+            }
+            // Giữ request đầu tiên lại để các luồng còn lại phải đợi chung
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("shared");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.vocab.common.firestore;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChunkedWriteBatchTest {
+
+    private final Firestore firestore = mock(Firestore.class);
+    private final WriteBatch first = mock(WriteBatch.class);
+    private final WriteBatch second = mock(WriteBatch.class);
+    private final WriteBatch third = mock(WriteBatch.class);
+    private final DocumentReference ref = mock(DocumentReference.class);
+
+    @Test
+    void plainBatchCommitsFullChunksEagerly() {
+        when(firestore.batch()).thenReturn(first, second);
+        ApiFuture<List<WriteResult>> done = ApiFutures.immediateFuture(List.of());
+        when(first.commit()).thenReturn(done);
+
+        ChunkedWriteBatch batch = new ChunkedWriteBatch(firestore, 2);
+        batch.update(ref, Map.of("a", 1)).delete(ref);
+
+        verify(first).commit();
+    }
+
+    @Test
+    void guardedBatchSendsLaterChunksOnlyAfterTheFirstCommits() throws Exception {
+        when(firestore.batch()).thenReturn(first, second, third);
+        when(first.commit()).thenReturn(ApiFutures.immediateFuture(List.of()));
+        when(second.commit()).thenReturn(ApiFutures.immediateFuture(List.of()));
+
+        ChunkedWriteBatch batch = ChunkedWriteBatch.guarded(firestore, 2);
+        batch.update(ref, Map.of("a", 1)).delete(ref).delete(ref);
+        verify(first, never()).commit();
+
+        List<ApiFuture<List<WriteResult>>> commits = batch.commitAsync();
+
+        assertThat(commits).hasSize(2);
+        ApiFutures.allAsList(commits).get();
+        verify(first).commit();
+        verify(second).commit();
+    }
+
+    @Test
+    void guardedBatchWritesNothingElseWhenTheFirstChunkFails() {
+        when(firestore.batch()).thenReturn(first, second, third);
+        when(first.commit()).thenReturn(ApiFutures.immediateFailedFuture(new IllegalStateException("NOT_FOUND")));
+
+        ChunkedWriteBatch batch = ChunkedWriteBatch.guarded(firestore, 2);
+        batch.update(ref, Map.of("a", 1)).delete(ref).delete(ref);
+        List<ApiFuture<List<WriteResult>>> commits = batch.commitAsync();
+
+        assertThatThrownBy(() -> ApiFutures.allAsList(commits).get()).isInstanceOf(ExecutionException.class);
+        verify(second, never()).commit();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.vocab.common.firestore;
+
+import com.google.api.core.SettableApiFuture;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FirestoreFuturesTest {
+
+    @Test
+    void dependentStagesRunOffTheThreadThatCompletedTheCall() {
+        SettableApiFuture<String> call = SettableApiFuture.create();
+        CompletableFuture<String> stageThread = FirestoreFutures.toCompletable(call)
+                .thenApply(ignored -> Thread.currentThread().getName());
+
+        // Luồng test đóng vai luồng gRPC hoàn tất lời gọi
+        call.set("done");
+
+        assertThat(FirestoreFutures.await(stageThread, "failed")).startsWith("firestore-callback-");
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.vocab.common.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RepositoryMetricsAspectTest {
+
+    @Repository
+    static class FakeRepository {
+        public List<String> findAll() {
+            return List.of("a", "b", "c");
+        }
+
+        public CompletableFuture<Void> applyChangesAsync(List<String> upserts, List<String> deletedIds) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private FakeRepository proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new FakeRepository());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RepositoryMetricsAspect(registry));
+        return factory.getProxy();
+    }
+
+    @Test
+    void timesCallsAndCountsDocuments() {
+        FakeRepository repository = proxy();
+
+        repository.findAll();
+        repository.applyChangesAsync(List.of("x", "y"), List.of("z")).join();
+
+        assertThat(registry.get("firestore.repository").tag("method", "findAll").tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get("firestore.documents").tag("method", "findAll").tag("operation", "read")
+                .summary().totalAmount()).isEqualTo(3);
+        assertThat(registry.get("firestore.documents").tag("method", "applyChangesAsync").tag("operation", "write")
+                .summary().totalAmount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.vocab.common.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker =
+            new CircuitBreaker("test", 4, 4, 0.5, Duration.ofSeconds(10), now::get);
+
+    @Test
+    void opensOnceFailureRateReachesThresholdAndFailsFast() {
+        succeed();
+        succeed();
+        fail();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(this::succeed).isInstanceOf(CircuitBreakerOpenException.class);
+        assertThat(breaker.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void halfOpenTrialDecidesWhetherToClose() {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        fail();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        succeed();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    @Test
+    void exceptionsTheCallerDoesNotCountAsFailuresKeepItClosed() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.execute(() -> {
+                throw new IllegalArgumentException("bad request");
+            }, e -> !(e instanceof IllegalArgumentException))).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isZero();
+    }
+
+    private void succeed() {
+        breaker.execute(() -> "ok");
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> breaker.execute(() -> {
+            throw new IllegalStateException("upstream down");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+}
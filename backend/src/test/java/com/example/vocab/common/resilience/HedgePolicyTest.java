@@ -0,0 +1,79 @@
+package com.example.vocab.common.resilience;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgePolicyTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void slowFirstAttemptIsOvertakenByHedge() {
+        HedgePolicy hedgePolicy = new HedgePolicy("test", Duration.ofMillis(50), executor);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedgePolicy.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(2000);
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertThat(result).isEqualTo("fast");
+        assertThat(hedgePolicy.getHedgeCount()).isEqualTo(1);
+        assertThat(hedgePolicy.getHedgeWinCount()).isEqualTo(1);
+    }
+
+    @Test
+    void losingAttemptIsInterrupted() throws Exception {
+        HedgePolicy hedgePolicy = new HedgePolicy("test", Duration.ofMillis(50), executor);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        hedgePolicy.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(hedgePolicy.getCancelledCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fastAttemptDoesNotHedge() {
+        HedgePolicy hedgePolicy = new HedgePolicy("test", Duration.ofSeconds(1), executor);
+
+        assertThat(hedgePolicy.execute(() -> "ok")).isEqualTo("ok");
+        assertThat(hedgePolicy.getHedgeCount()).isZero();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.vocab.common.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScoringEngineTest {
+
+    private final ScoringEngine exact = new ScoringEngine(ScoringEngine.GradingMode.EXACT);
+    private final ScoringEngine tolerant = new ScoringEngine(ScoringEngine.GradingMode.TOLERANT);
+
+    @Test
+    void shouldComputeCaseInsensitiveTrimmedDistance() {
+        assertThat(EditDistance.distance("kitten", "sitting")).isEqualTo(3);
+        assertThat(EditDistance.distance("  Apple ", "apple")).isZero();
+        assertThat(EditDistance.distance("", "abc")).isEqualTo(3);
+    }
+
+    @Test
+    void shouldStopOnceMaxDistanceIsExceeded() {
+        assertThat(EditDistance.distance("elephant", "apple", 1)).isEqualTo(2);
+        assertThat(EditDistance.distance("abcdef", "abcxef", 1)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldScorePronunciationAsPercentOfLongerWord() {
+        assertThat(exact.similarityScore("apple", "Apple")).isEqualTo(100);
+        assertThat(exact.similarityScore("aple", "apple")).isEqualTo(80);
+        assertThat(exact.similarityScore("", "apple")).isZero();
+        assertThat(exact.similarityScore("banana", "kiwi")).isZero();
+    }
+
+    @Test
+    void shouldOnlyAcceptExactAnswersInExactMode() {
+        assertThat(exact.grade(" Apple", "apple")).isEqualTo(ScoringEngine.Grade.EXACT);
+        assertThat(exact.grade("aple", "apple")).isEqualTo(ScoringEngine.Grade.WRONG);
+    }
+
+    @Test
+    void shouldAcceptSmallTyposAndPhoneticSpellingsInTolerantMode() {
+        assertThat(tolerant.grade("aple", "apple")).isEqualTo(ScoringEngine.Grade.TYPO);
+        assertThat(tolerant.grade("fone", "phone")).isEqualTo(ScoringEngine.Grade.PHONETIC);
+        assertThat(tolerant.grade("cut", "cat")).isEqualTo(ScoringEngine.Grade.WRONG);
+        assertThat(tolerant.grade("", "cat")).isEqualTo(ScoringEngine.Grade.WRONG);
+    }
+
+    @Test
+    void shouldEncodeSimilarSoundingWordsToSameKey() {
+        assertThat(PhoneticKey.encode("phone")).isEqualTo(PhoneticKey.encode("fone"));
+        assertThat(PhoneticKey.encode("knight")).isEqualTo(PhoneticKey.encode("nite"));
+        assertThat(PhoneticKey.soundsAlike("school", "skool")).isTrue();
+    }
+}
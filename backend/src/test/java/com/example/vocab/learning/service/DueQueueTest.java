@@ -0,0 +1,54 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordsChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DueQueueTest {
+
+    @Test
+    void returnsDueWordsInOrderOnlyWithinTheLoadedPrefix() {
+        DueQueue queue = new DueQueue(100);
+        assertThat(queue.covers(10)).isFalse();
+
+        // Trang đầy: chỉ chắc chắn đầy đủ tới phần tử cuối (5, "c")
+        queue.load(null, List.of(new DueQueue.Entry(1, "a"), new DueQueue.Entry(5, "b"), new DueQueue.Entry(5, "c")), false);
+        assertThat(queue.due(10, 10)).containsExactly("a", "b", "c");
+        assertThat(queue.covers(4)).isTrue();
+        assertThat(queue.covers(5)).isFalse();
+
+        // Từ được chấm lại sau horizon không vào hàng đợi cho tới khi tải trang kế tiếp
+        queue.update("a", 7L);
+        assertThat(queue.due(10, 10)).containsExactly("b", "c");
+
+        queue.load(queue.horizon(), List.of(new DueQueue.Entry(7, "a"), new DueQueue.Entry(9, "d")), true);
+        assertThat(queue.covers(Long.MAX_VALUE - 1)).isTrue();
+        assertThat(queue.due(3, 10)).containsExactly("b", "c", "a");
+    }
+
+    @Test
+    void trimmingMovesTheHorizonBack() {
+        DueQueue queue = new DueQueue(2);
+        queue.load(null, List.of(new DueQueue.Entry(1, "a"), new DueQueue.Entry(2, "b"), new DueQueue.Entry(3, "c")), true);
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.horizon()).isEqualTo(new DueQueue.Entry(2, "b"));
+        assertThat(queue.covers(10)).isFalse();
+        assertThat(queue.due(10, 10)).containsExactly("a", "b");
+    }
+
+    @Test
+    void followsWordWrites() {
+        DueQueue queue = new DueQueue(100);
+        queue.load(null, List.of(new DueQueue.Entry(1, "a"), new DueQueue.Entry(2, "b")), true);
+
+        queue.onWordsChanged(new WordsChangedEvent(
+                List.of(Word.builder().id("b").dueAt(0L).build(), Word.builder().id("c").build()), List.of("a")));
+
+        assertThat(queue.due(10, 10)).containsExactly("b");
+    }
+}
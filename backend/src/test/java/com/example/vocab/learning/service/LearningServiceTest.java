@@ -0,0 +1,135 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
+import com.example.vocab.common.scoring.ScoringEngine;
+import com.example.vocab.session.domain.ResultSnapshot;
+import com.example.vocab.session.service.SessionDeletingException;
+import com.example.vocab.session.service.SessionService;
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.service.WordService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LearningServiceTest {
+
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private WordService wordService;
+
+    @Mock
+    private ReviewService reviewService;
+
+    private LearningService learningService;
+
+    @BeforeEach
+    void setUp() {
+        learningService = new LearningService(sessionService, wordService,
+                new ScoringEngine(ScoringEngine.GradingMode.EXACT), reviewService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submissionStagesASnapshotWithTotalsInTheAnswerBatch() {
+        when(wordService.getWordsBySessionId("s1")).thenReturn(List.of(
+                word("w1", "apple", "qua tao"), word("w2", "book", "quyen sach"), word("w3", "cat", "con meo")));
+
+        learningService.submitLearning("s1", Map.of("w1", "apple", "w2", "skip", "w3", "dog"));
+
+        ArgumentCaptor<Consumer<ChunkedWriteBatch>> alsoWrite = ArgumentCaptor.forClass(Consumer.class);
+        verify(wordService).updateWords(any(), alsoWrite.capture());
+        ChunkedWriteBatch batch = mock(ChunkedWriteBatch.class);
+        alsoWrite.getValue().accept(batch);
+
+        ArgumentCaptor<ResultSnapshot> snapshot = ArgumentCaptor.forClass(ResultSnapshot.class);
+        verify(sessionService).stageResultSnapshot(eq(batch), snapshot.capture());
+        assertThat(snapshot.getValue().getTotal()).isEqualTo(3);
+        assertThat(snapshot.getValue().getCorrectCount()).isEqualTo(1);
+        assertThat(snapshot.getValue().getSkippedCount()).isEqualTo(1);
+        assertThat(snapshot.getValue().getOutcomes()).extracting(ResultSnapshot.Outcome::getId)
+                .containsExactly("w1", "w2", "w3");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sessionTooLargeForOneDocumentGetsNoSnapshot() {
+        List<Word> words = new ArrayList<>();
+        for (int i = 0; i <= ResultSnapshot.MAX_OUTCOMES; i++) {
+            words.add(word("w" + i, "word" + i, "tu " + i));
+        }
+        when(wordService.getWordsBySessionId("s1")).thenReturn(words);
+
+        learningService.submitLearning("s1", Map.of());
+
+        ArgumentCaptor<Consumer<ChunkedWriteBatch>> alsoWrite = ArgumentCaptor.forClass(Consumer.class);
+        verify(wordService).updateWords(any(), alsoWrite.capture());
+        ChunkedWriteBatch batch = mock(ChunkedWriteBatch.class);
+        alsoWrite.getValue().accept(batch);
+
+        verify(sessionService, never()).stageResultSnapshot(any(), any());
+        // Bản chụp cũ (nếu có) không còn khớp với lần nộp này
+        verify(sessionService).stageResultSnapshotDelete(batch, "s1");
+    }
+
+    @Test
+    void submissionToADeletingSessionIsRejectedBeforeAnyWrite() {
+        when(sessionService.requireWritable("s1")).thenThrow(new SessionDeletingException("s1"));
+
+        assertThatThrownBy(() -> learningService.submitLearning("s1", Map.of("w1", "apple")))
+                .isInstanceOf(SessionDeletingException.class);
+        verify(wordService, never()).updateWords(any(), any());
+    }
+
+    @Test
+    void resultsComeFromTheSnapshotWithoutReadingWords() {
+        when(sessionService.getResultSnapshot("s1")).thenReturn(Optional.of(ResultSnapshot.of("s1", 1L, List.of(
+                ResultSnapshot.Outcome.builder().id("w1").english("apple").userAnswer("apple").correct(true).build()))));
+
+        assertThat(learningService.getResults("s1")).singleElement().satisfies(result -> {
+            assertThat(result.getEnglish()).isEqualTo("apple");
+            assertThat(result.isCorrect()).isTrue();
+        });
+        verify(wordService, never()).getWordsBySessionId("s1");
+    }
+
+    @Test
+    void resultsFallBackToStoredAnswersWithoutASnapshot() {
+        Word answered = word("w1", "apple", "qua tao");
+        answered.setUserAnswer("skip");
+        answered.setCorrect(false);
+        when(sessionService.getResultSnapshot("s1")).thenReturn(Optional.empty());
+        when(wordService.getWordsBySessionId("s1")).thenReturn(List.of(answered, word("w2", "book", "quyen sach")));
+
+        List<LearningService.EvaluationResult> results = learningService.getResults("s1");
+
+        assertThat(results).extracting(LearningService.EvaluationResult::getId).containsExactly("w1", "w2");
+        assertThat(results.get(0).isSkipped()).isTrue();
+        assertThat(results.get(1).getUserAnswer()).isEmpty();
+        assertThat(results.get(1).isCorrect()).isFalse();
+    }
+
+    private static Word word(String id, String english, String vietnamese) {
+        return Word.builder().id(id).sessionId("s1").english(english).vietnamese(vietnamese).build();
+    }
+}
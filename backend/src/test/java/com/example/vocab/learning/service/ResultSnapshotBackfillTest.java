@@ -0,0 +1,45 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.session.domain.Session;
+import com.example.vocab.session.service.SessionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ResultSnapshotBackfillTest {
+
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private LearningService learningService;
+
+    @Test
+    void pagesThroughDoneSessionsAndSkipsExistingSnapshots() {
+        when(sessionService.getSessionIdsByStatus(SessionStatus.DONE, null, 100)).thenReturn(List.of("s1", "s2"));
+        when(sessionService.getSessionIdsByStatus(SessionStatus.DONE, "s2", 100)).thenReturn(List.of("s3"));
+        when(sessionService.getSessionIdsByStatus(SessionStatus.DONE, "s3", 100)).thenReturn(List.of());
+        when(sessionService.getSessionIdsWithResultSnapshot(List.of("s1", "s2"))).thenReturn(Set.of("s1"));
+        when(sessionService.getSessionIdsWithResultSnapshot(List.of("s3"))).thenReturn(Set.of());
+        when(sessionService.getSessionById("s2")).thenReturn(Session.builder().createdAt(10L).updatedAt(20L).build());
+        when(sessionService.getSessionById("s3")).thenThrow(new RuntimeException("Session not found"));
+
+        new ResultSnapshotBackfill(sessionService, learningService).run(null);
+
+        // Thời điểm nộp bài lấy từ lần cập nhật cuối; lỗi ở một phiên không dừng cả lượt chạy
+        verify(learningService).backfillResultSnapshot("s2", 20L);
+        verify(learningService, times(1)).backfillResultSnapshot(anyString(), anyLong());
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewServiceTest {
+
+    @Mock
+    private WordRepository wordRepository;
+
+    @Test
+    void skipsDeletedWordsAtTheFrontOfTheQueue() {
+        DueQueue dueQueue = new DueQueue(100);
+        dueQueue.load(null, List.of(new DueQueue.Entry(1, "gone1"), new DueQueue.Entry(2, "gone2"),
+                new DueQueue.Entry(3, "a"), new DueQueue.Entry(4, "b")), true);
+        ReviewService reviewService = new ReviewService(wordRepository, null, null, null, dueQueue, 100);
+        when(wordRepository.findAllByIds(List.of("gone1", "gone2"))).thenReturn(List.of());
+        when(wordRepository.findAllByIds(List.of("a", "b"))).thenReturn(List.of(due("a", 3), due("b", 4)));
+
+        assertThat(reviewService.getDueWords(2)).extracting(Word::getId).containsExactly("a", "b");
+        assertThat(dueQueue.size()).isEqualTo(2);
+    }
+
+    private static Word due(String id, long dueAt) {
+        return Word.builder().id(id).dueAt(dueAt).build();
+    }
+}
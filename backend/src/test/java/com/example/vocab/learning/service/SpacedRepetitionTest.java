@@ -0,0 +1,44 @@
+package com.example.vocab.learning.service;
+
+import com.example.vocab.common.scoring.ScoringEngine;
+import com.example.vocab.word.domain.Word;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SpacedRepetitionTest {
+    private static final long DAY = Duration.ofDays(1).toMillis();
+
+    private final SpacedRepetition spacedRepetition = new SpacedRepetition(365);
+
+    @Test
+    void intervalsGrowOneSixThenByEase() {
+        Word word = new Word();
+
+        spacedRepetition.review(word, 5, 0);
+        assertThat(word.getIntervalDays()).isEqualTo(1);
+        spacedRepetition.review(word, 5, 0);
+        assertThat(word.getIntervalDays()).isEqualTo(6);
+        spacedRepetition.review(word, 5, 0);
+
+        // Khoảng cách dùng ease trước lần chấm này (2.7): round(6 * 2.7) = 16; ease tăng 0.1 mỗi lần hoàn hảo
+        assertThat(word.getIntervalDays()).isEqualTo(16);
+        assertThat(word.getEase()).isCloseTo(2.8, within(1e-9));
+        assertThat(word.getDueAt()).isEqualTo(word.getIntervalDays() * DAY);
+    }
+
+    @Test
+    void failedAnswerRestartsTheWordAndLowersEase() {
+        Word word = Word.builder().ease(2.5).repetitions(4).intervalDays(30).build();
+
+        spacedRepetition.review(word, SpacedRepetition.quality(ScoringEngine.Grade.WRONG, false), 1_000);
+
+        assertThat(word.getRepetitions()).isZero();
+        assertThat(word.getIntervalDays()).isEqualTo(1);
+        assertThat(word.getDueAt()).isEqualTo(1_000 + DAY);
+        assertThat(word.getEase()).isLessThan(2.5).isGreaterThanOrEqualTo(SpacedRepetition.MIN_EASE);
+    }
+}
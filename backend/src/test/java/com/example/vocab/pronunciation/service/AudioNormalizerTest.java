@@ -0,0 +1,129 @@
+package com.example.vocab.pronunciation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AudioNormalizerTest {
+
+    @Test
+    void shouldDownmixResampleAndTrimSilence() {
+        // 0.5 s silence, 1 s of 440 Hz tone, 0.5 s silence; stereo at 44.1 kHz
+        byte[] pcm = stereoRecording(44100, 0.5, 1.0, 0.5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AudioNormalizer normalizer = new AudioNormalizer(44100, 2, 300, (samples, length) -> {
+            for (int i = 0; i < length; i++) {
+                out.write(samples[i] & 0xff);
+                out.write(samples[i] >> 8);
+            }
+        });
+
+        // Odd chunk size splits sample frames across calls
+        for (int offset = 0; offset < pcm.length; offset += 4099) {
+            int length = Math.min(4099, pcm.length - offset);
+            byte[] chunk = new byte[length];
+            System.arraycopy(pcm, offset, chunk, 0, length);
+            normalizer.accept(chunk, length);
+        }
+        normalizer.finish();
+
+        double outputSeconds = normalizer.getOutputSamples() / 16000.0;
+        // 1 s of speech plus at most 0.2 s pre-roll and 0.3 s hangover
+        assertThat(outputSeconds).isBetween(1.0, 1.55);
+        assertThat(normalizer.getInputFrames()).isEqualTo(44100L * 2);
+        assertThat(out.size()).isEqualTo(normalizer.getOutputSamples() * 2);
+        assertThat(rms(out.toByteArray())).isCloseTo(8000 / Math.sqrt(2), within(1500.0));
+    }
+
+    @Test
+    void shouldEmitNothingForSilence() {
+        byte[] pcm = new byte[16000 * 2];
+        AudioNormalizer normalizer = new AudioNormalizer(16000, 1, 300, (samples, length) -> { });
+
+        normalizer.accept(pcm, pcm.length);
+        normalizer.finish();
+
+        assertThat(normalizer.isSpeechDetected()).isFalse();
+        assertThat(normalizer.getOutputSamples()).isZero();
+    }
+
+    @Test
+    void shouldDetectSpeechFromQuietMicrophone() {
+        // Biên độ 150 (RMS ~106) thấp hơn ngưỡng cấu hình 300, trên nền nhiễu nhỏ
+        byte[] pcm = monoRecording(16000, 0.5, 1.0, 0.5, 150, 4);
+        AudioNormalizer normalizer = new AudioNormalizer(16000, 1, 300, (samples, length) -> { });
+
+        normalizer.accept(pcm, pcm.length);
+        normalizer.finish();
+
+        assertThat(normalizer.isSpeechDetected()).isTrue();
+        assertThat(normalizer.getOutputSamples() / 16000.0).isBetween(1.0, 1.55);
+    }
+
+    @Test
+    void shouldPassAudioUntrimmedWhenNoFrameIsSpeech() {
+        // Một âm đều không có khoảng lặng: ngưỡng nhiễu bằng chính tín hiệu nên không khung nào vượt ngưỡng
+        byte[] pcm = monoRecording(16000, 0, 1.0, 0, 100, 0);
+        AudioNormalizer normalizer = new AudioNormalizer(16000, 1, 300, (samples, length) -> { });
+
+        normalizer.accept(pcm, pcm.length - 100);
+        normalizer.accept(Arrays.copyOfRange(pcm, pcm.length - 100, pcm.length), 100);
+        normalizer.finish();
+
+        assertThat(normalizer.isSpeechDetected()).isFalse();
+        assertThat(normalizer.isUntrimmed()).isTrue();
+        // Cả khung cuối chưa đủ 20 ms cũng được gửi đi
+        assertThat(normalizer.getOutputSamples()).isEqualTo(16000);
+    }
+
+    private static byte[] monoRecording(int sampleRate, double leadSeconds, double toneSeconds, double tailSeconds,
+                                        int amplitude, int noise) {
+        Random random = new Random(1);
+        int lead = (int) (sampleRate * leadSeconds);
+        int tone = (int) (sampleRate * toneSeconds);
+        int total = lead + tone + (int) (sampleRate * tailSeconds);
+        byte[] pcm = new byte[total * 2];
+        for (int i = 0; i < total; i++) {
+            int value = noise > 0 ? random.nextInt(2 * noise + 1) - noise : 0;
+            if (i >= lead && i < lead + tone) {
+                value += (int) (amplitude * Math.sin(2 * Math.PI * 440 * i / sampleRate));
+            }
+            pcm[i * 2] = (byte) value;
+            pcm[i * 2 + 1] = (byte) (value >> 8);
+        }
+        return pcm;
+    }
+
+    private static byte[] stereoRecording(int sampleRate, double leadSeconds, double toneSeconds, double tailSeconds) {
+        int lead = (int) (sampleRate * leadSeconds);
+        int tone = (int) (sampleRate * toneSeconds);
+        int total = lead + tone + (int) (sampleRate * tailSeconds);
+        byte[] pcm = new byte[total * 4];
+        for (int i = 0; i < total; i++) {
+            short value = 0;
+            if (i >= lead && i < lead + tone) {
+                value = (short) (8000 * Math.sin(2 * Math.PI * 440 * i / sampleRate));
+            }
+            for (int c = 0; c < 2; c++) {
+                pcm[i * 4 + c * 2] = (byte) value;
+                pcm[i * 4 + c * 2 + 1] = (byte) (value >> 8);
+            }
+        }
+        return pcm;
+    }
+
+    private static double rms(byte[] pcm) {
+        double sum = 0;
+        int n = pcm.length / 2;
+        for (int i = 0; i < n; i++) {
+            short sample = (short) ((pcm[2 * i] & 0xff) | (pcm[2 * i + 1] << 8));
+            sum += (double) sample * sample;
+        }
+        return Math.sqrt(sum / n);
+    }
+}
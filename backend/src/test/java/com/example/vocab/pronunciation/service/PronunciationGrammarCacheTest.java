@@ -0,0 +1,37 @@
+package com.example.vocab.pronunciation.service;
+
+import com.example.vocab.word.repository.WordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PronunciationGrammarCacheTest {
+
+    private final WordRepository wordRepository = mock(WordRepository.class);
+    private final PronunciationGrammarCache cache = new PronunciationGrammarCache(wordRepository,
+            ModelLexicon.unknown(), 5, 100, Duration.ofMinutes(5));
+
+    @Test
+    void neighboursAreWordsThatSoundAlikeNotJustLookAlike() throws Exception {
+        // "sheep" cùng khoá âm với "ship" nên đứng trước "shin"; "shoulder" viết chung đầu nhưng nghe khác hẳn
+        when(wordRepository.findEnglishByPrefix("sh", 50))
+                .thenReturn(List.of("shop", "Sheep", "shin", "shipped", "ship", "shoulder"));
+
+        List<String> grammar = List.of(new ObjectMapper().readValue(cache.grammarFor("ship"), String[].class));
+
+        assertThat(grammar).containsExactly("ship", "shop", "sheep", "shin", "shipped", "[unk]");
+    }
+
+    @Test
+    void targetWithoutNeighboursStillGetsAGrammar() {
+        when(wordRepository.findEnglishByPrefix("zy", 50)).thenReturn(List.of());
+
+        assertThat(cache.grammarFor("zygote")).isEqualTo("[\"zygote\",\"[unk]\"]");
+    }
+}
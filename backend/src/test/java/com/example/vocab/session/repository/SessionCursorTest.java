@@ -0,0 +1,26 @@
+package com.example.vocab.session.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionCursorTest {
+
+    @Test
+    void roundTripsThroughAnUrlSafeToken() {
+        SessionCursor cursor = new SessionCursor(1717171717171L, "Ab3_xYz");
+
+        String token = cursor.encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(SessionCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test
+    void rejectsTamperedTokens() {
+        assertThatThrownBy(() -> SessionCursor.decode("not a cursor!")).isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> SessionCursor.decode("MTpub3QtYS1udW1iZXI6aWQ")) // "1:not-a-number:id"
+                .isInstanceOf(InvalidPageRequestException.class);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.vocab.session.service;
+
+import com.example.vocab.session.domain.DeletionCheckpoint;
+import com.example.vocab.session.domain.Session;
+import com.example.vocab.session.repository.DeletionCheckpointRepository;
+import com.example.vocab.session.repository.ResultSnapshotRepository;
+import com.example.vocab.session.repository.SessionRepository;
+import com.example.vocab.word.service.WordService;
+import com.google.cloud.firestore.DocumentReference;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionDeletionJobTest {
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private DeletionCheckpointRepository checkpointRepository;
+
+    @Mock
+    private ResultSnapshotRepository resultSnapshotRepository;
+
+    @Mock
+    private WordService wordService;
+
+    private SessionDeletionJob job;
+
+    @AfterEach
+    void tearDown() {
+        if (job != null) {
+            job.close();
+        }
+    }
+
+    private SessionDeletionJob newJob(Duration retention) {
+        job = new SessionDeletionJob(sessionRepository, checkpointRepository, resultSnapshotRepository, wordService,
+                2, 500, 1, retention);
+        return job;
+    }
+
+    @Test
+    void deletesEveryPageThenTheSessionAndCheckpoint() {
+        newJob(Duration.ofHours(1));
+        when(sessionRepository.findById("s1")).thenReturn(Optional.of(new Session()));
+        stubPage(null, "w1", "w2");
+        stubPage("w2", "w3", "w4");
+        stubPage("w4", "w5");
+        when(wordService.deleteWordsAsync(eq("s1"), anyList(), anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+
+        DeletionProgress progress = awaitFinished(job.start("s1"));
+
+        assertThat(progress.getState()).isEqualTo(DeletionProgress.State.DONE);
+        assertThat(progress.getDeletedWords()).isEqualTo(5);
+        verify(wordService, times(3)).deleteWordsAsync(eq("s1"), anyList(), eq(500));
+        // Một checkpoint sau mỗi trang
+        ArgumentCaptor<DeletionCheckpoint> saved = ArgumentCaptor.forClass(DeletionCheckpoint.class);
+        verify(checkpointRepository, times(3)).save(saved.capture());
+        assertThat(saved.getAllValues()).extracting(DeletionCheckpoint::getLastWordId).containsExactly("w2", "w4", "w5");
+        verify(resultSnapshotRepository).deleteBySessionId("s1");
+        verify(sessionRepository).deleteById("s1");
+        verify(checkpointRepository).deleteBySessionId("s1");
+    }
+
+    @Test
+    void progressIsPublishedAsMeters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        newJob(Duration.ofHours(1)).bindTo(registry);
+        when(sessionRepository.findById("s1")).thenReturn(Optional.of(new Session()));
+        stubPage(null, "w1");
+        when(wordService.deleteWordsAsync(eq("s1"), anyList(), anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+
+        awaitFinished(job.start("s1"));
+
+        assertThat(registry.get("session.deletion.words").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("session.deletion.jobs").tag("outcome", "done").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("session.deletion.running").gauge().value()).isZero();
+    }
+
+    @Test
+    void resumesPendingJobsFromTheirCheckpoint() {
+        newJob(Duration.ofHours(1));
+        when(checkpointRepository.findAll()).thenReturn(List.of(DeletionCheckpoint.builder()
+                .sessionId("s1").startedAt(1L).deletedWords(4L).lastWordId("w4").build()));
+        stubPage("w4", "w5");
+        when(wordService.deleteWordsAsync(eq("s1"), anyList(), anyInt())).thenReturn(CompletableFuture.completedFuture(null));
+
+        job.resumePending();
+        DeletionProgress progress = awaitFinished(job.getProgress("s1"));
+
+        assertThat(progress.getState()).isEqualTo(DeletionProgress.State.DONE);
+        assertThat(progress.getDeletedWords()).isEqualTo(5);
+        verify(wordService, never()).getWordRefsAsync(eq("s1"), isNull(), anyInt());
+        verify(sessionRepository).deleteById("s1");
+    }
+
+    @Test
+    void failedJobRestartsFromTheLastCommittedPage() {
+        newJob(Duration.ofHours(1));
+        when(sessionRepository.findById("s1")).thenReturn(Optional.of(new Session()));
+        stubPage(null, "w1", "w2");
+        stubPage("w2", "w3");
+        when(wordService.deleteWordsAsync(eq("s1"), anyList(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("commit failed")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        DeletionProgress failed = awaitFinished(job.start("s1"));
+        assertThat(failed.getState()).isEqualTo(DeletionProgress.State.FAILED);
+        assertThat(failed.getDeletedWords()).isEqualTo(2);
+        assertThat(failed.getLastWordId()).isEqualTo("w2");
+        verify(sessionRepository, never()).deleteById("s1");
+
+        DeletionProgress restarted = awaitFinished(job.start("s1"));
+
+        assertThat(restarted.getState()).isEqualTo(DeletionProgress.State.DONE);
+        assertThat(restarted.getDeletedWords()).isEqualTo(3);
+        // Chạy lại từ checkpoint: không đọc lại trang đầu và không tạo checkpoint mới
+        verify(wordService, times(1)).getWordRefsAsync("s1", null, 2);
+        verify(checkpointRepository, times(1)).create(any(), any());
+        verify(sessionRepository).deleteById("s1");
+    }
+
+    @Test
+    void finishedJobsArePrunedAfterTheRetention() throws Exception {
+        newJob(Duration.ZERO);
+        when(sessionRepository.findById(any())).thenReturn(Optional.of(new Session()));
+        CompletableFuture<List<DocumentReference>> empty = page();
+        when(wordService.getWordRefsAsync(any(), any(), anyInt())).thenReturn(empty);
+
+        awaitFinished(job.start("s1"));
+        Thread.sleep(5);
+        awaitFinished(job.start("s2"));
+
+        assertThat(job.getJobs()).extracting(DeletionProgress::getSessionId).containsExactly("s2");
+    }
+
+    private void stubPage(String after, String... ids) {
+        CompletableFuture<List<DocumentReference>> page = page(ids);
+        when(wordService.getWordRefsAsync("s1", after, 2)).thenReturn(page);
+    }
+
+    private static CompletableFuture<List<DocumentReference>> page(String... ids) {
+        List<DocumentReference> refs = new ArrayList<>();
+        for (String id : ids) {
+            DocumentReference ref = mock(DocumentReference.class);
+            lenient().when(ref.getId()).thenReturn(id);
+            refs.add(ref);
+        }
+        return CompletableFuture.completedFuture(refs);
+    }
+
+    private static DeletionProgress awaitFinished(DeletionProgress progress) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (progress.getState() == DeletionProgress.State.RUNNING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return progress;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.vocab.session.service;
+
+import com.example.vocab.common.enums.SessionStatus;
+import com.example.vocab.common.firestore.ChunkedWriteBatch;
+import com.example.vocab.session.domain.ResultSnapshot;
+import com.example.vocab.session.repository.ResultSnapshotRepository;
+import com.example.vocab.session.repository.SessionRepository;
+import com.example.vocab.session.repository.SessionUpdate;
+import com.example.vocab.session.repository.SessionVersion;
+import com.google.cloud.Timestamp;
+import com.example.vocab.word.domain.Word;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SessionServiceTest {
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private ResultSnapshotRepository resultSnapshotRepository;
+
+    @Mock
+    private SessionDeletionJob deletionJob;
+
+    private SessionService sessionService;
+
+    @BeforeEach
+    void setUp() {
+        sessionService = new SessionService(sessionRepository, resultSnapshotRepository, deletionJob);
+    }
+
+    @Test
+    void deletingSessionIsNotWritable() {
+        when(sessionRepository.findVersion("s1")).thenReturn(Optional.of(new SessionVersion(SessionStatus.DELETING, Timestamp.now())));
+
+        assertThatThrownBy(() -> sessionService.requireWritable("s1")).isInstanceOf(SessionDeletingException.class);
+    }
+
+    @Test
+    void writableSessionReturnsTheVersionToStageAgainst() {
+        SessionVersion version = new SessionVersion(SessionStatus.LEARNING, Timestamp.ofTimeSecondsAndNanos(10, 0));
+        when(sessionRepository.findVersion("s1")).thenReturn(Optional.of(version));
+        ChunkedWriteBatch batch = mock(ChunkedWriteBatch.class);
+        SessionUpdate update = SessionUpdate.status(SessionStatus.DONE);
+
+        sessionService.stageUpdate(batch, "s1", update, sessionService.requireWritable("s1"));
+
+        verify(sessionRepository).stageUpdate(batch, "s1", update, version);
+    }
+
+    @Test
+    void editedWordIsPatchedIntoTheResultSnapshot() {
+        when(resultSnapshotRepository.findBySessionId("s1")).thenReturn(Optional.of(ResultSnapshot.of("s1", 1L, List.of(
+                ResultSnapshot.Outcome.builder().id("w1").english("aple").userAnswer("apple").correct(false).build(),
+                ResultSnapshot.Outcome.builder().id("w2").english("book").correct(true).build()))));
+        ChunkedWriteBatch batch = mock(ChunkedWriteBatch.class);
+
+        sessionService.stageResultSnapshotPatch(batch, "s1", List.of(
+                Word.builder().id("w1").english("apple").vietnamese("qua tao").imageUrl("apple.png").build()));
+
+        ArgumentCaptor<ResultSnapshot> staged = ArgumentCaptor.forClass(ResultSnapshot.class);
+        verify(resultSnapshotRepository).stage(eq(batch), staged.capture());
+        ResultSnapshot.Outcome edited = staged.getValue().getOutcomes().get(0);
+        assertThat(edited.getEnglish()).isEqualTo("apple");
+        assertThat(edited.getImageUrl()).isEqualTo("apple.png");
+        // Câu trả lời và kết quả chấm giữ nguyên
+        assertThat(edited.getUserAnswer()).isEqualTo("apple");
+        assertThat(edited.getCorrect()).isFalse();
+        assertThat(staged.getValue().getOutcomes().get(1).getEnglish()).isEqualTo("book");
+    }
+
+    @Test
+    void sessionWithoutSnapshotIsLeftAlone() {
+        when(resultSnapshotRepository.findBySessionId("s1")).thenReturn(Optional.empty());
+
+        sessionService.stageResultSnapshotPatch(mock(ChunkedWriteBatch.class), "s1",
+                List.of(Word.builder().id("w1").english("apple").build()));
+
+        verify(resultSnapshotRepository, never()).stage(any(), any());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.vocab.word.search;
+
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordsChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WordSearchIndexTest {
+
+    private final WordSearchIndex index = new WordSearchIndex(null, 1000);
+
+    @BeforeEach
+    void setUp() {
+        index.onWordsChanged(new WordsChangedEvent(List.of(
+                word("1", "apple", "quả táo"),
+                word("2", "application", "ứng dụng"),
+                word("3", "pineapple", "quả dứa"),
+                word("4", "road", "đường")), List.of()));
+    }
+
+    @Test
+    void prefixMatchesRankExactThenWholeTextThenSingleWord() {
+        assertThat(index.search("app", 10)).extracting(WordSearchHit::id).containsExactly("1", "2");
+        // "application" vẫn có thể xuất hiện sau đó như một match gần đúng ("appli" cách "apple" một ký tự)
+        List<WordSearchHit> exact = index.search("apple", 10);
+        assertThat(exact.get(0).id()).isEqualTo("1");
+        assertThat(exact.get(0).score()).isEqualTo(3);
+        assertThat(exact.subList(1, exact.size())).allMatch(hit -> hit.score() < 1);
+    }
+
+    @Test
+    void searchLatencyIsTimedByPath() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        index.bindTo(registry);
+
+        index.search("app", 1);
+        index.search("aple", 10);
+
+        assertThat(registry.get("search.query").tag("fuzzy", "false").timer().count()).isEqualTo(1);
+        assertThat(registry.get("search.query").tag("fuzzy", "true").timer().count()).isEqualTo(1);
+        assertThat(registry.get("search.index.words").gauge().value()).isEqualTo(4);
+    }
+
+    @Test
+    void vietnameseMatchesWithoutDiacritics() {
+        assertThat(index.search("qua", 10)).extracting(WordSearchHit::id).containsExactlyInAnyOrder("1", "3");
+        assertThat(index.search("tao", 10)).extracting(WordSearchHit::id).containsExactly("1");
+        assertThat(index.search("duong", 10).get(0).id()).isEqualTo("4");
+    }
+
+    @Test
+    void toleratesTypos() {
+        List<WordSearchHit> hits = index.search("aplpe", 10);
+
+        assertThat(hits).extracting(WordSearchHit::id).contains("1");
+        assertThat(hits.get(0).score()).isLessThan(1);
+    }
+
+    @Test
+    void followsUpdatesAndDeletes() {
+        index.onWordsChanged(new WordsChangedEvent(List.of(word("1", "orange", "quả cam")), List.of("2")));
+
+        assertThat(index.search("app", 10)).isEmpty();
+        assertThat(index.search("cam", 10)).extracting(WordSearchHit::id).containsExactly("1");
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void exactMatchWinsEvenWhenThePrefixIsVeryCommon() {
+        List<Word> words = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            words.add(word("b" + i, "book" + i, "sách " + i));
+        }
+        words.add(word("book", "book", "quyển sách"));
+        index.onWordsChanged(new WordsChangedEvent(words, List.of()));
+
+        List<WordSearchHit> hits = index.search("book", 10);
+
+        assertThat(hits).hasSize(10);
+        assertThat(hits.get(0).id()).isEqualTo("book");
+        assertThat(index.search("sach", 5)).hasSize(5);
+    }
+
+    private static Word word(String id, String english, String vietnamese) {
+        return Word.builder().id(id).sessionId("s").english(english).vietnamese(vietnamese).build();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.vocab.word.service;
+
+import com.example.vocab.word.repository.WordRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RandomKeyBackfillTest {
+
+    @Mock
+    private WordRepository wordRepository;
+
+    @Test
+    void assignsKeysOnlyToWordsThatLackOne() {
+        when(wordRepository.findWithoutRandomKeyAfter(null, 500))
+                .thenReturn(new WordRepository.RandomKeyPage(List.of("w2", "w3"), "w4"));
+        when(wordRepository.findWithoutRandomKeyAfter("w4", 500))
+                .thenReturn(new WordRepository.RandomKeyPage(List.of(), "w9"));
+        when(wordRepository.findWithoutRandomKeyAfter("w9", 500))
+                .thenReturn(new WordRepository.RandomKeyPage(List.of(), null));
+
+        new RandomKeyBackfill(wordRepository).run(null);
+
+        verify(wordRepository).assignRandomKeys(List.of("w2", "w3"));
+        verify(wordRepository, times(1)).assignRandomKeys(anyCollection());
+    }
+}
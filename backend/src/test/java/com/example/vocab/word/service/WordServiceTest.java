@@ -0,0 +1,134 @@
+package com.example.vocab.word.service;
+
+import com.example.vocab.word.domain.Word;
+import com.example.vocab.word.repository.WordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WordServiceTest {
+
+    @Mock
+    private WordRepository wordRepository;
+
+    @Captor
+    private ArgumentCaptor<List<Word>> upsertsCaptor;
+
+    @Captor
+    private ArgumentCaptor<Collection<String>> deletesCaptor;
+
+    private WordService wordService;
+
+    @BeforeEach
+    void setUp() {
+        wordService = new WordService(wordRepository, new SessionWordCache(1000, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void shouldOnlyWriteChangedAndRemovedWords() {
+        when(wordRepository.findAllBySessionIdOrderByOrderIndexAsc("s1")).thenReturn(List.of(
+                stored("w1", "apple", "qua tao", 0),
+                stored("w2", "book", "quyen sach", 1),
+                stored("w3", "cat", "con meo", 2)));
+
+        List<Word> incoming = new ArrayList<>(List.of(
+                Word.builder().english("apple").vietnamese("qua tao").build(),
+                Word.builder().english("cat").vietnamese("con meo").build(),
+                Word.builder().english("dog").vietnamese("con cho").build()));
+
+        List<Word> saved = wordService.saveWords("s1", incoming);
+
+        verify(wordRepository).applyChanges(upsertsCaptor.capture(), deletesCaptor.capture());
+        assertThat(upsertsCaptor.getValue()).extracting(Word::getEnglish).containsExactly("cat", "dog");
+        assertThat(deletesCaptor.getValue()).containsExactly("w2");
+        assertThat(saved).extracting(Word::getId).containsExactly("w1", "w3", null);
+        assertThat(saved.get(0).getRandomKey()).isEqualTo(0.5);
+    }
+
+    @Test
+    void shouldDiffAgainstFreshReadRatherThanCachedList() {
+        // Lần đọc đầu được cache; sau đó một instance khác đã thêm w2
+        when(wordRepository.findAllBySessionIdOrderByOrderIndexAsc("s1")).thenReturn(
+                List.of(stored("w1", "apple", "qua tao", 0)),
+                List.of(stored("w1", "apple", "qua tao", 0), stored("w2", "book", "quyen sach", 1)));
+        wordService.getWordsBySessionId("s1");
+
+        wordService.saveWords("s1", new ArrayList<>(List.of(
+                Word.builder().english("apple").vietnamese("qua tao").build())));
+
+        verify(wordRepository).applyChanges(upsertsCaptor.capture(), deletesCaptor.capture());
+        assertThat(upsertsCaptor.getValue()).isEmpty();
+        assertThat(deletesCaptor.getValue()).containsExactly("w2");
+    }
+
+    @Test
+    void slowAsyncReadShouldNotReplaceNewerWrite() {
+        CompletableFuture<List<Word>> slowRead = new CompletableFuture<>();
+        when(wordRepository.findAllBySessionIdOrderByOrderIndexAscAsync("s1")).thenReturn(slowRead);
+        when(wordRepository.findAllBySessionIdOrderByOrderIndexAsc("s1"))
+                .thenReturn(List.of(stored("w1", "apple", "qua tao", 0)));
+
+        CompletableFuture<List<Word>> read = wordService.getWordsBySessionIdAsync("s1");
+        wordService.saveWords("s1", new ArrayList<>(List.of(
+                Word.builder().id("w1").english("apple").vietnamese("trai tao").build())));
+        slowRead.complete(List.of(stored("w1", "apple", "qua tao", 0)));
+
+        assertThat(read.join()).extracting(Word::getVietnamese).containsExactly("qua tao");
+        assertThat(wordService.getWordsBySessionId("s1")).extracting(Word::getVietnamese).containsExactly("trai tao");
+    }
+
+    @Test
+    void shouldServeRepeatedReadsFromCache() {
+        when(wordRepository.findAllBySessionIdOrderByOrderIndexAsc(anyString()))
+                .thenReturn(List.of(stored("w1", "apple", "qua tao", 0)));
+
+        wordService.getWordsBySessionId("s1").get(0).setUserAnswer("mutated");
+        List<Word> second = wordService.getWordsBySessionId("s1");
+
+        verify(wordRepository, times(1)).findAllBySessionIdOrderByOrderIndexAsc("s1");
+        assertThat(second.get(0).getUserAnswer()).isNull();
+    }
+
+    @Test
+    void shouldKeepReviewScheduleWhenClientOmitsIt() {
+        Word reviewed = stored("w1", "apple", "qua tao", 0).toBuilder()
+                .ease(2.6).intervalDays(6).repetitions(2).dueAt(1_000L).lastReviewedAt(500L).build();
+        when(wordRepository.findAllBySessionIdOrderByOrderIndexAsc("s1")).thenReturn(List.of(reviewed));
+
+        List<Word> saved = wordService.saveWords("s1", new ArrayList<>(List.of(
+                Word.builder().id("w1").english("apple").vietnamese("qua tao").build())));
+
+        verify(wordRepository).applyChanges(upsertsCaptor.capture(), deletesCaptor.capture());
+        // Không đổi gì so với bản đã lưu nên không ghi lại
+        assertThat(upsertsCaptor.getValue()).isEmpty();
+        assertThat(saved.get(0)).isEqualTo(reviewed);
+    }
+
+    private static Word stored(String id, String english, String vietnamese, int orderIndex) {
+        return Word.builder()
+                .id(id)
+                .sessionId("s1")
+                .english(english)
+                .vietnamese(vietnamese)
+                .orderIndex(orderIndex)
+                .randomKey(0.5)
+                .build();
+    }
+}
@@ -1,10 +1,15 @@
 import axios from 'axios';
-import type { Session, Word, EvaluationResult, SessionStatus } from '../types';
+import type { Session, SessionPage, Word, EvaluationResult, ReviewResult, ResultSummary, SessionStatus } from '../types';
 
 const API_BASE_URL = (import.meta.env.VITE_API_URL || 'http://localhost:8080/api');
 
 export const api = {
+    /** @deprecated trả tối đa 500 phiên mới nhất; dùng getSessionPage */
     getSessions: () => axios.get<Session[]>(`${API_BASE_URL}/sessions`),
+    getSessionPage: (limit = 20, cursor?: string | null, fields?: string[]) =>
+        axios.get<SessionPage>(`${API_BASE_URL}/sessions/page`, {
+            params: { limit, cursor: cursor ?? undefined, fields: fields?.join(',') }
+        }),
     getSession: (id: string) => axios.get<Session>(`${API_BASE_URL}/sessions/${id}`),
     createSession: (topic?: string) => axios.post<Session>(`${API_BASE_URL}/sessions`, { topic }),
     updateSessionStatus: (id: string, status: SessionStatus) =>
@@ -18,6 +23,8 @@ export const api = {
         axios.post<EvaluationResult[]>(`${API_BASE_URL}/sessions/${sessionId}/submit`, answers),
     getResults: (sessionId: string) =>
         axios.get<EvaluationResult[]>(`${API_BASE_URL}/sessions/${sessionId}/submit/results`),
+    getResultSummary: (sessionId: string) =>
+        axios.get<ResultSummary>(`${API_BASE_URL}/sessions/${sessionId}/submit/results/summary`),
     updateWord: (sessionId: string, wordId: string, data: { english: string; vietnamese: string; imageUrl?: string }) =>
         axios.put<Word>(`${API_BASE_URL}/sessions/${sessionId}/words/${wordId}`, data),
     deleteWord: (sessionId: string, wordId: string) =>
@@ -29,6 +36,10 @@ export const api = {
     getRandomQuiz: () => axios.get<Word[]>(`${API_BASE_URL}/quiz/random`),
     submitRandomQuiz: (answers: Record<string, string>) =>
         axios.post<EvaluationResult[]>(`${API_BASE_URL}/quiz/submit`, answers),
+    // Spaced repetition review
+    getDueWords: (limit = 20) => axios.get<Word[]>(`${API_BASE_URL}/review/due`, { params: { limit } }),
+    submitReview: (answers: Record<string, string>) =>
+        axios.post<ReviewResult[]>(`${API_BASE_URL}/review/submit`, answers),
     // Pronunciation
     checkPronunciation: (audio: Blob, targetWord: string) => {
         const formData = new FormData();
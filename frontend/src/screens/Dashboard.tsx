@@ -4,8 +4,13 @@ import { Plus, Calendar, BookOpen, Trash2, Edit2, Dices, CheckCircle2, Search, C
 import { api } from '../api/api';
 import type { Session } from '../types';
 
+const PAGE_SIZE = 20;
+const LIST_FIELDS = ['topic', 'status', 'wordCount'];
+
 export default function Dashboard() {
     const [sessions, setSessions] = useState<Session[]>([]);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [showSuccess, setShowSuccess] = useState(false);
     const [searchQuery, setSearchQuery] = useState('');
     const navigate = useNavigate();
@@ -41,10 +46,25 @@ export default function Dashboard() {
 
     const fetchSessions = async () => {
         try {
-            const resp = await api.getSessions();
-            setSessions(resp.data);
+            const resp = await api.getSessionPage(PAGE_SIZE, null, LIST_FIELDS);
+            setSessions(resp.data.items);
+            setNextCursor(resp.data.nextCursor);
+        } catch (err) {
+            console.error(err);
+        }
+    };
+
+    const loadMore = async () => {
+        if (!nextCursor || loadingMore) return;
+        setLoadingMore(true);
+        try {
+            const resp = await api.getSessionPage(PAGE_SIZE, nextCursor, LIST_FIELDS);
+            setSessions(prev => [...prev, ...resp.data.items]);
+            setNextCursor(resp.data.nextCursor);
         } catch (err) {
             console.error(err);
+        } finally {
+            setLoadingMore(false);
         }
     };
 
@@ -178,7 +198,15 @@ export default function Dashboard() {
                 })}
             </div>
 
-            {filteredSessions.length === 0 && (
+            {nextCursor && (
+                <div style={{ textAlign: 'center', marginTop: '1.5rem' }}>
+                    <button className="btn btn-ghost" onClick={loadMore} disabled={loadingMore}>
+                        {loadingMore ? 'Đang tải...' : 'Xem thêm'}
+                    </button>
+                </div>
+            )}
+
+            {filteredSessions.length === 0 && !nextCursor && (
                 <div style={{ textAlign: 'center', padding: '4rem', color: 'var(--text-muted)' }}>
                     {sessions.length === 0 
                         ? "Chưa có chủ đề nào. Nhấn + để bắt đầu!" 
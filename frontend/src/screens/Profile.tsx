@@ -1,7 +1,10 @@
 import { useEffect, useState } from 'react';
 import { api } from '../api/api';
 import { Book, Layers } from 'lucide-react';
-import type { Session } from '../types';
+import type { SessionPage } from '../types';
+
+// Trang lớn nhất server cho phép; chỉ đọc wordCount nên mỗi trang rất nhẹ
+const STATS_PAGE_SIZE = 100;
 
 export default function Profile() {
     const [stats, setStats] = useState({ sessionCount: 0, totalWords: 0 });
@@ -10,13 +13,16 @@ export default function Profile() {
     useEffect(() => {
         const fetchStats = async () => {
             try {
-                const resp = await api.getSessions();
-                const sessions: Session[] = resp.data;
-                const totalWords = sessions.reduce((acc, s) => acc + s.wordCount, 0);
-                setStats({
-                    sessionCount: sessions.length,
-                    totalWords
-                });
+                let sessionCount = 0;
+                let totalWords = 0;
+                let cursor: string | null = null;
+                do {
+                    const page: SessionPage = (await api.getSessionPage(STATS_PAGE_SIZE, cursor, ['wordCount'])).data;
+                    sessionCount += page.items.length;
+                    totalWords += page.items.reduce((acc, s) => acc + (s.wordCount || 0), 0);
+                    cursor = page.nextCursor;
+                } while (cursor);
+                setStats({ sessionCount, totalWords });
                 setLoading(false);
             } catch (err) {
                 console.error(err);
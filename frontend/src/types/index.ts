@@ -1,4 +1,4 @@
-export type SessionStatus = 'NEW' | 'LEARNING' | 'DONE';
+export type SessionStatus = 'NEW' | 'LEARNING' | 'DONE' | 'DELETING';
 
 export interface Session {
     id: string;
@@ -8,6 +8,11 @@ export interface Session {
     wordCount: number;
 }
 
+export interface SessionPage {
+    items: Session[];
+    nextCursor: string | null;
+}
+
 export interface Word {
     id?: string;
     sessionId: string;
@@ -15,6 +20,11 @@ export interface Word {
     vietnamese: string;
     orderIndex: number;
     imageUrl?: string;
+    // Lịch ôn tập SM-2, chỉ có sau lần chấm đầu tiên
+    ease?: number;
+    intervalDays?: number;
+    repetitions?: number;
+    dueAt?: number;
 }
 
 export interface EvaluationResult {
@@ -26,3 +36,18 @@ export interface EvaluationResult {
     skipped?: boolean;
     imageUrl?: string;
 }
+
+export interface ReviewResult extends Omit<EvaluationResult, 'imageUrl'> {
+    intervalDays: number;
+    dueAt: number;
+}
+
+export interface ResultSummary {
+    sessionId: string;
+    submittedAt: number;
+    total: number;
+    correctCount: number;
+    skippedCount: number;
+    accuracy: number;
+    outcomes: EvaluationResult[];
+}